@@ -1,12 +1,15 @@
 package com.uni.research.common.config;
 
 import com.baomidou.mybatisplus.annotation.DbType;
+import com.baomidou.mybatisplus.core.handlers.MetaObjectHandler;
 import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
 import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
+import org.apache.ibatis.reflection.MetaObject;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.LocalDateTime;
 
 /**
  * MyBatis-Plus 配置类
@@ -17,6 +20,7 @@ import org.springframework.context.annotation.Configuration;
  * 1. 配置分页插件，自动处理分页逻辑
  * 2. 指定数据库类型为 MySQL
  * 3. 扫描 Mapper 接口
+ * 4. 自动填充 createTime / updateTime（实体上的 FieldFill 需要处理器才会生效）
  * 
  * 面试话术：
  * "我配置了 MyBatis-Plus 的分页插件，它会自动在 SQL 中添加 LIMIT 子句。
@@ -40,4 +44,25 @@ public class MyBatisPlusConfig {
         interceptor.addInnerInterceptor(new PaginationInnerInterceptor(DbType.MYSQL));
         return interceptor;
     }
+
+    /**
+     * 字段自动填充
+     * 保证新写入的行 create_time 不为空，游标分页依赖 (create_time, id) 有序且非空
+     */
+    @Bean
+    public MetaObjectHandler metaObjectHandler() {
+        return new MetaObjectHandler() {
+            @Override
+            public void insertFill(MetaObject metaObject) {
+                LocalDateTime now = LocalDateTime.now();
+                this.strictInsertFill(metaObject, "createTime", () -> now, LocalDateTime.class);
+                this.strictInsertFill(metaObject, "updateTime", () -> now, LocalDateTime.class);
+            }
+
+            @Override
+            public void updateFill(MetaObject metaObject) {
+                this.strictUpdateFill(metaObject, "updateTime", LocalDateTime::now, LocalDateTime.class);
+            }
+        };
+    }
 }
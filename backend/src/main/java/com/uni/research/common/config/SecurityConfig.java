@@ -83,7 +83,8 @@ public class SecurityConfig {
                                                                                                               // Session
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/auth/**", "/doc.html", "/webjars/**", "/v3/api-docs/**",
-                                "/swagger-ui/**", "/swagger-resources/**", "/demo/**", "/common/**")
+                                "/swagger-ui/**", "/swagger-resources/**", "/demo/**", "/common/**",
+                                "/internal/**") // /internal/** 由共享令牌校验（AI 服务回调）
                         .permitAll() // 开放接口
                         .anyRequest().authenticated() // 其他接口需要认证
                 )
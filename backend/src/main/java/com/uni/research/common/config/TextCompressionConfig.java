@@ -0,0 +1,52 @@
+package com.uni.research.common.config;
+
+import com.uni.research.common.mybatis.CompressedTextTypeHandler;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 压缩文本列配置
+ *
+ * CompressedTextTypeHandler 由 MyBatis 实例化，这里在启动时设置阈值并注册指标：
+ * - text.compression.bytes{stage=raw|stored}：写入的原始 / 实际存储字节数，两者之比即压缩率
+ * - text.compression.values{result=compressed|plain}：压缩 / 未压缩写入的值数量
+ * - text.compression.ratio：累计存储字节 / 原始字节
+ * - text.compression.decode.latency：读取时解压耗时（未压缩的值不计时）
+ */
+@Configuration
+@RequiredArgsConstructor
+public class TextCompressionConfig {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${chat.compression.threshold-bytes:1024}")
+    private int thresholdBytes;
+
+    @Value("${chat.compression.level:6}")
+    private int level;
+
+    @PostConstruct
+    public void init() {
+        Timer decodeTimer = Timer.builder("text.compression.decode.latency").register(meterRegistry);
+        CompressedTextTypeHandler.configure(thresholdBytes, level, decodeTimer);
+
+        FunctionCounter.builder("text.compression.bytes", this, c -> CompressedTextTypeHandler.rawBytes())
+                .tag("stage", "raw").register(meterRegistry);
+        FunctionCounter.builder("text.compression.bytes", this, c -> CompressedTextTypeHandler.storedBytes())
+                .tag("stage", "stored").register(meterRegistry);
+        FunctionCounter.builder("text.compression.values", this, c -> CompressedTextTypeHandler.compressedValues())
+                .tag("result", "compressed").register(meterRegistry);
+        FunctionCounter.builder("text.compression.values", this, c -> CompressedTextTypeHandler.plainValues())
+                .tag("result", "plain").register(meterRegistry);
+        Gauge.builder("text.compression.ratio", this, c -> {
+            long raw = CompressedTextTypeHandler.rawBytes();
+            return raw == 0 ? 1 : (double) CompressedTextTypeHandler.storedBytes() / raw;
+        }).register(meterRegistry);
+    }
+}
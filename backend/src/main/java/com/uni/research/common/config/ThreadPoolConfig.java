@@ -1,6 +1,7 @@
 package com.uni.research.common.config;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
@@ -95,4 +96,46 @@ public class ThreadPoolConfig {
         
         return executor;
     }
+
+    /**
+     * 文档 I/O 专用线程池（MinIO 上传/下载等）
+     * 
+     * 线程数即最大并发 I/O 数，批量导入时用它限制同时进行的 MinIO 请求，
+     * 避免 500 个文件同时打到对象存储上。队列满时 CallerRunsPolicy 让提交方自己执行，形成反压。
+     */
+    @Bean("docIoExecutor")
+    public ThreadPoolTaskExecutor docIoExecutor(@Value("${doc.io.concurrency:8}") int concurrency) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setQueueCapacity(200);
+        executor.setThreadNamePrefix("doc-io-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        executor.initialize();
+
+        log.info("文档 I/O 线程池初始化完成: concurrency={}", concurrency);
+        return executor;
+    }
+
+    /**
+     * 文档后台任务线程池
+     * 
+     * 用于编排批量上传等长任务（任务本身再把 I/O 分发给 docIoExecutor），
+     * 与 I/O 线程池分开，避免编排线程占满 I/O 线程导致互相等待。
+     */
+    @Bean("docTaskExecutor")
+    public ThreadPoolTaskExecutor docTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(50);
+        executor.setThreadNamePrefix("doc-task-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        executor.initialize();
+        return executor;
+    }
 }
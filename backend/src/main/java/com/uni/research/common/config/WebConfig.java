@@ -3,6 +3,7 @@ package com.uni.research.common.config;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -17,12 +18,14 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
  * 2. 开发环境允许所有域名，生产环境需限制
  * 3. 提供 RestTemplate Bean 用于调用外部服务
  * 4. 启用异步支持用于后台任务
+ * 5. 启用定时任务（如已删除文档的后台清理）
  * 
  * @author wrench1024
  * @since 2026-01-02
  */
 @Configuration
 @EnableAsync
+@EnableScheduling
 public class WebConfig implements WebMvcConfigurer {
 
     @Override
@@ -0,0 +1,203 @@
+package com.uni.research.common.mybatis;
+
+import io.micrometer.core.instrument.Timer;
+import org.apache.ibatis.type.BaseTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.MappedJdbcTypes;
+import org.apache.ibatis.type.MappedTypes;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compressed Text Column Handler
+ *
+ * 大文本列（对话消息内容、引用 JSON）以 BLOB 存储，超过阈值的值透明压缩：
+ * 1. 不超过阈值的值按原始 UTF-8 写入，与改造前的数据格式相同
+ * 2. 超过阈值且压缩后更小的值写为 [0x01][deflate 数据]，使用预置字典（引用 JSON 的字段名、常见 Markdown 片段），
+ *    每条值单独压缩时开头部分也能找到匹配
+ * 3. 原文恰好以 0x00 / 0x01 开头时写为 [0x00][原文]，保证读取时不会误判
+ * 4. 读取：首字节 0x01 解压，0x00 去掉首字节，其他按原始 UTF-8（兼容历史数据）
+ *
+ * 解压只发生在被 SELECT 的列上，列表类查询不选 citations 时不会有解压开销。
+ * 阈值与指标由 TextCompressionConfig 在启动时设置（TypeHandler 由 MyBatis 实例化，无法注入）。
+ *
+ * 字典变更时需要新的头字节，已写入的数据仍按旧字典解压。
+ */
+@MappedTypes(String.class)
+@MappedJdbcTypes(JdbcType.BLOB)
+public class CompressedTextTypeHandler extends BaseTypeHandler<String> {
+
+    private static final byte HEADER_RAW = 0x00;
+    private static final byte HEADER_DEFLATE_V1 = 0x01;
+
+    /**
+     * 预置字典 v1：越常见的片段越靠后（deflate 对近距离匹配编码更短）
+     */
+    private static final byte[] DICTIONARY_V1 = ("。\n\n## 参考文献\n\n### 总结\n\n- **方法**：- **结论**：根据文献的研究表明，"
+            + "In this paper, we propose the results show that ```\n\n"
+            + "...\", \"chunk_index\": ..., \"source_file\": \".pdf\"}, "
+            + "[{\"doc_id\": \"text\": \"...\",\"chunk_index\":\"source_file\":\".pdf\"},"
+            + "{\"doc_id\":\"text\":\"").getBytes(StandardCharsets.UTF_8);
+
+    private static volatile int thresholdBytes = 1024;
+    private static volatile int level = Deflater.DEFAULT_COMPRESSION;
+    private static volatile Timer decodeTimer;
+
+    private static final LongAdder RAW_BYTES = new LongAdder();
+    private static final LongAdder STORED_BYTES = new LongAdder();
+    private static final LongAdder COMPRESSED_VALUES = new LongAdder();
+    private static final LongAdder PLAIN_VALUES = new LongAdder();
+
+    public static void configure(int threshold, int compressionLevel, Timer timer) {
+        thresholdBytes = threshold;
+        level = compressionLevel;
+        decodeTimer = timer;
+    }
+
+    /**
+     * 写入的原始字节数（压缩前）
+     */
+    public static long rawBytes() {
+        return RAW_BYTES.sum();
+    }
+
+    /**
+     * 写入的存储字节数（含头字节）
+     */
+    public static long storedBytes() {
+        return STORED_BYTES.sum();
+    }
+
+    public static long compressedValues() {
+        return COMPRESSED_VALUES.sum();
+    }
+
+    public static long plainValues() {
+        return PLAIN_VALUES.sum();
+    }
+
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, String parameter, JdbcType jdbcType)
+            throws SQLException {
+        ps.setBytes(i, encode(parameter));
+    }
+
+    @Override
+    public String getNullableResult(ResultSet rs, String columnName) throws SQLException {
+        return decode(rs.getBytes(columnName));
+    }
+
+    @Override
+    public String getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        return decode(rs.getBytes(columnIndex));
+    }
+
+    @Override
+    public String getNullableResult(CallableStatement cs, int columnIndex) throws SQLException {
+        return decode(cs.getBytes(columnIndex));
+    }
+
+    public static byte[] encode(String value) {
+        byte[] raw = value.getBytes(StandardCharsets.UTF_8);
+        byte[] stored = null;
+        if (raw.length > thresholdBytes) {
+            byte[] compressed = deflate(raw);
+            if (compressed.length + 1 < raw.length) {
+                stored = withHeader(HEADER_DEFLATE_V1, compressed);
+                COMPRESSED_VALUES.increment();
+            }
+        }
+        if (stored == null) {
+            boolean ambiguous = raw.length > 0 && (raw[0] == HEADER_RAW || raw[0] == HEADER_DEFLATE_V1);
+            stored = ambiguous ? withHeader(HEADER_RAW, raw) : raw;
+            PLAIN_VALUES.increment();
+        }
+        RAW_BYTES.add(raw.length);
+        STORED_BYTES.add(stored.length);
+        return stored;
+    }
+
+    public static String decode(byte[] stored) throws SQLException {
+        if (stored == null) {
+            return null;
+        }
+        if (stored.length == 0) {
+            return "";
+        }
+        if (stored[0] == HEADER_RAW) {
+            return new String(stored, 1, stored.length - 1, StandardCharsets.UTF_8);
+        }
+        if (stored[0] != HEADER_DEFLATE_V1) {
+            return new String(stored, StandardCharsets.UTF_8);
+        }
+        long start = System.nanoTime();
+        try {
+            return new String(inflate(stored), StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new SQLException("Corrupted compressed text column", e);
+        } finally {
+            Timer timer = decodeTimer;
+            if (timer != null) {
+                timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(level);
+        try {
+            deflater.setDictionary(DICTIONARY_V1);
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 3));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] stored) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(stored, 1, stored.length - 1);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(stored.length * 3);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0) {
+                    if (inflater.needsDictionary()) {
+                        inflater.setDictionary(DICTIONARY_V1);
+                    } else if (inflater.needsInput()) {
+                        throw new DataFormatException("Truncated compressed text");
+                    }
+                }
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] withHeader(byte header, byte[] body) {
+        byte[] stored = new byte[body.length + 1];
+        stored[0] = header;
+        System.arraycopy(body, 0, stored, 1, body.length);
+        return stored;
+    }
+}
@@ -0,0 +1,54 @@
+package com.uni.research.common.result;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 游标分页响应
+ * 
+ * 对应 408 考点：数据库 - B+ 树索引与范围查询
+ * 
+ * 设计思路：
+ * 1. 用上一页最后一条记录的排序键作为游标，下一页用 "排序键 < 游标" 的范围条件定位
+ * 2. 查询可直接走联合索引，代价与页码无关；OFFSET 分页需要扫描并丢弃前面的所有行
+ * 3. 不做 COUNT(*)，总数由调用方按需提供（如缓存的计数）
+ * 
+ * @author wrench1024
+ * @since 2026-10-18
+ */
+@Data
+public class CursorPage<T> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 当前页数据
+     */
+    private List<T> records;
+
+    /**
+     * 下一页游标，没有更多数据时为 null
+     */
+    private String nextCursor;
+
+    /**
+     * 是否还有下一页
+     */
+    private boolean hasMore;
+
+    /**
+     * 总数（可选，null 表示未统计）
+     */
+    private Long total;
+
+    public static <T> CursorPage<T> of(List<T> records, String nextCursor, Long total) {
+        CursorPage<T> page = new CursorPage<>();
+        page.setRecords(records);
+        page.setNextCursor(nextCursor);
+        page.setHasMore(nextCursor != null);
+        page.setTotal(total);
+        return page;
+    }
+}
@@ -0,0 +1,342 @@
+package com.uni.research.common.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 内存倒排索引（BM25 排序）
+ * 
+ * 对应 408 考点：数据结构 - 散列表、堆（Top-K）；操作系统 - 读写锁
+ * 
+ * 设计思路：
+ * 1. 词项 -> 倒排表（long[] id + float[] 加权词频），用原始类型数组避免装箱
+ * 2. 一条记录可由多个字段组成，每个字段带权重（如标题权重高于期刊），加权后参与 BM25
+ * 3. 维护 id -> 词项列表，支持增量更新 / 删除（先删旧词项再写新词项）
+ * 4. 查询时按文档频率从低到高处理词项；matchAll 模式下只在首个词项的候选集上累加，
+ *    候选集只会缩小
+ * 5. 拉丁词项另存一份有序词典，查询词项按前缀展开（"transform" 命中 "transformer"），
+ *    展开出的词项与原词项算作同一组，每条记录取组内最高得分，前缀命中按 PREFIX_BOOST 降权
+ * 6. 用大小为 K 的小顶堆取 Top-K，复杂度 O(N log K)
+ * 7. 读多写少，使用读写锁：查询并发执行，更新互斥
+ * 8. searchNormalised 把得分除以该查询在本索引中的理论上限（每组 boost × idf × (k1 + 1) 之和），
+ *    再乘以查询词项的覆盖比例，结果落在 [0, 1]，不同索引的结果可以直接比较
+ * 
+ * @author wrench1024
+ * @since 2026-10-18
+ */
+public class InvertedIndex {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    /**
+     * 前缀命中相对精确命中的权重
+     */
+    private static final float PREFIX_BOOST = 0.7f;
+
+    /**
+     * 单个查询词项最多展开的词项数，避免 "the" 之类的短前缀展开出大量词项
+     */
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    /**
+     * 待索引字段
+     */
+    public record Field(String text, float weight) {
+    }
+
+    /**
+     * 命中结果
+     */
+    public record Hit(long id, float score) {
+    }
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final NavigableSet<String> latinTerms = new TreeSet<>();
+    private final Map<Long, DocEntry> docs = new HashMap<>();
+    private double totalLength;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 新增或覆盖一条记录
+     */
+    public void put(long id, Field... fields) {
+        Map<String, Float> termWeights = new HashMap<>();
+        float length = 0;
+        for (Field field : fields) {
+            for (String term : TextTokenizer.tokenize(field.text())) {
+                termWeights.merge(term, field.weight(), Float::sum);
+                length += field.weight();
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+            if (termWeights.isEmpty()) {
+                return;
+            }
+            for (Map.Entry<String, Float> entry : termWeights.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), this::newPostings).add(id, entry.getValue());
+            }
+            docs.put(id, new DocEntry(termWeights.keySet().toArray(new String[0]), length));
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean contains(long id) {
+        lock.readLock().lock();
+        try {
+            return docs.containsKey(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 查询 Top-K
+     *
+     * @param query    查询文本（按 TextTokenizer.tokenizeQuery 切分）
+     * @param k        返回条数上限
+     * @param matchAll true 时要求命中全部查询词项（近似子串匹配），false 时按任意词项命中排序
+     * @return 按得分降序排列的结果
+     */
+    public List<Hit> search(String query, int k, boolean matchAll) {
+        return search(query, k, matchAll, false);
+    }
+
+    /**
+     * 查询 Top-K（任意词项命中），得分归一化到 [0, 1]
+     *
+     * 归一化只依赖查询和本索引的词项统计，与其他命中无关：只有弱匹配的索引不会因为
+     * "本索引第一名" 而得到 1.0。同一索引内的排序与 search 相同。
+     *
+     * @return 按得分降序排列的结果，得分 = BM25 / 理论上限 × 出现在本索引中的查询词项比例
+     */
+    public List<Hit> searchNormalised(String query, int k) {
+        return search(query, k, false, true);
+    }
+
+    private List<Hit> search(String query, int k, boolean matchAll, boolean normalise) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(TextTokenizer.tokenizeQuery(query)));
+        if (terms.isEmpty() || k <= 0) {
+            return new ArrayList<>();
+        }
+
+        lock.readLock().lock();
+        try {
+            int n = docs.size();
+            if (n == 0) {
+                return new ArrayList<>();
+            }
+            double avgLength = totalLength / n;
+
+            List<TermGroup> groups = new ArrayList<>(terms.size());
+            double upperBound = 0;
+            for (String term : terms) {
+                TermGroup group = expand(term);
+                if (group.lists.isEmpty()) {
+                    if (matchAll) {
+                        return new ArrayList<>();
+                    }
+                    continue;
+                }
+                groups.add(group);
+                // tf / (tf + norm) < 1，一组的得分不超过组内最大的 boost × idf × (k1 + 1)
+                double groupBound = 0;
+                for (int g = 0; g < group.lists.size(); g++) {
+                    groupBound = Math.max(groupBound, group.boosts.get(g) * idf(n, group.lists.get(g).size));
+                }
+                upperBound += groupBound * (K1 + 1);
+            }
+            if (groups.isEmpty()) {
+                return new ArrayList<>();
+            }
+            // 稀有词项先处理，matchAll 时候选集最小
+            groups.sort(Comparator.comparingInt(TermGroup::totalSize));
+
+            Map<Long, float[]> acc = new HashMap<>();
+            Map<Long, Float> best = new HashMap<>();
+            boolean first = true;
+            for (TermGroup group : groups) {
+                best.clear();
+                for (int g = 0; g < group.lists.size(); g++) {
+                    Postings p = group.lists.get(g);
+                    float boost = group.boosts.get(g);
+                    double idf = idf(n, p.size);
+                    for (int i = 0; i < p.size; i++) {
+                        long id = p.ids[i];
+                        if (matchAll && !first && !acc.containsKey(id)) {
+                            continue;
+                        }
+                        float tf = p.weights[i];
+                        double norm = K1 * (1 - B + B * docs.get(id).length / avgLength);
+                        float score = (float) (boost * idf * tf * (K1 + 1) / (tf + norm));
+                        best.merge(id, score, Math::max);
+                    }
+                }
+                for (Map.Entry<Long, Float> entry : best.entrySet()) {
+                    float[] slot = acc.computeIfAbsent(entry.getKey(), id -> new float[2]);
+                    slot[0] += entry.getValue();
+                    slot[1]++;
+                }
+                first = false;
+            }
+
+            int required = groups.size();
+            PriorityQueue<Hit> heap = new PriorityQueue<>(Math.min(k, acc.size()) + 1,
+                    Comparator.comparingDouble(Hit::score));
+            for (Map.Entry<Long, float[]> entry : acc.entrySet()) {
+                float[] slot = entry.getValue();
+                if (matchAll && slot[1] < required) {
+                    continue;
+                }
+                if (heap.size() < k) {
+                    heap.offer(new Hit(entry.getKey(), slot[0]));
+                } else if (slot[0] > heap.peek().score()) {
+                    heap.poll();
+                    heap.offer(new Hit(entry.getKey(), slot[0]));
+                }
+            }
+
+            List<Hit> hits = new ArrayList<>(heap);
+            hits.sort(Comparator.comparingDouble(Hit::score).reversed());
+            if (normalise) {
+                double scale = (double) groups.size() / terms.size() / upperBound;
+                hits.replaceAll(hit -> new Hit(hit.id(), (float) Math.min(1, hit.score() * scale)));
+            }
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static double idf(int n, int df) {
+        return Math.log(1 + (n - df + 0.5) / (df + 0.5));
+    }
+
+    private void removeInternal(long id) {
+        DocEntry entry = docs.remove(id);
+        if (entry == null) {
+            return;
+        }
+        totalLength -= entry.length;
+        for (String term : entry.terms) {
+            Postings p = postings.get(term);
+            if (p != null && p.remove(id) && p.size == 0) {
+                postings.remove(term);
+                latinTerms.remove(term);
+            }
+        }
+    }
+
+    private Postings newPostings(String term) {
+        if (!TextTokenizer.isCjk(term.codePointAt(0))) {
+            latinTerms.add(term);
+        }
+        return new Postings();
+    }
+
+    /**
+     * 查询词项的精确倒排表，加上按前缀展开出的倒排表（调用方持有读锁）
+     */
+    private TermGroup expand(String term) {
+        TermGroup group = new TermGroup();
+        Postings exact = postings.get(term);
+        if (exact != null) {
+            group.add(exact, 1f);
+        }
+        if (TextTokenizer.isPrefixTerm(term)) {
+            int expanded = 0;
+            for (String candidate : latinTerms.subSet(term, false, term + Character.MAX_VALUE, false)) {
+                if (expanded++ >= MAX_PREFIX_EXPANSIONS) {
+                    break;
+                }
+                group.add(postings.get(candidate), PREFIX_BOOST);
+            }
+        }
+        return group;
+    }
+
+    /**
+     * 一个查询词项对应的倒排表组
+     */
+    private static final class TermGroup {
+        final List<Postings> lists = new ArrayList<>(1);
+        final List<Float> boosts = new ArrayList<>(1);
+        int totalSize;
+
+        void add(Postings p, float boost) {
+            lists.add(p);
+            boosts.add(boost);
+            totalSize += p.size;
+        }
+
+        int totalSize() {
+            return totalSize;
+        }
+    }
+
+    private record DocEntry(String[] terms, float length) {
+    }
+
+    /**
+     * 倒排表：无序追加，删除时与末尾元素交换
+     */
+    private static final class Postings {
+        long[] ids = new long[4];
+        float[] weights = new float[4];
+        int size;
+
+        void add(long id, float weight) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            ids[size] = id;
+            weights[size] = weight;
+            size++;
+        }
+
+        boolean remove(long id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    size--;
+                    ids[i] = ids[size];
+                    weights[i] = weights[size];
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.uni.research.common.search;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 搜索结果高亮
+ *
+ * 设计思路：
+ * 1. 用与索引相同的 TextTokenizer 切分原文，命中查询词项的区间即为高亮区间；
+ *    与 InvertedIndex 一致，拉丁词项按前缀命中时高亮整个词
+ * 2. CJK bigram 相互重叠（"机器"、"器学"），相邻或重叠的区间合并成一段
+ * 3. 摘要窗口以命中区间最密集的位置为中心，长文本只返回一段片段
+ * 4. 原文做 HTML 转义后再插入 &lt;em&gt; 标签，前端可以直接渲染
+ *
+ * @author wrench1024
+ * @since 2026-10-18
+ */
+public final class TextHighlighter {
+
+    private static final String PRE_TAG = "<em>";
+    private static final String POST_TAG = "</em>";
+    private static final String ELLIPSIS = "…";
+
+    private TextHighlighter() {
+    }
+
+    /**
+     * 生成高亮片段
+     *
+     * @param text      原文
+     * @param query     查询文本
+     * @param maxLength 片段最大字符数（不含标签）
+     * @return 转义并插入 &lt;em&gt; 标签的片段；原文为空时返回空串
+     */
+    public static String highlight(String text, String query, int maxLength) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        Set<String> terms = new HashSet<>(TextTokenizer.tokenizeQuery(query));
+        List<String> prefixes = terms.stream().filter(TextTokenizer::isPrefixTerm).toList();
+        List<int[]> spans = new ArrayList<>();
+        if (!terms.isEmpty()) {
+            TextTokenizer.scan(text, (term, start, end) -> {
+                if (!terms.contains(term) && prefixes.stream().noneMatch(term::startsWith)) {
+                    return;
+                }
+                int[] last = spans.isEmpty() ? null : spans.get(spans.size() - 1);
+                if (last != null && start <= last[1]) {
+                    last[1] = Math.max(last[1], end);
+                } else {
+                    spans.add(new int[] { start, end });
+                }
+            });
+        }
+
+        int[] window = window(text, spans, maxLength);
+        StringBuilder out = new StringBuilder(window[1] - window[0] + 16);
+        if (window[0] > 0) {
+            out.append(ELLIPSIS);
+        }
+        int pos = window[0];
+        for (int[] span : spans) {
+            if (span[1] <= window[0]) {
+                continue;
+            }
+            if (span[0] >= window[1]) {
+                break;
+            }
+            int start = Math.max(span[0], window[0]);
+            int end = Math.min(span[1], window[1]);
+            escape(text, pos, start, out);
+            out.append(PRE_TAG);
+            escape(text, start, end, out);
+            out.append(POST_TAG);
+            pos = end;
+        }
+        escape(text, pos, window[1], out);
+        if (window[1] < text.length()) {
+            out.append(ELLIPSIS);
+        }
+        return out.toString();
+    }
+
+    /**
+     * 选择包含最多高亮区间的窗口（双指针滑动），窗口前留出少量上下文
+     */
+    private static int[] window(String text, List<int[]> spans, int maxLength) {
+        int length = text.length();
+        if (length <= maxLength) {
+            return new int[] { 0, length };
+        }
+        int bestStart = 0;
+        int bestCount = 0;
+        int left = 0;
+        for (int right = 0; right < spans.size(); right++) {
+            // 单个区间本身超过 maxLength 时 left 停在 right，窗口从该区间开头截取
+            while (left < right && spans.get(right)[1] - spans.get(left)[0] > maxLength) {
+                left++;
+            }
+            if (right - left + 1 > bestCount) {
+                bestCount = right - left + 1;
+                bestStart = spans.get(left)[0];
+            }
+        }
+        int start = Math.max(0, Math.min(bestStart - maxLength / 5, length - maxLength));
+        int end = start + maxLength;
+        // 不把代理对切成两半
+        if (start > 0 && Character.isLowSurrogate(text.charAt(start))) {
+            start++;
+        }
+        if (end < length && Character.isLowSurrogate(text.charAt(end))) {
+            end--;
+        }
+        return new int[] { start, end };
+    }
+
+    private static void escape(String text, int from, int to, StringBuilder out) {
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '&' -> out.append("&amp;");
+                case '"' -> out.append("&quot;");
+                default -> out.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.uni.research.common.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 中英文混合分词器
+ * 
+ * 对应 408 考点：数据结构 - 串（模式匹配）
+ * 
+ * 设计思路：
+ * 1. 拉丁字母 / 数字按连续片段切成单词并转小写（"Transformer" -> "transformer"）
+ * 2. 中日韩文字没有空格分词，使用二元切分（bigram）："机器学习" -> "机器"、"器学"、"学习"
+ * 3. 索引时每个 CJK 字符同时作为单字词项写入，单字查询（"猫"）也能命中 "我的猫"
+ * 4. 查询时多字片段只用 bigram（查询词的所有 bigram 都命中即近似于子串匹配），单字片段用单字
+ * 5. 拉丁词项长度不少于 PREFIX_MIN_LENGTH 时，查询按前缀展开（"transform" 命中 "transformer"），
+ *    由 InvertedIndex 负责展开
+ * 6. scan 同时给出词项在原文中的位置，供搜索结果高亮使用
+ * 
+ * 不依赖词典，对论文标题、作者名、期刊名这类短文本足够且没有额外内存开销。
+ * 
+ * @author wrench1024
+ * @since 2026-10-18
+ */
+public final class TextTokenizer {
+
+    /**
+     * 拉丁词项按前缀展开的最短长度，更短的词项只做精确匹配
+     */
+    public static final int PREFIX_MIN_LENGTH = 3;
+
+    private TextTokenizer() {
+    }
+
+    /**
+     * 词项回调：词项文本及其在原文中的 [start, end) 区间
+     */
+    @FunctionalInterface
+    public interface TokenSink {
+        void accept(String term, int start, int end);
+    }
+
+    /**
+     * 按索引规则切分文本，返回的词项可能重复（用于统计词频）
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        scan(text, (term, start, end) -> tokens.add(term));
+        return tokens;
+    }
+
+    /**
+     * 按查询规则切分文本：多字 CJK 片段不产生单字词项
+     */
+    public static List<String> tokenizeQuery(String text) {
+        List<String> tokens = new ArrayList<>();
+        scan(text, false, (term, start, end) -> tokens.add(term));
+        return tokens;
+    }
+
+    /**
+     * 按索引规则切分文本并回调每个词项的位置（用于高亮），词项按起始位置升序
+     */
+    public static void scan(String text, TokenSink sink) {
+        scan(text, true, sink);
+    }
+
+    /**
+     * 查询词项是否按前缀展开：非 CJK 且长度不少于 PREFIX_MIN_LENGTH
+     */
+    public static boolean isPrefixTerm(String term) {
+        return term.length() >= PREFIX_MIN_LENGTH && !isCjk(term.codePointAt(0));
+    }
+
+    private static void scan(String text, boolean unigrams, TokenSink sink) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            int cp = text.codePointAt(i);
+            if (isCjk(cp)) {
+                int start = i;
+                while (i < length && isCjk(text.codePointAt(i))) {
+                    i += Character.charCount(text.codePointAt(i));
+                }
+                scanCjk(text, start, i, unigrams, sink);
+            } else if (Character.isLetterOrDigit(cp)) {
+                int start = i;
+                while (i < length) {
+                    int c = text.codePointAt(i);
+                    if (!Character.isLetterOrDigit(c) || isCjk(c)) {
+                        break;
+                    }
+                    i += Character.charCount(c);
+                }
+                sink.accept(text.substring(start, i).toLowerCase(), start, i);
+            } else {
+                i += Character.charCount(cp);
+            }
+        }
+    }
+
+    /**
+     * CJK 片段：单字片段只产生单字；多字片段产生 bigram，索引时每个位置先给出单字再给出 bigram
+     */
+    private static void scanCjk(String text, int start, int end, boolean unigrams, TokenSink sink) {
+        int second = text.offsetByCodePoints(start, 1);
+        if (second >= end) {
+            sink.accept(text.substring(start, end), start, end);
+            return;
+        }
+        int first = start;
+        while (first < end) {
+            if (unigrams) {
+                sink.accept(text.substring(first, second), first, second);
+            }
+            if (second >= end) {
+                break;
+            }
+            int next = text.offsetByCodePoints(second, 1);
+            sink.accept(text.substring(first, next), first, next);
+            first = second;
+            second = next;
+        }
+    }
+
+    static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
@@ -0,0 +1,165 @@
+package com.uni.research.common.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Source;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+
+/**
+ * Streamed Ingestion Transport
+ * 
+ * Java 与 Python 不共享文件系统时，把文档字节通过 multipart 直接流式发送到 /api/v1/ingest：
+ * 1. 数据源优先用本地 spool 文件，不存在时按对象名从 MinIO 读取
+ * 2. 请求体边读边写（固定 64KB 分段，MinIO 源长度未知时使用 chunked 编码），内存占用与文件大小无关
+ * 3. 请求体是一次性的（isOneShot），连接失败时不会被 OkHttp 重放
+ * 
+ * 指标：ingest.stream.bytes（累计字节）、ingest.stream.throughput（每次上传的 bytes/s）
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IngestStreamClient {
+
+    private static final long SEGMENT_SIZE = 64 * 1024;
+    private static final MediaType OCTET_STREAM = MediaType.get("application/octet-stream");
+
+    private final MinioService minioService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${ai-service.base-url:http://localhost:8000}")
+    private String aiServiceBaseUrl;
+
+    // 索引包含解析与向量化，响应可能需要数分钟
+    private final OkHttpClient client = new OkHttpClient.Builder()
+            .connectTimeout(Duration.ofSeconds(60))
+            .writeTimeout(Duration.ofMinutes(2))
+            .readTimeout(Duration.ofMinutes(10))
+            .build();
+
+    private Counter bytesCounter;
+    private DistributionSummary throughput;
+
+    @PostConstruct
+    public void init() {
+        bytesCounter = Counter.builder("ingest.stream.bytes")
+                .description("Document bytes streamed to the AI service")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        throughput = DistributionSummary.builder("ingest.stream.throughput")
+                .description("Upload throughput of streamed ingestion")
+                .baseUnit("bytes/s")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 流式提交一个文档进行索引（同步）
+     *
+     * @param filePath   本地 spool 文件，可为 null
+     * @param objectName MinIO 对象名，spool 文件不存在时使用
+     * @return AI 服务是否索引成功
+     */
+    public boolean ingest(String filePath, String objectName, String docId, String callbackUrl, String callbackToken)
+            throws IOException {
+        Path localFile = filePath != null ? Paths.get(filePath) : null;
+        boolean fromSpool = localFile != null && Files.isRegularFile(localFile);
+        if (!fromSpool && !StringUtils.hasText(objectName)) {
+            throw new IOException("No source to stream for doc " + docId);
+        }
+        String fileName = fromSpool ? localFile.getFileName().toString() : objectName;
+        long length = fromSpool ? Files.size(localFile) : -1;
+
+        try (InputStream in = fromSpool ? Files.newInputStream(localFile) : minioService.getDecodedFile(objectName)) {
+            StreamBody body = new StreamBody(in, length);
+            MultipartBody.Builder multipart = new MultipartBody.Builder()
+                    .setType(MultipartBody.FORM)
+                    .addFormDataPart("file", fileName, body);
+            if (StringUtils.hasText(callbackUrl)) {
+                multipart.addFormDataPart("callback_url", callbackUrl);
+                multipart.addFormDataPart("callback_token", callbackToken);
+            }
+            HttpUrl url = HttpUrl.get(aiServiceBaseUrl + "/api/v1/ingest").newBuilder()
+                    .addQueryParameter("doc_id", docId)
+                    .build();
+            Request request = new Request.Builder().url(url).post(multipart.build()).build();
+
+            long start = System.nanoTime();
+            try (Response response = client.newCall(request).execute()) {
+                // 响应在索引完成后才返回，吞吐量只统计请求体发送阶段
+                double seconds = Math.max(body.elapsedNanos, 1) / 1_000_000_000.0;
+                long bytesPerSecond = Math.round(body.written / seconds);
+                bytesCounter.increment(body.written);
+                throughput.record(bytesPerSecond);
+                log.info("流式索引提交: docId={}, source={}, bytes={}, throughput={} bytes/s, total={}ms, status={}",
+                        docId, fromSpool ? "spool" : "minio", body.written, bytesPerSecond,
+                        (System.nanoTime() - start) / 1_000_000, response.code());
+                if (!response.isSuccessful()) {
+                    log.warn("流式索引失败: docId={}, status={}", docId, response.code());
+                    return false;
+                }
+                return true;
+            }
+        }
+    }
+
+    private static final class StreamBody extends RequestBody {
+        private final InputStream in;
+        private final long length;
+        private long written;
+        private long elapsedNanos;
+
+        StreamBody(InputStream in, long length) {
+            this.in = in;
+            this.length = length;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return OCTET_STREAM;
+        }
+
+        @Override
+        public long contentLength() {
+            return length;
+        }
+
+        @Override
+        public boolean isOneShot() {
+            return true;
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            long start = System.nanoTime();
+            Source source = Okio.source(in);
+            long read;
+            while ((read = source.read(sink.getBuffer(), SEGMENT_SIZE)) != -1) {
+                written += read;
+                sink.emit();
+            }
+            sink.flush();
+            elapsedNanos = System.nanoTime() - start;
+        }
+    }
+}
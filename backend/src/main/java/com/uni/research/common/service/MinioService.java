@@ -3,10 +3,19 @@ package com.uni.research.common.service;
 import com.uni.research.common.config.MinioConfig;
 import com.uni.research.common.exception.BizException;
 import io.minio.GetObjectArgs;
+import io.minio.GetObjectResponse;
 import io.minio.MinioClient;
 import io.minio.PutObjectArgs;
 import io.minio.RemoveObjectArgs;
+import io.minio.RemoveObjectsArgs;
+import io.minio.Result;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
+import io.minio.messages.Item;
 import io.minio.BucketExistsArgs;
+import io.minio.ComposeObjectArgs;
+import io.minio.ComposeSource;
+import io.minio.ListObjectsArgs;
 import io.minio.MakeBucketArgs;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -15,6 +24,13 @@ import org.springframework.web.multipart.MultipartFile;
 import org.springframework.util.StringUtils;
 
 import java.io.InputStream;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import jakarta.annotation.PostConstruct;
 
 @Slf4j
@@ -22,6 +38,9 @@ import jakarta.annotation.PostConstruct;
 @RequiredArgsConstructor
 public class MinioService {
 
+    private static final long ENCODED_PART_SIZE = 5L * 1024 * 1024;
+    private static final String CODEC_HEADER = "x-amz-meta-" + StorageCodec.METADATA_KEY;
+
     private final MinioClient minioClient;
     private final MinioConfig minioConfig;
 
@@ -53,15 +72,28 @@ public class MinioService {
      * @return File path in MinIO
      */
     public String uploadFile(MultipartFile file, String fileName) {
-        try (InputStream inputStream = file.getInputStream()) {
-            PutObjectArgs args = PutObjectArgs.builder()
+        return uploadFile(file, fileName, StorageCodec.NONE);
+    }
+
+    /**
+     * Upload file to MinIO, encoding it with the given codec
+     * 
+     * 压缩后长度未知，按 5MB 分片流式上传；编码写入对象元数据，读取时据此解码
+     */
+    public String uploadFile(MultipartFile file, String fileName, StorageCodec codec) {
+        try (InputStream inputStream = codec.encode(file.getInputStream())) {
+            PutObjectArgs.Builder args = PutObjectArgs.builder()
                     .bucket(minioConfig.getBucketName())
                     .object(fileName)
-                    .stream(inputStream, file.getSize(), -1)
-                    .contentType(file.getContentType())
-                    .build();
+                    .contentType(file.getContentType());
+            if (codec == StorageCodec.NONE) {
+                args.stream(inputStream, file.getSize(), -1);
+            } else {
+                args.stream(inputStream, -1, ENCODED_PART_SIZE)
+                        .userMetadata(Map.of(StorageCodec.METADATA_KEY, codec.getValue()));
+            }
 
-            minioClient.putObject(args);
+            minioClient.putObject(args.build());
             return fileName;
         } catch (Exception e) {
             log.error("Failed to upload file to MinIO", e);
@@ -69,6 +101,73 @@ public class MinioService {
         }
     }
 
+    /**
+     * Upload a stream of known length (e.g. one part of a chunked upload)
+     */
+    public void uploadStream(String objectName, InputStream inputStream, long size, String contentType) {
+        try {
+            minioClient.putObject(PutObjectArgs.builder()
+                    .bucket(minioConfig.getBucketName())
+                    .object(objectName)
+                    .stream(inputStream, size, -1)
+                    .contentType(contentType)
+                    .build());
+        } catch (Exception e) {
+            log.error("Failed to upload stream to MinIO: {}", objectName, e);
+            throw new BizException("File upload failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Concatenate source objects into one object on the server side
+     * 
+     * MinIO 通过 multipart upload-part-copy 完成拼接，数据不经过应用；
+     * 除最后一个外每个源对象至少 5MB
+     */
+    public void composeObject(String objectName, List<String> sourceObjects, String contentType) {
+        List<ComposeSource> sources = new ArrayList<>(sourceObjects.size());
+        for (String source : sourceObjects) {
+            sources.add(ComposeSource.builder().bucket(minioConfig.getBucketName()).object(source).build());
+        }
+        ComposeObjectArgs.Builder args = ComposeObjectArgs.builder()
+                .bucket(minioConfig.getBucketName())
+                .object(objectName)
+                .sources(sources);
+        if (StringUtils.hasText(contentType)) {
+            args.headers(Map.of("Content-Type", contentType));
+        }
+        try {
+            minioClient.composeObject(args.build());
+        } catch (Exception e) {
+            log.error("Failed to compose object in MinIO: {}", objectName, e);
+            throw new BizException("File merge failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * List objects under a prefix last modified before the given time
+     */
+    public List<String> listObjectsOlderThan(String prefix, ZonedDateTime before) {
+        List<String> names = new ArrayList<>();
+        try {
+            Iterable<Result<Item>> results = minioClient.listObjects(ListObjectsArgs.builder()
+                    .bucket(minioConfig.getBucketName())
+                    .prefix(prefix)
+                    .recursive(true)
+                    .build());
+            for (Result<Item> result : results) {
+                Item item = result.get();
+                if (!item.isDir() && item.lastModified().isBefore(before)) {
+                    names.add(item.objectName());
+                }
+            }
+        } catch (Exception e) {
+            log.error("Failed to list objects in MinIO: prefix={}", prefix, e);
+            throw new BizException("File listing failed: " + e.getMessage());
+        }
+        return names;
+    }
+
     /**
      * Get file stream from MinIO
      */
@@ -85,6 +184,17 @@ public class MinioService {
         }
     }
 
+    /**
+     * Get file stream from MinIO, decoded to the original bytes
+     * 
+     * 按对象元数据中的编码解码，未压缩的对象原样返回
+     */
+    public InputStream getDecodedFile(String fileName) {
+        GetObjectResponse response = (GetObjectResponse) getFile(fileName);
+        String codec = response.headers().get(CODEC_HEADER);
+        return StorageCodec.of(codec).decode(response);
+    }
+
     /**
      * Remove file from MinIO
      */
@@ -100,4 +210,39 @@ public class MinioService {
             throw new BizException("File deletion failed: " + e.getMessage());
         }
     }
+
+    /**
+     * Remove files from MinIO in one multi-object delete request
+     * 
+     * 不存在的对象按 S3 语义视为删除成功，重复清理是幂等的
+     *
+     * @return Object names that failed to delete
+     */
+    public Set<String> removeFiles(Collection<String> fileNames) {
+        Set<String> failed = new HashSet<>();
+        if (fileNames.isEmpty()) {
+            return failed;
+        }
+        List<DeleteObject> objects = new ArrayList<>(fileNames.size());
+        for (String fileName : fileNames) {
+            objects.add(new DeleteObject(fileName));
+        }
+        try {
+            // removeObjects 是惰性的，必须遍历结果才会真正发出请求
+            Iterable<Result<DeleteError>> results = minioClient.removeObjects(
+                    RemoveObjectsArgs.builder()
+                            .bucket(minioConfig.getBucketName())
+                            .objects(objects)
+                            .build());
+            for (Result<DeleteError> result : results) {
+                DeleteError error = result.get();
+                log.warn("Failed to remove object {}: {}", error.objectName(), error.message());
+                failed.add(error.objectName());
+            }
+        } catch (Exception e) {
+            log.error("Failed to remove files from MinIO", e);
+            throw new BizException("File deletion failed: " + e.getMessage());
+        }
+        return failed;
+    }
 }
@@ -6,10 +6,17 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * RAG Service Client
@@ -21,32 +28,143 @@ import java.util.Map;
 public class RagService {
 
     private final RestTemplate restTemplate;
+    private final SpoolService spoolService;
+    private final IngestStreamClient ingestStreamClient;
+
+    private static final String TRANSPORT_AUTO = "auto";
+    private static final String TRANSPORT_STREAM = "stream";
+
+    /**
+     * auto 模式下探测到 AI 服务看不到本地路径的时间（毫秒），0 表示路径传输可用
+     */
+    private final AtomicLong pathUnavailableSince = new AtomicLong();
 
     @Value("${ai-service.base-url:http://localhost:8000}")
     private String aiServiceBaseUrl;
 
+    /**
+     * AI 服务回报索引进度的地址，为空时不回调
+     */
+    @Value("${ai-service.callback-url:}")
+    private String callbackUrl;
+
+    @Value("${ai-service.callback-token:}")
+    private String callbackToken;
+
+    /**
+     * auto / path / stream
+     */
+    @Value("${ai-service.ingest-transport:auto}")
+    private String ingestTransport;
+
+    /**
+     * auto 模式下切换为流式后，经过这段时间重新尝试路径传输（AI 服务可能已挂载共享目录）
+     */
+    @Value("${ai-service.path-retry-ms:600000}")
+    private long pathRetryMs;
+
     /**
      * 异步触发文档索引
      * 在文档上传后调用，将文档内容向量化存储到 pgvector
+     * 
+     * 传输方式（ai-service.ingest-transport）：
+     * - path：传本地路径，要求与 AI 服务共享文件系统
+     * - stream：通过 IngestStreamClient 流式发送文件内容
+     * - auto：先按路径提交，AI 服务返回 404 时改为流式；只有本地文件确实存在（AI 服务看不到共享目录）
+     *   或接口本身不存在（404 / 405）时才记住结果，后续直接流式，path-retry-ms 后重新探测。
+     *   本地文件已被 TTL 清理导致的 404 只影响这一个文档
      *
-     * @param filePath 文档在 MinIO 中的路径（或本地临时路径）
-     * @param docId    文档唯一标识
+     * @param filePath   文档的本地 spool 路径，索引成功后删除；可为 null（只能流式）
+     * @param objectName MinIO 对象名，流式传输且 spool 文件不存在时使用
+     * @param docId      文档唯一标识
      */
     @Async
-    public void triggerDocumentIngestion(String filePath, String docId) {
-        log.info("触发文档索引: docId={}, filePath={}", docId, filePath);
+    public void triggerDocumentIngestion(String filePath, String objectName, String docId) {
+        log.info("触发文档索引: docId={}, filePath={}, objectName={}", docId, filePath, objectName);
 
         try {
-            String url = aiServiceBaseUrl + "/api/v1/ingest/path";
+            boolean success;
+            if (usePath(filePath)) {
+                try {
+                    success = ingestByPath(filePath, docId);
+                } catch (HttpClientErrorException.NotFound | HttpClientErrorException.MethodNotAllowed e) {
+                    if (!TRANSPORT_AUTO.equalsIgnoreCase(ingestTransport)) {
+                        throw e;
+                    }
+                    if (isEndpointMissing(e) || Files.exists(Path.of(filePath))) {
+                        markPathUnavailable();
+                    }
+                    success = ingestStreamClient.ingest(filePath, objectName, docId, callbackUrl, callbackToken);
+                }
+            } else {
+                success = ingestStreamClient.ingest(filePath, objectName, docId, callbackUrl, callbackToken);
+            }
+            if (success) {
+                spoolService.release(filePath);
+            }
+        } catch (Exception e) {
+            log.error("文档索引异常: docId={}, error={}", docId, e.getMessage(), e);
+            // 异步操作，不抛出异常，只记录日志
+        }
+    }
+
+    private boolean ingestByPath(String filePath, String docId) {
+        String url = aiServiceBaseUrl + "/api/v1/ingest/path";
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+
+        Map<String, String> requestBody = new HashMap<>();
+        requestBody.put("file_path", filePath);
+        requestBody.put("doc_id", docId);
+        addCallback(requestBody);
+
+        HttpEntity<Map<String, String>> request = new HttpEntity<>(requestBody, headers);
+
+        ResponseEntity<Map> response = restTemplate.exchange(
+                url,
+                HttpMethod.POST,
+                request,
+                Map.class);
+
+        if (response.getStatusCode().is2xxSuccessful()) {
+            log.info("文档索引成功: docId={}, response={}", docId, response.getBody());
+            return true;
+        }
+        log.warn("文档索引失败: docId={}, status={}", docId, response.getStatusCode());
+        return false;
+    }
+
+    /**
+     * 异步触发批量文档索引
+     * 批量上传时使用，一次 HTTP 调用提交一批文档，由 Python 服务逐个处理；
+     * 流式模式下逐个流式提交
+     *
+     * @param items 每项包含 file_path、object_name 和 doc_id
+     */
+    @Async
+    public void triggerBatchIngestion(List<Map<String, String>> items) {
+        if (items == null || items.isEmpty()) {
+            return;
+        }
+        log.info("触发批量文档索引: count={}", items.size());
+
+        if (!pathTransportEnabled()) {
+            items.forEach(this::ingestStreamed);
+            return;
+        }
+
+        try {
+            String url = aiServiceBaseUrl + "/api/v1/ingest/batch";
 
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_JSON);
 
-            Map<String, String> requestBody = new HashMap<>();
-            requestBody.put("file_path", filePath);
-            requestBody.put("doc_id", docId);
+            items.forEach(this::addCallback);
+            Map<String, Object> requestBody = new HashMap<>();
+            requestBody.put("items", items);
 
-            HttpEntity<Map<String, String>> request = new HttpEntity<>(requestBody, headers);
+            HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
 
             ResponseEntity<Map> response = restTemplate.exchange(
                     url,
@@ -55,16 +173,114 @@ public class RagService {
                     Map.class);
 
             if (response.getStatusCode().is2xxSuccessful()) {
-                log.info("文档索引成功: docId={}, response={}", docId, response.getBody());
+                log.info("批量文档索引完成: count={}, response={}", items.size(), response.getBody());
+                List<Map<String, String>> notFound = handleBatchResults(items, response.getBody());
+                if (!notFound.isEmpty() && TRANSPORT_AUTO.equalsIgnoreCase(ingestTransport)) {
+                    // 只有本地文件还在、AI 服务却找不到时才说明没有共享目录
+                    if (notFound.stream().anyMatch(item -> item.get("file_path") != null
+                            && Files.exists(Path.of(item.get("file_path"))))) {
+                        markPathUnavailable();
+                    }
+                    notFound.forEach(this::ingestStreamed);
+                }
             } else {
-                log.warn("文档索引失败: docId={}, status={}", docId, response.getStatusCode());
+                log.warn("批量文档索引失败: count={}, status={}", items.size(), response.getStatusCode());
             }
         } catch (Exception e) {
-            log.error("文档索引异常: docId={}, error={}", docId, e.getMessage(), e);
+            log.error("批量文档索引异常: count={}, error={}", items.size(), e.getMessage(), e);
             // 异步操作，不抛出异常，只记录日志
         }
     }
 
+    private void ingestStreamed(Map<String, String> item) {
+        String docId = item.get("doc_id");
+        try {
+            if (ingestStreamClient.ingest(item.get("file_path"), item.get("object_name"), docId,
+                    callbackUrl, callbackToken)) {
+                spoolService.release(item.get("file_path"));
+            }
+        } catch (Exception e) {
+            log.error("流式索引异常: docId={}, error={}", docId, e.getMessage());
+        }
+    }
+
+    private boolean usePath(String filePath) {
+        return filePath != null && pathTransportEnabled();
+    }
+
+    private boolean pathTransportEnabled() {
+        if (TRANSPORT_STREAM.equalsIgnoreCase(ingestTransport)) {
+            return false;
+        }
+        if (!TRANSPORT_AUTO.equalsIgnoreCase(ingestTransport)) {
+            return true;
+        }
+        long since = pathUnavailableSince.get();
+        if (since == 0) {
+            return true;
+        }
+        if (System.currentTimeMillis() - since >= pathRetryMs && pathUnavailableSince.compareAndSet(since, 0)) {
+            log.info("重新尝试按路径提交索引");
+            return true;
+        }
+        return false;
+    }
+
+    private void markPathUnavailable() {
+        if (pathUnavailableSince.compareAndSet(0, System.currentTimeMillis())) {
+            log.warn("AI 服务无法访问本地 spool 路径（未共享文件系统），{} 秒内索引改为流式传输", pathRetryMs / 1000);
+        }
+    }
+
+    /**
+     * 405 或 FastAPI 默认的 {"detail":"Not Found"}：AI 服务没有路径接口（而不是找不到某个文件）
+     */
+    private static boolean isEndpointMissing(HttpClientErrorException e) {
+        if (e instanceof HttpClientErrorException.MethodNotAllowed) {
+            return true;
+        }
+        String body = e.getResponseBodyAsString();
+        return body.isEmpty() || body.contains("\"detail\":\"Not Found\"");
+    }
+
+    private void addCallback(Map<String, String> item) {
+        if (StringUtils.hasText(callbackUrl)) {
+            item.put("callback_url", callbackUrl);
+            item.put("callback_token", callbackToken);
+        }
+    }
+
+    /**
+     * 删除批量索引中成功项的 spool 文件；失败项保留到 TTL 清理
+     *
+     * @return AI 服务找不到文件的项（未共享文件系统）
+     */
+    private List<Map<String, String>> handleBatchResults(List<Map<String, String>> items, Map<?, ?> body) {
+        List<Map<String, String>> notFound = new ArrayList<>();
+        if (body == null || !(body.get("results") instanceof List<?> results)) {
+            return notFound;
+        }
+        Map<String, Map<String, String>> itemByDocId = new HashMap<>();
+        for (Map<String, String> item : items) {
+            itemByDocId.put(item.get("doc_id"), item);
+        }
+        for (Object result : results) {
+            if (!(result instanceof Map<?, ?> entry)) {
+                continue;
+            }
+            Map<String, String> item = itemByDocId.get(String.valueOf(entry.get("doc_id")));
+            if (item == null) {
+                continue;
+            }
+            if ("success".equals(entry.get("status"))) {
+                spoolService.release(item.get("file_path"));
+            } else if ("not_found".equals(entry.get("status"))) {
+                notFound.add(item);
+            }
+        }
+        return notFound;
+    }
+
     /**
      * 检查 RAG 服务是否可用
      */
@@ -112,4 +328,32 @@ public class RagService {
             // 异步操作，不抛出异常，只记录日志
         }
     }
+
+    /**
+     * 批量删除文档向量（后台清理使用，同步调用）
+     *
+     * @return 是否删除成功；失败时由调用方稍后重试
+     */
+    public boolean deleteDocumentVectors(List<String> docIds) {
+        if (docIds.isEmpty()) {
+            return true;
+        }
+        try {
+            String url = aiServiceBaseUrl + "/api/v1/vectors/delete";
+
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            HttpEntity<Map<String, Object>> request = new HttpEntity<>(Map.of("doc_ids", docIds), headers);
+
+            ResponseEntity<Map> response = restTemplate.exchange(url, HttpMethod.POST, request, Map.class);
+            if (response.getStatusCode().is2xxSuccessful()) {
+                log.info("批量删除向量成功: count={}, response={}", docIds.size(), response.getBody());
+                return true;
+            }
+            log.warn("批量删除向量失败: count={}, status={}", docIds.size(), response.getStatusCode());
+        } catch (Exception e) {
+            log.error("批量删除向量异常: count={}, error={}", docIds.size(), e.getMessage());
+        }
+        return false;
+    }
 }
@@ -0,0 +1,196 @@
+package com.uni.research.common.service;
+
+import cn.hutool.core.util.IdUtil;
+import com.uni.research.common.exception.BizException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ingestion Spool
+ * 
+ * 上传的文档在交给 AI 服务索引前先写入本地 spool 目录（AI 服务按路径读取）：
+ * 1. 目录可配置，占用受字节配额限制；配额不足时拒绝上传（背压），而不是写满磁盘
+ * 2. 索引成功后立即删除；失败或结果丢失的文件由 TTL 清理兜底
+ * 3. 启动时扫描目录：超过 TTL 的孤儿文件直接删除，其余计入配额，之后交给 TTL 清理
+ * 
+ * 指标：spool.used.bytes / spool.files / spool.rejected
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SpoolService {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${doc.spool.dir:${java.io.tmpdir}/uni-research-spool}")
+    private String spoolDir;
+
+    @Value("${doc.spool.max-bytes:2147483648}")
+    private long maxBytes;
+
+    @Value("${doc.spool.ttl-hours:24}")
+    private long ttlHours;
+
+    private Path root;
+
+    /**
+     * 当前 spool 中的文件及其大小（含已预留、正在写入的文件）
+     */
+    private final Map<Path, Long> entries = new ConcurrentHashMap<>();
+    private final AtomicLong usedBytes = new AtomicLong();
+    private Counter rejectedCounter;
+
+    @PostConstruct
+    public void init() throws IOException {
+        root = Paths.get(spoolDir).toAbsolutePath().normalize();
+        Files.createDirectories(root);
+
+        Gauge.builder("spool.used.bytes", usedBytes, AtomicLong::get)
+                .description("Bytes held in the ingestion spool")
+                .register(meterRegistry);
+        Gauge.builder("spool.files", entries, Map::size)
+                .description("Files held in the ingestion spool")
+                .register(meterRegistry);
+        rejectedCounter = Counter.builder("spool.rejected")
+                .description("Uploads rejected because the ingestion spool quota was exhausted")
+                .register(meterRegistry);
+
+        recoverOrphans();
+    }
+
+    /**
+     * 把上传内容写入 spool
+     *
+     * @param size   预估大小（MultipartFile.getSize()），用于预留配额
+     * @param suffix 文件扩展名，AI 服务据此选择解析器
+     * @return spool 文件路径
+     * @throws BizException 配额不足
+     */
+    public Path spool(InputStream in, long size, String suffix) throws IOException {
+        reserve(size);
+        Path file = root.resolve(IdUtil.simpleUUID() + "." + suffix);
+        entries.put(file, size);
+        try {
+            long written = Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+            if (written != size) {
+                // 以实际写入字节为准修正预留量
+                entries.put(file, written);
+                usedBytes.addAndGet(written - size);
+            }
+            return file;
+        } catch (IOException | RuntimeException e) {
+            release(file);
+            throw e;
+        }
+    }
+
+    /**
+     * 删除 spool 文件并归还配额；路径不在 spool 目录下时忽略
+     */
+    public void release(Path file) {
+        if (file == null) {
+            return;
+        }
+        Path normalized = file.toAbsolutePath().normalize();
+        Long size = entries.remove(normalized);
+        if (size != null) {
+            usedBytes.addAndGet(-size);
+        }
+        if (normalized.startsWith(root)) {
+            try {
+                Files.deleteIfExists(normalized);
+            } catch (IOException e) {
+                log.warn("删除 spool 文件失败: file={}, error={}", normalized, e.getMessage());
+            }
+        }
+    }
+
+    public void release(String file) {
+        if (file != null) {
+            release(Paths.get(file));
+        }
+    }
+
+    /**
+     * TTL 兜底清理：索引失败、AI 服务未返回结果的文件不会一直占用空间
+     */
+    @Scheduled(fixedDelayString = "${doc.spool.sweep-interval-ms:600000}", initialDelayString = "${doc.spool.sweep-interval-ms:600000}")
+    public void sweep() {
+        Instant expireBefore = Instant.now().minus(Duration.ofHours(ttlHours));
+        int removed = 0;
+        for (Path file : entries.keySet()) {
+            try {
+                if (Files.notExists(file) || Files.getLastModifiedTime(file).toInstant().isBefore(expireBefore)) {
+                    release(file);
+                    removed++;
+                }
+            } catch (IOException e) {
+                log.warn("检查 spool 文件失败: file={}, error={}", file, e.getMessage());
+            }
+        }
+        if (removed > 0) {
+            log.info("spool 过期文件已清理: removed={}, usedBytes={}", removed, usedBytes.get());
+        }
+    }
+
+    private void reserve(long size) {
+        while (true) {
+            long used = usedBytes.get();
+            if (used + size > maxBytes) {
+                rejectedCounter.increment();
+                log.warn("spool 配额不足，拒绝上传: used={}, request={}, max={}", used, size, maxBytes);
+                throw new BizException("Document indexing is busy, please retry later");
+            }
+            if (usedBytes.compareAndSet(used, used + size)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 启动时处理上次运行遗留的文件
+     */
+    private void recoverOrphans() throws IOException {
+        Instant expireBefore = Instant.now().minus(Duration.ofHours(ttlHours));
+        int deleted = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(root)) {
+            for (Path file : stream) {
+                BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+                if (!attrs.isRegularFile()) {
+                    continue;
+                }
+                if (attrs.lastModifiedTime().toInstant().isBefore(expireBefore)) {
+                    Files.deleteIfExists(file);
+                    deleted++;
+                } else {
+                    Path normalized = file.toAbsolutePath().normalize();
+                    entries.put(normalized, attrs.size());
+                    usedBytes.addAndGet(attrs.size());
+                }
+            }
+        }
+        log.info("spool 目录已恢复: dir={}, deletedOrphans={}, retained={}, usedBytes={}",
+                root, deleted, entries.size(), usedBytes.get());
+    }
+}
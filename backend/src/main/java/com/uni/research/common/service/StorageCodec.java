@@ -0,0 +1,69 @@
+package com.uni.research.common.service;
+
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.DeflaterInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Object Storage Codec
+ * 
+ * 文本类文档在写入 MinIO 时压缩，读取时边读边解压：
+ * - DEFLATE 使用 zlib 格式（Deflater 默认），与 HTTP "Content-Encoding: deflate" 一致，
+ *   客户端支持时可以把存储的字节原样透传
+ * - 编码记录在文档的 storage_codec 列和对象的用户元数据（x-amz-meta-codec）中
+ * 
+ * 只用 JDK 自带的 Deflater，不引入 zstd 等原生依赖
+ */
+public enum StorageCodec {
+
+    NONE(null),
+    DEFLATE("deflate");
+
+    /**
+     * 可压缩的文本类型；PDF、Office 等本身已压缩，不再处理
+     */
+    private static final Set<String> COMPRESSIBLE_TYPES = Set.of(
+            "txt", "text", "md", "markdown", "csv", "tsv", "json", "xml", "html", "htm", "tex", "bib", "ris", "log");
+
+    public static final String METADATA_KEY = "codec";
+
+    private final String value;
+
+    StorageCodec(String value) {
+        this.value = value;
+    }
+
+    /**
+     * 存入 storage_codec 列 / 对象元数据的值，NONE 为 null
+     */
+    public String getValue() {
+        return value;
+    }
+
+    public static StorageCodec of(String value) {
+        return DEFLATE.value.equalsIgnoreCase(value) ? DEFLATE : NONE;
+    }
+
+    /**
+     * 按文件扩展名选择上传时使用的编码
+     */
+    public static StorageCodec forFileType(String fileType) {
+        return fileType != null && COMPRESSIBLE_TYPES.contains(fileType.toLowerCase(Locale.ROOT)) ? DEFLATE : NONE;
+    }
+
+    /**
+     * 包装原始内容，读出的是存储格式
+     */
+    public InputStream encode(InputStream raw) {
+        return this == DEFLATE ? new DeflaterInputStream(raw) : raw;
+    }
+
+    /**
+     * 包装存储内容，读出的是原始字节
+     */
+    public InputStream decode(InputStream stored) {
+        return this == DEFLATE ? new InflaterInputStream(stored) : stored;
+    }
+}
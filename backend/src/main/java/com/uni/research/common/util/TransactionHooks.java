@@ -0,0 +1,35 @@
+package com.uni.research.common.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 事务提交后的回调
+ *
+ * 缓存失效、内存索引同步等副作用必须在事务提交之后执行：
+ * 1. 提交前失效缓存，并发的读请求仍会从数据库读到旧数据并回填缓存
+ * 2. 事务回滚时，已经同步到内存索引的修改无法撤销
+ *
+ * 当前线程没有事务时立即执行。
+ */
+public final class TransactionHooks {
+
+    private TransactionHooks() {
+    }
+
+    /**
+     * 在当前事务提交后执行；没有事务时立即执行，回滚时不执行
+     */
+    public static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -1,9 +1,11 @@
 package com.uni.research.module.chat.controller;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.uni.research.common.result.CursorPage;
 import com.uni.research.common.result.Result;
 import com.uni.research.module.auth.entity.User;
 import com.uni.research.module.auth.mapper.UserMapper;
+import com.uni.research.module.chat.dto.ChatMessageVo;
 import com.uni.research.module.chat.dto.ChatSendRequest;
 import com.uni.research.module.chat.entity.ChatMessage;
 import com.uni.research.module.chat.entity.ChatSession;
@@ -60,6 +62,16 @@ public class ChatController {
         return Result.success(chatService.getSessions(userId));
     }
 
+    /**
+     * 游标分页获取会话列表
+     */
+    @GetMapping("/sessions/page")
+    public Result<CursorPage<ChatSession>> getSessionsPage(@RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "30") Integer size) {
+        Long userId = getUserId();
+        return Result.success(chatService.getSessionsPage(userId, cursor, size));
+    }
+
     /**
      * 删除会话
      */
@@ -99,6 +111,27 @@ public class ChatController {
         return Result.success(chatService.getHistory(sessionId, userId));
     }
 
+    /**
+     * 游标分页获取历史消息（最新的在前），可截断内容；引用通过 /chat/message/{id}/citations 按需加载
+     */
+    @GetMapping("/session/{sessionId}/messages/page")
+    public Result<CursorPage<ChatMessageVo>> getHistoryPage(@PathVariable Long sessionId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") Integer size,
+            @RequestParam(required = false) Integer maxContentLength) {
+        Long userId = getUserId();
+        return Result.success(chatService.getHistoryPage(sessionId, userId, cursor, size, maxContentLength));
+    }
+
+    /**
+     * 获取单条消息的引用信息（JSON 字符串）
+     */
+    @GetMapping("/message/{messageId}/citations")
+    public Result<String> getMessageCitations(@PathVariable Long messageId) {
+        Long userId = getUserId();
+        return Result.success(chatService.getMessageCitations(messageId, userId));
+    }
+
     /**
      * 发送消息并开启 SSE 流
      * produces = MediaType.TEXT_EVENT_STREAM_VALUE 确保返回 Content-Type:
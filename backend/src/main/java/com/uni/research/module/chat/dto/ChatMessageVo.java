@@ -0,0 +1,38 @@
+package com.uni.research.module.chat.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class ChatMessageVo {
+    private Long id;
+    private Long sessionId;
+
+    /**
+     * 角色：user/assistant
+     */
+    private String role;
+
+    /**
+     * 消息内容（可能被截断，见 truncated）
+     */
+    private String content;
+
+    /**
+     * 内容是否被截断；完整内容通过不截断的请求获取
+     */
+    private boolean truncated;
+
+    /**
+     * 完整内容的字符数
+     */
+    private Integer contentLength;
+
+    /**
+     * 是否有引用信息；引用按需通过 /chat/message/{id}/citations 加载
+     */
+    private boolean hasCitations;
+
+    private LocalDateTime createTime;
+}
@@ -0,0 +1,38 @@
+package com.uni.research.module.chat.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import com.uni.research.common.mybatis.CompressedTextTypeHandler;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 冷会话归档实体：一个会话的全部消息序列化为一条 JSON，压缩后存储
+ */
+@Data
+@TableName(value = "chat_archive", autoResultMap = true)
+public class ChatArchive {
+
+    @TableId(type = IdType.INPUT)
+    private Long sessionId;
+
+    private Long userId;
+
+    private Integer messageCount;
+
+    /**
+     * 会话中最小 / 最大的消息 ID，搜索命中归档消息时据此找到所在的归档
+     */
+    private Long firstMessageId;
+
+    private Long lastMessageId;
+
+    /**
+     * 消息列表 JSON
+     */
+    @TableField(typeHandler = CompressedTextTypeHandler.class)
+    private String payload;
+
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createTime;
+}
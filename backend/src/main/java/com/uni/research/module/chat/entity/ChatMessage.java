@@ -1,6 +1,7 @@
 package com.uni.research.module.chat.entity;
 
 import com.baomidou.mybatisplus.annotation.*;
+import com.uni.research.common.mybatis.CompressedTextTypeHandler;
 import lombok.Data;
 
 import java.time.LocalDateTime;
@@ -9,7 +10,7 @@ import java.time.LocalDateTime;
  * 对话消息实体
  */
 @Data
-@TableName("chat_message")
+@TableName(value = "chat_message", autoResultMap = true)
 public class ChatMessage {
 
     @TableId(type = IdType.AUTO)
@@ -22,6 +23,7 @@ public class ChatMessage {
      */
     private String role;
 
+    @TableField(typeHandler = CompressedTextTypeHandler.class)
     private String content;
 
     private Integer tokenCount;
@@ -29,6 +31,7 @@ public class ChatMessage {
     /**
      * 引用信息 (JSON格式)
      */
+    @TableField(typeHandler = CompressedTextTypeHandler.class)
     private String citations;
 
     @TableField(fill = FieldFill.INSERT)
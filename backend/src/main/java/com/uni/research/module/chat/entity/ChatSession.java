@@ -19,6 +19,12 @@ public class ChatSession {
 
     private String title;
 
+    /**
+     * 是否已归档（消息在 chat_archive 中）；只由归档服务修改，updateById 不写入该列
+     */
+    @TableField(updateStrategy = FieldStrategy.NEVER)
+    private Integer archived;
+
     @TableLogic
     private Integer deleted;
 
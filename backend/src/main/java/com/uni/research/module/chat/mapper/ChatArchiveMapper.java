@@ -0,0 +1,34 @@
+package com.uni.research.module.chat.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.uni.research.common.mybatis.CompressedTextTypeHandler;
+import com.uni.research.module.chat.entity.ChatArchive;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Result;
+import org.apache.ibatis.annotations.Results;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+
+@Mapper
+public interface ChatArchiveMapper extends BaseMapper<ChatArchive> {
+
+    /**
+     * 用户未删除会话的全部归档（构建对话搜索索引用）
+     */
+    @Select("SELECT a.session_id, a.payload FROM chat_archive a JOIN chat_session s ON a.session_id = s.id "
+            + "WHERE a.user_id = #{userId} AND s.deleted = 0")
+    @Results({
+            @Result(column = "session_id", property = "sessionId", id = true),
+            @Result(column = "payload", property = "payload", typeHandler = CompressedTextTypeHandler.class)
+    })
+    List<ChatArchive> selectPayloads(@Param("userId") Long userId);
+
+    /**
+     * 消息 ID 范围包含 messageId 的归档会话（只取会话 ID，不解压 payload）
+     */
+    @Select("SELECT session_id FROM chat_archive WHERE user_id = #{userId} "
+            + "AND first_message_id <= #{messageId} AND last_message_id >= #{messageId}")
+    List<Long> selectSessionIdsContaining(@Param("userId") Long userId, @Param("messageId") Long messageId);
+}
@@ -1,9 +1,60 @@
 package com.uni.research.module.chat.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.uni.research.common.mybatis.CompressedTextTypeHandler;
 import com.uni.research.module.chat.entity.ChatMessage;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Result;
+import org.apache.ibatis.annotations.Results;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+import java.util.Map;
 
 @Mapper
 public interface ChatMessageMapper extends BaseMapper<ChatMessage> {
+
+    /**
+     * 用户所有未删除会话中的消息（仅 id / content，用于构建搜索索引）
+     */
+    @Select("SELECT m.id, m.content FROM chat_message m JOIN chat_session s ON m.session_id = s.id "
+            + "WHERE s.user_id = #{userId} AND s.deleted = 0")
+    @Results({
+            @Result(column = "id", property = "id", id = true),
+            @Result(column = "content", property = "content", typeHandler = CompressedTextTypeHandler.class)
+    })
+    List<ChatMessage> selectSearchFields(@Param("userId") Long userId);
+
+    /**
+     * 按主键顺序删除会话中的一批消息，单条语句只锁定 limit 行
+     */
+    @Delete("DELETE FROM chat_message WHERE session_id = #{sessionId} ORDER BY id LIMIT #{limit}")
+    int deleteBySessionLimit(@Param("sessionId") Long sessionId, @Param("limit") int limit);
+
+    /**
+     * 删除已写入归档的消息（归档期间新写入的消息 ID 更大，不受影响）
+     */
+    @Delete("DELETE FROM chat_message WHERE session_id = #{sessionId} AND id <= #{maxId}")
+    int deleteArchived(@Param("sessionId") Long sessionId, @Param("maxId") Long maxId);
+
+    /**
+     * 从归档恢复消息，保留原 ID 与创建时间（游标、搜索索引中的 ID 保持不变）
+     */
+    @Insert("<script>INSERT INTO chat_message (id, session_id, role, content, token_count, citations, create_time) VALUES "
+            + "<foreach collection='messages' item='m' separator=','>"
+            + "(#{m.id}, #{m.sessionId}, #{m.role}, "
+            + "#{m.content,typeHandler=com.uni.research.common.mybatis.CompressedTextTypeHandler}, #{m.tokenCount}, "
+            + "#{m.citations,typeHandler=com.uni.research.common.mybatis.CompressedTextTypeHandler}, #{m.createTime})"
+            + "</foreach></script>")
+    int insertWithIds(@Param("messages") List<ChatMessage> messages);
+
+    /**
+     * 热表的估算行数与占用空间（InnoDB 统计值，不扫描表）
+     */
+    @Select("SELECT TABLE_ROWS AS tableRows, DATA_LENGTH + INDEX_LENGTH AS totalBytes FROM information_schema.TABLES "
+            + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'chat_message'")
+    Map<String, Object> selectTableStats();
 }
@@ -2,8 +2,71 @@ package com.uni.research.module.chat.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.uni.research.module.chat.entity.ChatSession;
+import org.apache.ibatis.annotations.Delete;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 @Mapper
 public interface ChatSessionMapper extends BaseMapper<ChatSession> {
+
+    /**
+     * 待清理的已删除会话（绕过逻辑删除过滤），最早删除的在前
+     */
+    @Select("SELECT id, user_id, update_time FROM chat_session "
+            + "WHERE deleted = 1 ORDER BY update_time, id LIMIT #{limit}")
+    List<ChatSession> selectPurgeCandidates(@Param("limit") int limit);
+
+    /**
+     * 最早的墓碑时间，用于清理延迟指标
+     */
+    @Select("SELECT MIN(update_time) FROM chat_session WHERE deleted = 1")
+    LocalDateTime selectOldestTombstone();
+
+    @Select("SELECT COUNT(*) FROM chat_session WHERE deleted = 1")
+    long countTombstones();
+
+    /**
+     * 消息清理完毕后物理删除会话
+     */
+    @Delete("DELETE FROM chat_session WHERE id = #{id} AND deleted = 1")
+    int hardDelete(@Param("id") Long id);
+
+    /**
+     * 空闲超过期限、尚未归档且有消息的会话，按 (update_time, id) 游标分页，最久未活跃的在前
+     * 跳过或归档失败的会话不会在同一轮中被重复取出，也不会挡住后面的会话
+     *
+     * @param afterTime 上一批最后一个会话的 update_time，第一批为 null
+     * @param afterId   上一批最后一个会话的 ID
+     */
+    @Select("<script>"
+            + "SELECT id, user_id, update_time FROM chat_session s "
+            + "WHERE archived = 0 AND deleted = 0 AND update_time &lt; #{before}"
+            + "<if test='afterTime != null'> AND (update_time &gt; #{afterTime} "
+            + "OR (update_time = #{afterTime} AND id &gt; #{afterId}))</if>"
+            + " AND EXISTS (SELECT 1 FROM chat_message m WHERE m.session_id = s.id)"
+            + " ORDER BY update_time, id LIMIT #{limit}"
+            + "</script>")
+    List<ChatSession> selectArchiveCandidates(@Param("before") LocalDateTime before,
+            @Param("afterTime") LocalDateTime afterTime, @Param("afterId") Long afterId, @Param("limit") int limit);
+
+    /**
+     * 标记为已归档；保留 update_time，归档不算活跃。返回 0 表示已被其他节点归档或已删除
+     */
+    @Update("UPDATE chat_session SET archived = 1, update_time = update_time "
+            + "WHERE id = #{id} AND archived = 0 AND deleted = 0")
+    int markArchived(@Param("id") Long id);
+
+    /**
+     * 标记为已恢复；返回 0 表示已被并发请求恢复
+     */
+    @Update("UPDATE chat_session SET archived = 0, update_time = update_time WHERE id = #{id} AND archived = 1")
+    int markRestored(@Param("id") Long id);
+
+    @Select("SELECT COUNT(*) FROM chat_session WHERE archived = 1 AND deleted = 0")
+    long countArchived();
 }
@@ -0,0 +1,307 @@
+package com.uni.research.module.chat.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uni.research.module.chat.entity.ChatArchive;
+import com.uni.research.module.chat.entity.ChatMessage;
+import com.uni.research.module.chat.entity.ChatSession;
+import com.uni.research.module.chat.mapper.ChatArchiveMapper;
+import com.uni.research.module.chat.mapper.ChatMessageMapper;
+import com.uni.research.module.chat.mapper.ChatSessionMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cold Chat Session Archiver
+ *
+ * 长期不活跃的会话从 chat_message 热表移到 chat_archive，热表及其索引只保留近期会话：
+ * 1. 定期取出空闲超过 idle-days 且有消息的会话，整个会话的消息序列化为一条 JSON，经 CompressedTextTypeHandler 压缩存储
+ * 2. 候选会话按 (update_time, id) 游标分页：跳过（活跃时间未写回）或归档失败的会话不会在同一轮中被反复取出，
+ *    单个会话失败只计数并继续处理后面的会话
+ * 3. 写归档、标记 archived = 1、删除热表消息在同一事务中完成；标记用条件更新，多节点不会重复归档
+ * 4. 读取历史、继续对话、回滚时调用 ensureHot 透明恢复：按原 ID 写回热表后删除归档
+ * 5. 归档不修改 update_time，会话在侧边栏中的顺序不变
+ * 6. 归档消息仍可搜索：搜索索引保留归档消息的词项（加载分区时也读取归档），
+ *    命中时按归档记录的消息 ID 范围找到所在归档并解压（findArchivedMessages）
+ *
+ * 指标：
+ * - chat.hot.table.rows / chat.hot.table.bytes：热表估算行数与数据 + 索引大小
+ * - chat.archive.sessions.archived：当前处于归档状态的会话数
+ * - chat.archive.sessions{result=archived|restored|failed}：归档 / 恢复 / 归档失败次数
+ * - chat.archive.restore.latency：恢复耗时（发生在用户请求路径上）
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ChatArchiveService {
+
+    private static final TypeReference<List<ChatMessage>> MESSAGE_LIST = new TypeReference<>() {
+    };
+
+    private final ChatSessionMapper sessionMapper;
+    private final ChatMessageMapper messageMapper;
+    private final ChatArchiveMapper archiveMapper;
+    private final ChatSearchIndex chatSearchIndex;
+    private final ChatSessionIndex chatSessionIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${chat.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${chat.archive.idle-days:7}")
+    private int idleDays;
+
+    @Value("${chat.archive.batch-size:50}")
+    private int batchSize;
+
+    @Value("${chat.archive.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+
+    private final AtomicLong hotRows = new AtomicLong();
+    private final AtomicLong hotBytes = new AtomicLong();
+    private final AtomicLong archivedSessions = new AtomicLong();
+    private Counter archivedCounter;
+    private Counter restoredCounter;
+    private Counter failedCounter;
+    private Timer restoreTimer;
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("chat.hot.table.rows", hotRows, AtomicLong::get)
+                .description("Estimated rows in chat_message")
+                .register(meterRegistry);
+        Gauge.builder("chat.hot.table.bytes", hotBytes, AtomicLong::get)
+                .description("Data and index size of chat_message")
+                .register(meterRegistry);
+        Gauge.builder("chat.archive.sessions.archived", archivedSessions, AtomicLong::get)
+                .description("Chat sessions currently held in the archive tier")
+                .register(meterRegistry);
+        archivedCounter = Counter.builder("chat.archive.sessions").tag("result", "archived").register(meterRegistry);
+        restoredCounter = Counter.builder("chat.archive.sessions").tag("result", "restored").register(meterRegistry);
+        failedCounter = Counter.builder("chat.archive.sessions").tag("result", "failed").register(meterRegistry);
+        restoreTimer = Timer.builder("chat.archive.restore.latency").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${chat.archive.interval-ms:3600000}", initialDelayString = "${chat.archive.initial-delay-ms:300000}")
+    public void archiveIdle() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            LocalDateTime before = LocalDateTime.now().minusDays(idleDays);
+            LocalDateTime afterTime = null;
+            Long afterId = null;
+            int archived = 0;
+            int failed = 0;
+            for (int i = 0; i < maxBatchesPerRun; i++) {
+                List<ChatSession> batch = sessionMapper.selectArchiveCandidates(before, afterTime, afterId, batchSize);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                for (ChatSession session : batch) {
+                    // 活跃时间尚未写回的会话不归档
+                    if (chatSessionIndex.hasPendingActivity(session.getId())) {
+                        continue;
+                    }
+                    try {
+                        if (archive(session)) {
+                            archived++;
+                        }
+                    } catch (Exception e) {
+                        failed++;
+                        failedCounter.increment();
+                        log.warn("会话归档失败，跳过: sessionId={}, error={}", session.getId(), e.getMessage());
+                    }
+                }
+                ChatSession last = batch.get(batch.size() - 1);
+                afterTime = last.getUpdateTime();
+                afterId = last.getId();
+                if (batch.size() < batchSize) {
+                    break;
+                }
+            }
+            if (archived > 0 || failed > 0) {
+                log.info("冷会话归档完成: sessions={}, failed={}", archived, failed);
+            }
+        } catch (Exception e) {
+            log.error("冷会话归档异常: {}", e.getMessage(), e);
+        } finally {
+            updateStats();
+        }
+    }
+
+    /**
+     * 会话已归档时恢复到热表；未归档时直接返回
+     *
+     * @param session 已校验归属的会话
+     */
+    public void ensureHot(ChatSession session) {
+        if (session.getArchived() == null || session.getArchived() == 0) {
+            return;
+        }
+        restoreTimer.record(() -> restore(session));
+    }
+
+    /**
+     * 取出已归档的消息（搜索命中回表用）；每个归档只解压一次
+     *
+     * @param messageIds 在热表中找不到的消息 ID
+     * @return 消息 ID -> 消息，找不到的 ID 不在结果中
+     */
+    public Map<Long, ChatMessage> findArchivedMessages(Long userId, Collection<Long> messageIds) {
+        Map<Long, ChatMessage> found = new HashMap<>();
+        if (messageIds.isEmpty()) {
+            return found;
+        }
+        Set<Long> sessionIds = new LinkedHashSet<>();
+        for (Long messageId : messageIds) {
+            sessionIds.addAll(archiveMapper.selectSessionIdsContaining(userId, messageId));
+        }
+        if (sessionIds.isEmpty()) {
+            return found;
+        }
+        Set<Long> wanted = new HashSet<>(messageIds);
+        for (ChatArchive archive : archiveMapper.selectBatchIds(sessionIds)) {
+            for (ChatMessage message : fromJson(archive.getPayload())) {
+                if (wanted.contains(message.getId())) {
+                    found.put(message.getId(), message);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 已归档会话的消息 ID（删除会话时从搜索索引移除）；未归档时返回空列表
+     */
+    public List<Long> archivedMessageIds(ChatSession session) {
+        if (session.getArchived() == null || session.getArchived() == 0) {
+            return List.of();
+        }
+        ChatArchive archive = archiveMapper.selectById(session.getId());
+        if (archive == null) {
+            return List.of();
+        }
+        return fromJson(archive.getPayload()).stream().map(ChatMessage::getId).toList();
+    }
+
+    /**
+     * @return 是否归档成功（被其他节点抢先或会话为空时返回 false）
+     */
+    private boolean archive(ChatSession session) {
+        Long sessionId = session.getId();
+        Boolean done = transactionTemplate.execute(status -> {
+            // 先加行锁并标记，之后的 ensureHot 会等待本事务提交
+            if (sessionMapper.markArchived(sessionId) == 0) {
+                return false;
+            }
+            List<ChatMessage> messages = messageMapper.selectList(new LambdaQueryWrapper<ChatMessage>()
+                    .eq(ChatMessage::getSessionId, sessionId)
+                    .orderByAsc(ChatMessage::getId));
+            if (messages.isEmpty()) {
+                // 候选查询已排除空会话，这里只会在并发回滚删光消息时出现
+                status.setRollbackOnly();
+                return false;
+            }
+            ChatArchive archive = new ChatArchive();
+            archive.setSessionId(sessionId);
+            archive.setUserId(session.getUserId());
+            archive.setMessageCount(messages.size());
+            archive.setFirstMessageId(messages.get(0).getId());
+            archive.setLastMessageId(messages.get(messages.size() - 1).getId());
+            archive.setPayload(toJson(messages));
+            archiveMapper.insert(archive);
+            messageMapper.deleteArchived(sessionId, archive.getLastMessageId());
+            return true;
+        });
+        // 搜索索引保留这些消息，命中时从归档中读取
+        if (!Boolean.TRUE.equals(done)) {
+            return false;
+        }
+        archivedCounter.increment();
+        return true;
+    }
+
+    private void restore(ChatSession session) {
+        Long sessionId = session.getId();
+        List<ChatMessage> restored = transactionTemplate.execute(status -> {
+            // 并发请求中只有一个能改回标记，其他请求等待行锁后得到 0，此时数据已在热表
+            if (sessionMapper.markRestored(sessionId) == 0) {
+                return null;
+            }
+            ChatArchive archive = archiveMapper.selectById(sessionId);
+            if (archive == null) {
+                return null;
+            }
+            List<ChatMessage> messages = fromJson(archive.getPayload());
+            if (!messages.isEmpty()) {
+                messageMapper.insertWithIds(messages);
+            }
+            archiveMapper.deleteById(sessionId);
+            return messages;
+        });
+        if (restored == null) {
+            return;
+        }
+        for (ChatMessage message : restored) {
+            chatSearchIndex.onSaved(session.getUserId(), message);
+        }
+        restoredCounter.increment();
+        log.info("归档会话已恢复: sessionId={}, messages={}", sessionId, restored.size());
+    }
+
+    private void updateStats() {
+        try {
+            Map<String, Object> stats = messageMapper.selectTableStats();
+            if (stats != null) {
+                hotRows.set(toLong(stats.get("tableRows")));
+                hotBytes.set(toLong(stats.get("totalBytes")));
+            }
+            archivedSessions.set(sessionMapper.countArchived());
+        } catch (Exception e) {
+            log.warn("读取热表统计失败: {}", e.getMessage());
+        }
+    }
+
+    private String toJson(List<ChatMessage> messages) {
+        try {
+            return objectMapper.writeValueAsString(messages);
+        } catch (Exception e) {
+            throw new IllegalStateException("序列化会话消息失败", e);
+        }
+    }
+
+    private List<ChatMessage> fromJson(String payload) {
+        try {
+            return objectMapper.readValue(payload, MESSAGE_LIST);
+        } catch (Exception e) {
+            throw new IllegalStateException("解析会话归档失败", e);
+        }
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number number ? number.longValue() : 0L;
+    }
+}
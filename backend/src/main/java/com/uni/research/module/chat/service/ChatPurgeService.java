@@ -0,0 +1,204 @@
+package com.uni.research.module.chat.service;
+
+import com.uni.research.module.chat.entity.ChatSession;
+import com.uni.research.module.chat.mapper.ChatArchiveMapper;
+import com.uni.research.module.chat.mapper.ChatMessageMapper;
+import com.uni.research.module.chat.mapper.ChatSessionMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background Purger for Deleted Chat Sessions
+ *
+ * 删除会话只写墓碑（deleted = 1），会话立即对用户不可见；消息由这里分批物理删除：
+ * 1. 每条 DELETE 按主键顺序最多删除 batch-size 行，自动提交，行锁只持有一个小批次的时间
+ * 2. 批次之间按占空比让出数据库：停顿 = 批次耗时 × (100 - duty) / duty；
+ *    批次耗时超过 slow-batch-ms 视为数据库繁忙，停顿翻倍直到 max-pause-ms，恢复后复位
+ * 3. 会话的消息删完后才物理删除会话行；中途停机时下一轮从剩余消息继续
+ * 4. 使用独立线程，限流停顿不会占用 @Scheduled 的公共调度线程
+ *
+ * 指标：
+ * - chat.purge.messages：已删除的消息数
+ * - chat.purge.sessions：已清理完成的会话数
+ * - chat.purge.pending.sessions / chat.purge.lag.seconds：剩余墓碑数与最早墓碑的存在时长
+ * - chat.purge.batch.latency：单批 DELETE 耗时
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ChatPurgeService {
+
+    private static final long WAKE_DELAY_MS = 1000;
+
+    private final ChatSessionMapper sessionMapper;
+    private final ChatMessageMapper messageMapper;
+    private final ChatArchiveMapper archiveMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${chat.purge.batch-size:500}")
+    private int batchSize;
+
+    @Value("${chat.purge.max-batches-per-run:200}")
+    private int maxBatchesPerRun;
+
+    @Value("${chat.purge.duty-percent:25}")
+    private int dutyPercent;
+
+    @Value("${chat.purge.min-pause-ms:20}")
+    private long minPauseMs;
+
+    @Value("${chat.purge.max-pause-ms:5000}")
+    private long maxPauseMs;
+
+    @Value("${chat.purge.slow-batch-ms:200}")
+    private long slowBatchMs;
+
+    @Value("${chat.purge.interval-ms:60000}")
+    private long intervalMs;
+
+    private ScheduledExecutorService executor;
+    private final AtomicBoolean wakeRequested = new AtomicBoolean();
+
+    private final AtomicLong pendingSessions = new AtomicLong();
+    private final AtomicLong lagSeconds = new AtomicLong();
+    private Counter messagesCounter;
+    private Counter sessionsCounter;
+    private Timer batchTimer;
+
+    /**
+     * 当前的退避倍数，数据库繁忙时翻倍
+     */
+    private long backoff = 1;
+
+    @PostConstruct
+    public void init() {
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "chat-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::purge, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+
+        Gauge.builder("chat.purge.pending.sessions", pendingSessions, AtomicLong::get)
+                .description("Deleted chat sessions whose messages are not yet purged")
+                .register(meterRegistry);
+        Gauge.builder("chat.purge.lag.seconds", lagSeconds, AtomicLong::get)
+                .description("Age of the oldest deleted chat session not yet purged")
+                .register(meterRegistry);
+        messagesCounter = Counter.builder("chat.purge.messages")
+                .description("Chat messages physically deleted by the background purge")
+                .register(meterRegistry);
+        sessionsCounter = Counter.builder("chat.purge.sessions")
+                .description("Deleted chat sessions fully purged")
+                .register(meterRegistry);
+        batchTimer = Timer.builder("chat.purge.batch.latency").register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 会话删除后调用，稍后开始清理（已排队时不重复提交）
+     * 延迟一小段时间再执行，调用方的删除事务此时已经提交
+     */
+    public void wakeUp() {
+        if (wakeRequested.compareAndSet(false, true)) {
+            executor.schedule(() -> {
+                wakeRequested.set(false);
+                purge();
+            }, WAKE_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    void purge() {
+        try {
+            int batches = 0;
+            long deleted = 0;
+            while (batches < maxBatchesPerRun) {
+                List<ChatSession> sessions = sessionMapper.selectPurgeCandidates(10);
+                if (sessions.isEmpty()) {
+                    break;
+                }
+                for (ChatSession session : sessions) {
+                    while (batches < maxBatchesPerRun) {
+                        int rows = deleteBatch(session.getId());
+                        batches++;
+                        deleted += rows;
+                        if (rows < batchSize) {
+                            // 消息已删完，物理删除会话（已归档的会话同时删除归档）
+                            archiveMapper.deleteById(session.getId());
+                            sessionMapper.hardDelete(session.getId());
+                            sessionsCounter.increment();
+                            break;
+                        }
+                    }
+                    if (batches >= maxBatchesPerRun) {
+                        break;
+                    }
+                }
+            }
+            if (deleted > 0) {
+                log.info("已删除会话清理: messages={}, batches={}", deleted, batches);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("已删除会话清理异常: {}", e.getMessage(), e);
+        } finally {
+            updateProgress();
+        }
+    }
+
+    /**
+     * 删除一批消息并按耗时停顿
+     *
+     * @return 删除的行数
+     */
+    private int deleteBatch(Long sessionId) throws InterruptedException {
+        long start = System.nanoTime();
+        int rows = messageMapper.deleteBySessionLimit(sessionId, batchSize);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        batchTimer.record(elapsedMs, TimeUnit.MILLISECONDS);
+        messagesCounter.increment(rows);
+
+        if (elapsedMs > slowBatchMs) {
+            backoff = Math.min(backoff * 2, Math.max(1, maxPauseMs / Math.max(1, minPauseMs)));
+        } else {
+            backoff = 1;
+        }
+        if (rows > 0) {
+            long pause = elapsedMs * (100 - dutyPercent) / Math.max(1, dutyPercent);
+            Thread.sleep(Math.min(maxPauseMs, Math.max(minPauseMs, pause) * backoff));
+        }
+        return rows;
+    }
+
+    private void updateProgress() {
+        try {
+            pendingSessions.set(sessionMapper.countTombstones());
+            LocalDateTime oldest = sessionMapper.selectOldestTombstone();
+            lagSeconds.set(oldest == null ? 0 : Math.max(0, Duration.between(oldest, LocalDateTime.now()).getSeconds()));
+        } catch (Exception e) {
+            log.warn("读取会话清理进度失败: {}", e.getMessage());
+        }
+    }
+}
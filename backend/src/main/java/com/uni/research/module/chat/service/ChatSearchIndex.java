@@ -0,0 +1,103 @@
+package com.uni.research.module.chat.service;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uni.research.common.search.InvertedIndex;
+import com.uni.research.module.chat.entity.ChatArchive;
+import com.uni.research.module.chat.entity.ChatMessage;
+import com.uni.research.module.chat.mapper.ChatArchiveMapper;
+import com.uni.research.module.chat.mapper.ChatMessageMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Chat Message Full-text Search Index
+ * 
+ * 按用户分区的对话消息倒排索引，与 DocumentSearchIndex / NoteSearchIndex 相同：
+ * 分区在用户第一次搜索时加载，之后由发送消息 / 回滚 / 删除会话增量维护，分区数量受 LRU 限制。
+ * 归档会话的消息同样建索引：加载时读取 chat_archive，归档时不移除，命中后由 ChatArchiveService 回表。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ChatSearchIndex {
+
+    private static final float CONTENT_WEIGHT = 1.0f;
+
+    private static final TypeReference<List<ChatMessage>> MESSAGE_LIST = new TypeReference<>() {
+    };
+
+    private final ChatMessageMapper messageMapper;
+    private final ChatArchiveMapper archiveMapper;
+    private final ObjectMapper objectMapper;
+
+    @Value("${chat.search.max-cached-users:1000}")
+    private int maxCachedUsers;
+
+    private LRUCache<Long, InvertedIndex> partitions;
+
+    @PostConstruct
+    public void init() {
+        partitions = CacheUtil.newLRUCache(maxCachedUsers);
+    }
+
+    public List<InvertedIndex.Hit> search(Long userId, String query, int k, boolean matchAll) {
+        return partitions.get(userId, () -> load(userId)).search(query, k, matchAll);
+    }
+
+    /**
+     * 得分归一化到 [0, 1] 的查询，用于与其他类型的结果合并排序
+     */
+    public List<InvertedIndex.Hit> searchNormalised(Long userId, String query, int k) {
+        return partitions.get(userId, () -> load(userId)).searchNormalised(query, k);
+    }
+
+    /**
+     * 消息写入后调用；分区未加载时无需处理，加载时会读到最新数据
+     */
+    public void onSaved(Long userId, ChatMessage message) {
+        InvertedIndex index = partitions.get(userId, false);
+        if (index != null) {
+            index.put(message.getId(), new InvertedIndex.Field(message.getContent(), CONTENT_WEIGHT));
+        }
+    }
+
+    public void onDeleted(Long userId, Collection<Long> messageIds) {
+        InvertedIndex index = partitions.get(userId, false);
+        if (index != null) {
+            messageIds.forEach(index::remove);
+        }
+    }
+
+    private InvertedIndex load(Long userId) {
+        long start = System.currentTimeMillis();
+        List<ChatMessage> messages = messageMapper.selectSearchFields(userId);
+
+        InvertedIndex index = new InvertedIndex();
+        for (ChatMessage message : messages) {
+            index.put(message.getId(), new InvertedIndex.Field(message.getContent(), CONTENT_WEIGHT));
+        }
+        int archived = 0;
+        for (ChatArchive archive : archiveMapper.selectPayloads(userId)) {
+            try {
+                for (ChatMessage message : objectMapper.readValue(archive.getPayload(), MESSAGE_LIST)) {
+                    index.put(message.getId(), new InvertedIndex.Field(message.getContent(), CONTENT_WEIGHT));
+                    archived++;
+                }
+            } catch (Exception e) {
+                log.warn("解析会话归档失败，跳过: sessionId={}, error={}", archive.getSessionId(), e.getMessage());
+            }
+        }
+        log.info("对话搜索索引已加载: userId={}, messages={}, archived={}, cost={}ms", userId, messages.size(),
+                archived, System.currentTimeMillis() - start);
+        return index;
+    }
+}
@@ -1,5 +1,7 @@
 package com.uni.research.module.chat.service;
 
+import com.uni.research.common.result.CursorPage;
+import com.uni.research.module.chat.dto.ChatMessageVo;
 import com.uni.research.module.chat.entity.ChatMessage;
 import com.uni.research.module.chat.entity.ChatSession;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
@@ -26,6 +28,28 @@ public interface ChatService {
      */
     List<ChatMessage> getHistory(Long sessionId, Long userId);
 
+    /**
+     * 游标分页获取会话历史消息（最新的在前）
+     * 
+     * @param sessionId        会话ID
+     * @param userId           用户ID (用于鉴权)
+     * @param cursor           上一页返回的游标，第一页为 null
+     * @param size             每页条数
+     * @param maxContentLength 内容截断长度，null 或 0 表示不截断
+     * @return 消息分页，不含引用正文
+     */
+    CursorPage<ChatMessageVo> getHistoryPage(Long sessionId, Long userId, String cursor, int size,
+            Integer maxContentLength);
+
+    /**
+     * 获取单条消息的引用信息
+     * 
+     * @param messageId 消息ID
+     * @param userId    用户ID (用于鉴权)
+     * @return 引用 JSON，没有时为 null
+     */
+    String getMessageCitations(Long messageId, Long userId);
+
     /**
      * 发送消息并获取 SSE 流
      * 
@@ -44,6 +68,16 @@ public interface ChatService {
      */
     List<ChatSession> getSessions(Long userId);
 
+    /**
+     * 游标分页获取会话列表（按最后活跃时间倒序）
+     * 
+     * @param userId 用户ID
+     * @param cursor 上一页返回的游标，第一页为 null
+     * @param size   每页条数
+     * @return 会话分页（只包含 id、title、updateTime）
+     */
+    CursorPage<ChatSession> getSessionsPage(Long userId, String cursor, int size);
+
     /**
      * 删除会话
      * 
@@ -0,0 +1,406 @@
+package com.uni.research.module.chat.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.uni.research.common.exception.BizException;
+import com.uni.research.common.result.CursorPage;
+import com.uni.research.common.result.ResultCode;
+import com.uni.research.module.chat.entity.ChatSession;
+import com.uni.research.module.chat.mapper.ChatSessionMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Chat Session Sidebar Index
+ *
+ * 侧边栏会话列表放在 Redis 中，不再每次刷新都 ORDER BY update_time：
+ * 1. chat:sessions:{userId}：有序集合，成员为会话 ID，分值为最后活跃时间（毫秒）
+ * 2. chat:sessions:title:{userId}：哈希，会话 ID -> 标题
+ * 3. chat:sessions:ready:{userId}：标记两者已从 MySQL 完整构建；缺失时冷重建
+ * 4. chat:sessions:deleted:{userId}：最近删除的会话 ID（短期墓碑）。删除之后才到达的活跃时间
+ *    （对话流式回调）和删除之前从 MySQL 读出的冷重建数据都不会把会话加回列表
+ *
+ * 每轮对话的活跃时间只写 Redis，并在内存中合并，按周期批量写回 update_time（每个会话一次），
+ * MySQL 的 update_time 只用于冷重建。Redis 不可用时直接查库。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ChatSessionIndex {
+
+    private static final String KEY_PREFIX = "chat:sessions:";
+    private static final String TITLE_PREFIX = "chat:sessions:title:";
+    private static final String READY_PREFIX = "chat:sessions:ready:";
+    private static final String TOMBSTONE_PREFIX = "chat:sessions:deleted:";
+
+    /**
+     * 更新活跃时间（只增不减）和标题，并续期三个 key；已删除的会话返回 0
+     * KEYS: zset, hash, ready, tombstones; ARGV: sessionId, score, title(可为空串), ttl
+     */
+    private static final DefaultRedisScript<Long> TOUCH = new DefaultRedisScript<>(
+            "if redis.call('SISMEMBER', KEYS[4], ARGV[1]) == 1 then return 0 end "
+                    + "local s = redis.call('ZSCORE', KEYS[1], ARGV[1]) "
+                    + "if (not s) or tonumber(s) < tonumber(ARGV[2]) then redis.call('ZADD', KEYS[1], ARGV[2], ARGV[1]) end "
+                    + "if ARGV[3] ~= '' then redis.call('HSET', KEYS[2], ARGV[1], ARGV[3]) end "
+                    + "redis.call('EXPIRE', KEYS[1], ARGV[4]) redis.call('EXPIRE', KEYS[2], ARGV[4]) "
+                    + "redis.call('EXPIRE', KEYS[3], ARGV[4]) return 1",
+            Long.class);
+
+    /**
+     * 冷重建：与已有数据合并（分值取较大者、已有标题不覆盖，跳过墓碑中的会话），最后写入就绪标记
+     * KEYS: zset, hash, ready, tombstones; ARGV: ttl, 之后每三个一组 sessionId, score, title
+     */
+    private static final DefaultRedisScript<Long> REBUILD = new DefaultRedisScript<>(
+            "for i = 2, #ARGV, 3 do "
+                    + "if redis.call('SISMEMBER', KEYS[4], ARGV[i]) == 0 then "
+                    + "local s = redis.call('ZSCORE', KEYS[1], ARGV[i]) "
+                    + "if (not s) or tonumber(s) < tonumber(ARGV[i + 1]) then redis.call('ZADD', KEYS[1], ARGV[i + 1], ARGV[i]) end "
+                    + "redis.call('HSETNX', KEYS[2], ARGV[i], ARGV[i + 2]) end end "
+                    + "redis.call('SET', KEYS[3], '1', 'EX', ARGV[1]) "
+                    + "redis.call('EXPIRE', KEYS[1], ARGV[1]) redis.call('EXPIRE', KEYS[2], ARGV[1]) return 1",
+            Long.class);
+
+    /**
+     * 删除：写入墓碑并移除成员和标题
+     * KEYS: zset, hash, ready, tombstones; ARGV: sessionId, tombstone ttl
+     */
+    private static final DefaultRedisScript<Long> DELETE = new DefaultRedisScript<>(
+            "redis.call('SADD', KEYS[4], ARGV[1]) redis.call('EXPIRE', KEYS[4], ARGV[2]) "
+                    + "redis.call('ZREM', KEYS[1], ARGV[1]) redis.call('HDEL', KEYS[2], ARGV[1]) return 1",
+            Long.class);
+
+    /**
+     * 改名：只更新已在列表中的会话的标题，不改变活跃时间
+     * KEYS: zset, hash; ARGV: sessionId, title
+     */
+    private static final DefaultRedisScript<Long> RENAME = new DefaultRedisScript<>(
+            "if not redis.call('ZSCORE', KEYS[1], ARGV[1]) then return 0 end "
+                    + "redis.call('HSET', KEYS[2], ARGV[1], ARGV[2]) return 1",
+            Long.class);
+
+    private final ChatSessionMapper sessionMapper;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${chat.sessions.ttl-hours:168}")
+    private long ttlHours;
+
+    @Value("${chat.sessions.max-page-size:100}")
+    private int maxPageSize;
+
+    /**
+     * 墓碑保留时间，需长于一次对话流和一次冷重建的耗时
+     */
+    @Value("${chat.sessions.tombstone-ttl-seconds:86400}")
+    private long tombstoneTtlSeconds;
+
+    /**
+     * 待写回的活跃时间：sessionId -> 毫秒，只保留最大值
+     */
+    private final Map<Long, Long> pendingActivity = new ConcurrentHashMap<>();
+
+    private Counter hits;
+    private Counter rebuilds;
+    private Counter fallbacks;
+
+    @PostConstruct
+    public void init() {
+        hits = Counter.builder("chat.sessions.requests").tag("result", "hit").register(meterRegistry);
+        rebuilds = Counter.builder("chat.sessions.requests").tag("result", "rebuild").register(meterRegistry);
+        fallbacks = Counter.builder("chat.sessions.requests").tag("result", "fallback").register(meterRegistry);
+        meterRegistry.gauge("chat.sessions.pending.activity", pendingActivity, Map::size);
+    }
+
+    /**
+     * 会话新建时调用：写入标题并更新活跃时间
+     */
+    public void onSaved(ChatSession session) {
+        touch(session.getUserId(), session.getId(), session.getTitle(), System.currentTimeMillis());
+    }
+
+    /**
+     * 会话改名时调用：只更新标题，列表顺序不变；不在列表中时由冷重建从 MySQL 读取新标题
+     */
+    public void onRenamed(ChatSession session) {
+        Long userId = session.getUserId();
+        try {
+            stringRedisTemplate.execute(RENAME, keys(userId), String.valueOf(session.getId()),
+                    session.getTitle() != null ? session.getTitle() : "");
+        } catch (Exception e) {
+            log.warn("更新会话标题失败: userId={}, sessionId={}, error={}", userId, session.getId(), e.getMessage());
+            invalidate(userId);
+        }
+    }
+
+    /**
+     * 会话有新消息时调用：只更新活跃时间，update_time 延迟写回
+     */
+    public void touch(Long userId, Long sessionId) {
+        long now = System.currentTimeMillis();
+        pendingActivity.merge(sessionId, now, Math::max);
+        touch(userId, sessionId, null, now);
+    }
+
+    /**
+     * 是否有尚未写回 MySQL 的活跃时间（此时 update_time 落后于实际）
+     */
+    public boolean hasPendingActivity(Long sessionId) {
+        return pendingActivity.containsKey(sessionId);
+    }
+
+    /**
+     * 会话删除（事务提交）后调用：写入墓碑并从列表中移除
+     */
+    public void onDeleted(Long userId, Long sessionId) {
+        pendingActivity.remove(sessionId);
+        try {
+            stringRedisTemplate.execute(DELETE, keys(userId), String.valueOf(sessionId),
+                    String.valueOf(tombstoneTtlSeconds));
+        } catch (Exception e) {
+            // 删除标记丢失时列表里会残留该会话，直到 key 过期；这里清掉就绪标记，下次读取时冷重建
+            log.warn("会话列表删除失败: userId={}, sessionId={}, error={}", userId, sessionId, e.getMessage());
+            invalidate(userId);
+        }
+    }
+
+    /**
+     * 全部会话，按最后活跃时间倒序
+     */
+    public List<ChatSession> list(Long userId) {
+        try {
+            ensureBuilt(userId);
+            Set<ZSetOperations.TypedTuple<String>> tuples = stringRedisTemplate.opsForZSet()
+                    .reverseRangeWithScores(KEY_PREFIX + userId, 0, -1);
+            hits.increment();
+            return toSessions(userId, tuples == null ? List.of() : new ArrayList<>(tuples));
+        } catch (Exception e) {
+            log.warn("读取会话列表缓存失败，回退到数据库: userId={}, error={}", userId, e.getMessage());
+            fallbacks.increment();
+            return loadFromDb(userId);
+        }
+    }
+
+    /**
+     * 游标分页，按最后活跃时间倒序
+     *
+     * 游标为 Base64URL("分值:会话ID")。翻页期间有会话被移到最前时，后续页不会重复出现它。
+     */
+    public CursorPage<ChatSession> page(Long userId, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, maxPageSize));
+        double maxScore = Double.POSITIVE_INFINITY;
+        String lastMember = null;
+        if (StringUtils.hasText(cursor)) {
+            String[] parts = decodeCursor(cursor);
+            maxScore = Double.parseDouble(parts[0]);
+            lastMember = parts[1];
+        }
+        try {
+            ensureBuilt(userId);
+            String key = KEY_PREFIX + userId;
+            ZSetOperations<String, String> zset = stringRedisTemplate.opsForZSet();
+            // 同分值的成员按字典序倒序返回，游标所在分值上已返回过的成员需要跳过
+            long ties = 0;
+            if (lastMember != null) {
+                Long count = zset.count(key, maxScore, maxScore);
+                ties = count != null ? count : 0;
+            }
+            Set<ZSetOperations.TypedTuple<String>> tuples = zset.reverseRangeByScoreWithScores(key,
+                    Double.NEGATIVE_INFINITY, maxScore, 0, pageSize + 1 + ties);
+            List<ZSetOperations.TypedTuple<String>> rows = new ArrayList<>();
+            if (tuples != null) {
+                for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+                    if (lastMember != null && tuple.getScore() != null && tuple.getScore() == maxScore
+                            && tuple.getValue().compareTo(lastMember) >= 0) {
+                        continue;
+                    }
+                    rows.add(tuple);
+                }
+            }
+            String nextCursor = null;
+            if (rows.size() > pageSize) {
+                rows = rows.subList(0, pageSize);
+                ZSetOperations.TypedTuple<String> last = rows.get(rows.size() - 1);
+                nextCursor = encodeCursor(last.getScore(), last.getValue());
+            }
+            hits.increment();
+            return CursorPage.of(toSessions(userId, rows), nextCursor, zset.zCard(key));
+        } catch (BizException e) {
+            throw e;
+        } catch (Exception e) {
+            log.warn("读取会话列表缓存失败，回退到数据库: userId={}, error={}", userId, e.getMessage());
+            fallbacks.increment();
+            List<ChatSession> all = loadFromDb(userId);
+            return CursorPage.of(all, null, (long) all.size());
+        }
+    }
+
+    /**
+     * 周期性把活跃时间写回 MySQL，每个会话每周期最多一条 UPDATE
+     */
+    @Scheduled(fixedDelayString = "${chat.sessions.flush-interval-ms:30000}")
+    public void flush() {
+        if (pendingActivity.isEmpty()) {
+            return;
+        }
+        for (Long sessionId : List.copyOf(pendingActivity.keySet())) {
+            Long millis = pendingActivity.remove(sessionId);
+            if (millis == null) {
+                continue;
+            }
+            try {
+                sessionMapper.update(null, new LambdaUpdateWrapper<ChatSession>()
+                        .set(ChatSession::getUpdateTime, toTime(millis))
+                        .eq(ChatSession::getId, sessionId));
+            } catch (Exception e) {
+                // 放回队列下个周期重试；期间到达的更新时间更大时保留新的
+                log.warn("写回会话活跃时间失败，稍后重试: sessionId={}, error={}", sessionId, e.getMessage());
+                pendingActivity.merge(sessionId, millis, Math::max);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void touch(Long userId, Long sessionId, String title, long millis) {
+        try {
+            Long touched = stringRedisTemplate.execute(TOUCH, keys(userId), String.valueOf(sessionId),
+                    String.valueOf(millis), title != null ? title : "", String.valueOf(ttlSeconds()));
+            if (touched != null && touched == 0) {
+                // 会话已删除（流式回复在删除之后才结束），不再写回活跃时间
+                pendingActivity.remove(sessionId);
+            }
+        } catch (Exception e) {
+            log.warn("更新会话列表失败: userId={}, sessionId={}, error={}", userId, sessionId, e.getMessage());
+            invalidate(userId);
+        }
+    }
+
+    /**
+     * 就绪标记不存在时从 MySQL 冷重建；与重建期间的写入合并，不会丢掉更新的活跃时间
+     */
+    private void ensureBuilt(Long userId) {
+        if (Boolean.TRUE.equals(stringRedisTemplate.hasKey(READY_PREFIX + userId))) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        List<ChatSession> sessions = loadFromDb(userId);
+        List<String> args = new ArrayList<>(1 + sessions.size() * 3);
+        args.add(String.valueOf(ttlSeconds()));
+        for (ChatSession session : sessions) {
+            args.add(String.valueOf(session.getId()));
+            args.add(String.valueOf(toMillis(session.getUpdateTime())));
+            args.add(session.getTitle() != null ? session.getTitle() : "");
+        }
+        stringRedisTemplate.execute(REBUILD, keys(userId), args.toArray());
+        rebuilds.increment();
+        log.info("会话列表已从数据库重建: userId={}, sessions={}, cost={}ms", userId, sessions.size(),
+                System.currentTimeMillis() - start);
+    }
+
+    private void invalidate(Long userId) {
+        try {
+            stringRedisTemplate.delete(READY_PREFIX + userId);
+        } catch (Exception ignored) {
+            // Redis 整体不可用时读取会回退到数据库
+        }
+    }
+
+    private List<ChatSession> loadFromDb(Long userId) {
+        List<ChatSession> sessions = sessionMapper.selectList(new LambdaQueryWrapper<ChatSession>()
+                .select(ChatSession::getId, ChatSession::getUserId, ChatSession::getTitle,
+                        ChatSession::getCreateTime, ChatSession::getUpdateTime)
+                .eq(ChatSession::getUserId, userId)
+                .orderByDesc(ChatSession::getUpdateTime));
+        // 尚未写回的活跃时间以内存为准
+        if (!pendingActivity.isEmpty()) {
+            for (ChatSession session : sessions) {
+                Long millis = pendingActivity.get(session.getId());
+                if (millis != null) {
+                    session.setUpdateTime(toTime(millis));
+                }
+            }
+            sessions.sort((a, b) -> b.getUpdateTime().compareTo(a.getUpdateTime()));
+        }
+        return sessions;
+    }
+
+    private List<ChatSession> toSessions(Long userId, List<ZSetOperations.TypedTuple<String>> tuples) {
+        if (tuples.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Object> fields = tuples.stream().map(ZSetOperations.TypedTuple::getValue)
+                .collect(Collectors.toList());
+        List<Object> titles = stringRedisTemplate.opsForHash().multiGet(TITLE_PREFIX + userId, fields);
+        List<ChatSession> sessions = new ArrayList<>(tuples.size());
+        for (int i = 0; i < tuples.size(); i++) {
+            ZSetOperations.TypedTuple<String> tuple = tuples.get(i);
+            ChatSession session = new ChatSession();
+            session.setId(Long.valueOf(tuple.getValue()));
+            session.setUserId(userId);
+            session.setTitle(titles.get(i) != null ? titles.get(i).toString() : null);
+            session.setUpdateTime(toTime(tuple.getScore() != null ? tuple.getScore().longValue() : 0L));
+            sessions.add(session);
+        }
+        return sessions;
+    }
+
+    private static List<String> keys(Long userId) {
+        return Arrays.asList(KEY_PREFIX + userId, TITLE_PREFIX + userId, READY_PREFIX + userId,
+                TOMBSTONE_PREFIX + userId);
+    }
+
+    private long ttlSeconds() {
+        return ttlHours * 3600;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time == null ? 0L : time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    private static String encodeCursor(Double score, String member) {
+        String raw = (score != null ? score.longValue() : 0L) + ":" + member;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":", 2);
+            Long.parseLong(parts[0]);
+            Long.parseLong(parts[1]);
+            return parts;
+        } catch (Exception e) {
+            throw new BizException(ResultCode.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+}
@@ -2,28 +2,41 @@ package com.uni.research.module.chat.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uni.research.common.exception.BizException;
+import com.uni.research.common.result.CursorPage;
+import com.uni.research.common.result.ResultCode;
+import com.uni.research.common.util.TransactionHooks;
+import com.uni.research.module.chat.dto.ChatMessageVo;
 import com.uni.research.module.chat.entity.ChatMessage;
 import com.uni.research.module.chat.entity.ChatSession;
 import com.uni.research.module.chat.mapper.ChatMessageMapper;
 import com.uni.research.module.chat.mapper.ChatSessionMapper;
+import com.uni.research.module.chat.service.ChatArchiveService;
+import com.uni.research.module.chat.service.ChatPurgeService;
+import com.uni.research.module.chat.service.ChatSearchIndex;
+import com.uni.research.module.chat.service.ChatSessionIndex;
 import com.uni.research.module.chat.service.ChatService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.*;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
-import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
 
 /**
  * Chat 服务实现类
@@ -36,6 +49,10 @@ public class ChatServiceImpl implements ChatService {
 
     private final ChatSessionMapper sessionMapper;
     private final ChatMessageMapper messageMapper;
+    private final ChatSearchIndex chatSearchIndex;
+    private final ChatSessionIndex chatSessionIndex;
+    private final ChatPurgeService chatPurgeService;
+    private final ChatArchiveService chatArchiveService;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     // OkHttp Client for calling Python Service
@@ -47,6 +64,8 @@ public class ChatServiceImpl implements ChatService {
     // Thread pool for async tasks
     private final ExecutorService executor = Executors.newCachedThreadPool();
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     private static final String PYTHON_SERVICE_URL = "http://localhost:8000/api/v1/chat/stream";
 
     @Override
@@ -56,6 +75,7 @@ public class ChatServiceImpl implements ChatService {
         session.setUserId(userId);
         session.setTitle(title);
         sessionMapper.insert(session);
+        chatSessionIndex.onSaved(session);
         return session;
     }
 
@@ -65,12 +85,113 @@ public class ChatServiceImpl implements ChatService {
         if (session == null || !session.getUserId().equals(userId)) {
             throw new RuntimeException("会话不存在或无权访问");
         }
+        chatArchiveService.ensureHot(session);
 
         return messageMapper.selectList(new LambdaQueryWrapper<ChatMessage>()
                 .eq(ChatMessage::getSessionId, sessionId)
                 .orderByAsc(ChatMessage::getCreateTime));
     }
 
+    @Override
+    public CursorPage<ChatMessageVo> getHistoryPage(Long sessionId, Long userId, String cursor, int size,
+            Integer maxContentLength) {
+        chatArchiveService.ensureHot(requireSession(sessionId, userId));
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+        // 消息 ID 自增，会话内按 ID 排序即按时间排序；InnoDB 二级索引 idx_session_id 末尾带主键，等价于 (session_id, id) 上的范围扫描
+        LambdaQueryWrapper<ChatMessage> wrapper = new LambdaQueryWrapper<ChatMessage>()
+                .select(ChatMessage::getId, ChatMessage::getSessionId, ChatMessage::getRole,
+                        ChatMessage::getContent, ChatMessage::getCreateTime)
+                .eq(ChatMessage::getSessionId, sessionId)
+                .orderByDesc(ChatMessage::getId)
+                .last("LIMIT " + (pageSize + 1));
+        if (StringUtils.hasText(cursor)) {
+            wrapper.lt(ChatMessage::getId, decodeCursor(cursor));
+        }
+        List<ChatMessage> rows = messageMapper.selectList(wrapper);
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            nextCursor = encodeCursor(rows.get(rows.size() - 1).getId());
+        }
+
+        // 只查询哪些消息带引用，引用正文按需加载
+        Set<Long> withCitations = rows.isEmpty() ? Set.of()
+                : messageMapper.selectList(new LambdaQueryWrapper<ChatMessage>()
+                        .select(ChatMessage::getId)
+                        .in(ChatMessage::getId, rows.stream().map(ChatMessage::getId).toList())
+                        .isNotNull(ChatMessage::getCitations)
+                        .ne(ChatMessage::getCitations, ""))
+                        .stream().map(ChatMessage::getId).collect(Collectors.toSet());
+
+        List<ChatMessageVo> records = new ArrayList<>(rows.size());
+        for (ChatMessage row : rows) {
+            records.add(toVo(row, withCitations.contains(row.getId()), maxContentLength));
+        }
+        return CursorPage.of(records, nextCursor, null);
+    }
+
+    @Override
+    public String getMessageCitations(Long messageId, Long userId) {
+        ChatMessage message = messageMapper.selectOne(new LambdaQueryWrapper<ChatMessage>()
+                .select(ChatMessage::getId, ChatMessage::getSessionId, ChatMessage::getCitations)
+                .eq(ChatMessage::getId, messageId));
+        if (message == null) {
+            throw new BizException(ResultCode.NOT_FOUND, "消息不存在");
+        }
+        requireSession(message.getSessionId(), userId);
+        return message.getCitations();
+    }
+
+    private ChatSession requireSession(Long sessionId, Long userId) {
+        ChatSession session = sessionMapper.selectById(sessionId);
+        if (session == null || !session.getUserId().equals(userId)) {
+            throw new BizException(ResultCode.NOT_FOUND, "会话不存在或无权访问");
+        }
+        return session;
+    }
+
+    private static ChatMessageVo toVo(ChatMessage message, boolean hasCitations, Integer maxContentLength) {
+        ChatMessageVo vo = new ChatMessageVo();
+        vo.setId(message.getId());
+        vo.setSessionId(message.getSessionId());
+        vo.setRole(message.getRole());
+        vo.setCreateTime(message.getCreateTime());
+        vo.setHasCitations(hasCitations);
+
+        String content = message.getContent() != null ? message.getContent() : "";
+        vo.setContentLength(content.length());
+        if (maxContentLength != null && maxContentLength > 0 && content.length() > maxContentLength) {
+            int end = maxContentLength;
+            // 不把代理对切成两半
+            if (Character.isHighSurrogate(content.charAt(end - 1))) {
+                end--;
+            }
+            vo.setContent(content.substring(0, end));
+            vo.setTruncated(true);
+        } else {
+            vo.setContent(content);
+        }
+        return vo;
+    }
+
+    /**
+     * 游标格式：Base64URL(id)，对客户端不透明
+     */
+    private static String encodeCursor(Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.valueOf(id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Long decodeCursor(String cursor) {
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            throw new BizException(ResultCode.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
     @Override
     @Transactional(rollbackFor = Exception.class)
     public SseEmitter streamChat(Long userId, Long sessionId, String content) {
@@ -83,15 +204,22 @@ public class ChatServiceImpl implements ChatService {
             String title = content.length() > 20 ? content.substring(0, 17) + "..." : content;
             session.setTitle(title);
             sessionMapper.insert(session);
+            chatSessionIndex.onSaved(session);
             finalSessionId = session.getId();
         } else {
             finalSessionId = sessionId;
             // Check if it's the first message to update title if it's still default
             ChatSession session = sessionMapper.selectById(sessionId);
+            if (session != null) {
+                // Continuing an archived session: restore its history before appending
+                chatArchiveService.ensureHot(session);
+            }
             if (session != null && "新会话".equals(session.getTitle())) {
                 String title = content.length() > 20 ? content.substring(0, 17) + "..." : content;
                 session.setTitle(title);
                 sessionMapper.updateById(session);
+                // 只改标题；活跃时间在保存用户消息后更新
+                chatSessionIndex.onRenamed(session);
             }
         }
 
@@ -111,15 +239,14 @@ public class ChatServiceImpl implements ChatService {
                 userMsg.setRole("user");
                 userMsg.setContent(content);
                 messageMapper.insert(userMsg);
+                chatSearchIndex.onSaved(userId, userMsg);
 
-                // Update session update_time to bring it to top
-                ChatSession sessionUpdate = new ChatSession();
-                sessionUpdate.setId(finalSessionId);
-                sessionUpdate.setUpdateTime(LocalDateTime.now());
-                sessionMapper.updateById(sessionUpdate);
+                // Bring the session to top; update_time is written back in batches
+                chatSessionIndex.touch(userId, finalSessionId);
 
                 // 3. Get Chat History for context
                 List<ChatMessage> history = messageMapper.selectList(new LambdaQueryWrapper<ChatMessage>()
+                        .select(ChatMessage::getId, ChatMessage::getRole, ChatMessage::getContent)
                         .eq(ChatMessage::getSessionId, finalSessionId)
                         .orderByAsc(ChatMessage::getCreateTime));
 
@@ -201,12 +328,10 @@ public class ChatServiceImpl implements ChatService {
                         aiMsg.setCitations(citationsJson[0]);
                     }
                     messageMapper.insert(aiMsg);
+                    chatSearchIndex.onSaved(userId, aiMsg);
 
-                    // Update session update_time again after AI responds
-                    ChatSession sessionUpdateFinal = new ChatSession();
-                    sessionUpdateFinal.setId(finalSessionId);
-                    sessionUpdateFinal.setUpdateTime(LocalDateTime.now());
-                    sessionMapper.updateById(sessionUpdateFinal);
+                    // Touch the session again after AI responds
+                    chatSessionIndex.touch(userId, finalSessionId);
 
                     emitter.complete();
                 }
@@ -226,9 +351,12 @@ public class ChatServiceImpl implements ChatService {
 
     @Override
     public List<ChatSession> getSessions(Long userId) {
-        return sessionMapper.selectList(new LambdaQueryWrapper<ChatSession>()
-                .eq(ChatSession::getUserId, userId)
-                .orderByDesc(ChatSession::getUpdateTime));
+        return chatSessionIndex.list(userId);
+    }
+
+    @Override
+    public CursorPage<ChatSession> getSessionsPage(Long userId, String cursor, int size) {
+        return chatSessionIndex.page(userId, cursor, size);
     }
 
     @Override
@@ -238,11 +366,19 @@ public class ChatServiceImpl implements ChatService {
         if (session == null || !session.getUserId().equals(userId)) {
             throw new RuntimeException("会话不存在或无权访问");
         }
-        // Delete messages first
-        messageMapper.delete(new LambdaQueryWrapper<ChatMessage>()
-                .eq(ChatMessage::getSessionId, sessionId));
-        // Delete session
+        List<Long> messageIds = new ArrayList<>(messageMapper.selectList(new LambdaQueryWrapper<ChatMessage>()
+                .select(ChatMessage::getId)
+                .eq(ChatMessage::getSessionId, sessionId))
+                .stream().map(ChatMessage::getId).toList());
+        // 已归档的消息也在搜索索引中
+        messageIds.addAll(chatArchiveService.archivedMessageIds(session));
+        // Tombstone the session only; messages are purged in background batches
         sessionMapper.deleteById(sessionId);
+        TransactionHooks.afterCommit(() -> {
+            chatSearchIndex.onDeleted(userId, messageIds);
+            chatSessionIndex.onDeleted(userId, sessionId);
+            chatPurgeService.wakeUp();
+        });
     }
 
     @Override
@@ -254,6 +390,8 @@ public class ChatServiceImpl implements ChatService {
         }
         session.setTitle(title);
         sessionMapper.updateById(session);
+        // 改名不改变会话在侧边栏中的位置
+        TransactionHooks.afterCommit(() -> chatSessionIndex.onRenamed(session));
     }
 
     @Override
@@ -266,6 +404,7 @@ public class ChatServiceImpl implements ChatService {
         if (session == null || !session.getUserId().equals(userId)) {
             throw new RuntimeException("会话不存在或无权访问");
         }
+        chatArchiveService.ensureHot(session);
 
         // 1. Get IDs of the last N messages
         List<ChatMessage> messagesToDelete = messageMapper.selectList(new LambdaQueryWrapper<ChatMessage>()
@@ -280,5 +419,6 @@ public class ChatServiceImpl implements ChatService {
 
         // 2. Delete them
         messageMapper.deleteBatchIds(ids);
+        chatSearchIndex.onDeleted(userId, ids);
     }
 }
@@ -0,0 +1,252 @@
+package com.uni.research.module.doc.citation;
+
+/**
+ * Author list formatting rules of each citation style
+ * 
+ * 作者列以逗号分隔、"名 姓" 顺序存储（见 CitationEntry.normalizeName）。
+ * 这里按下标扫描原字符串直接写入输出缓冲区，不做 split，渲染时不产生中间字符串。
+ * 含中日韩文字的姓名按原样输出。
+ */
+public enum AuthorFormat {
+
+    /**
+     * APA 7: Vaswani, A., Shazeer, N., & Parmar, N.
+     */
+    APA {
+        @Override
+        void appendList(String authors, int count, StringBuilder out) {
+            int[] bounds = new int[2];
+            int pos = 0;
+            for (int i = 0; i < count; i++) {
+                pos = nextName(authors, pos, bounds);
+                if (count > 20 && i >= 19 && i < count - 1) {
+                    if (i == 19) {
+                        out.append(", . . . ");
+                    }
+                    continue;
+                }
+                if (i > 0 && !(count > 20 && i == count - 1)) {
+                    out.append(i == count - 1 ? ", & " : ", ");
+                }
+                appendFamilyInitials(authors, bounds[0], bounds[1], true, out);
+            }
+        }
+    },
+
+    /**
+     * MLA 9: Vaswani, Ashish, et al.
+     */
+    MLA {
+        @Override
+        void appendList(String authors, int count, StringBuilder out) {
+            int[] bounds = new int[2];
+            int pos = nextName(authors, 0, bounds);
+            appendFamilyFirst(authors, bounds[0], bounds[1], out);
+            if (count == 2) {
+                nextName(authors, pos, bounds);
+                out.append(", and ").append(authors, bounds[0], bounds[1]);
+            } else if (count > 2) {
+                out.append(", et al.");
+            }
+        }
+    },
+
+    /**
+     * IEEE: A. Vaswani, N. Shazeer, and N. Parmar
+     */
+    IEEE {
+        @Override
+        void appendList(String authors, int count, StringBuilder out) {
+            int[] bounds = new int[2];
+            int pos = 0;
+            int shown = count > 6 ? 1 : count;
+            for (int i = 0; i < shown; i++) {
+                pos = nextName(authors, pos, bounds);
+                if (i > 0) {
+                    out.append(count == 2 ? " and " : (i == count - 1 ? ", and " : ", "));
+                }
+                appendInitialsFamily(authors, bounds[0], bounds[1], out);
+            }
+            if (shown < count) {
+                out.append(" et al.");
+            }
+        }
+    },
+
+    /**
+     * GB/T 7714-2015: VASWANI A, SHAZEER N, PARMAR N, et al. / 张三, 李四, 王五, 等
+     */
+    GB_T_7714 {
+        @Override
+        void appendList(String authors, int count, StringBuilder out) {
+            int[] bounds = new int[2];
+            int pos = 0;
+            boolean cjk = false;
+            int shown = Math.min(count, 3);
+            for (int i = 0; i < shown; i++) {
+                pos = nextName(authors, pos, bounds);
+                if (i == 0) {
+                    cjk = containsCjk(authors, bounds[0], bounds[1]);
+                } else {
+                    out.append(", ");
+                }
+                appendFamilyInitials(authors, bounds[0], bounds[1], false, out);
+            }
+            if (count > 3) {
+                out.append(cjk ? ", 等" : ", et al.");
+            }
+        }
+    };
+
+    abstract void appendList(String authors, int count, StringBuilder out);
+
+    /**
+     * @return false when there are no authors
+     */
+    public boolean append(String authors, StringBuilder out) {
+        int count = countNames(authors);
+        if (count == 0) {
+            return false;
+        }
+        appendList(authors, count, out);
+        return true;
+    }
+
+    static int countNames(String authors) {
+        if (authors == null) {
+            return 0;
+        }
+        int count = 0;
+        boolean content = false;
+        for (int i = 0; i < authors.length(); i++) {
+            char c = authors.charAt(i);
+            if (c == ',') {
+                if (content) {
+                    count++;
+                }
+                content = false;
+            } else if (!Character.isWhitespace(c)) {
+                content = true;
+            }
+        }
+        return content ? count + 1 : count;
+    }
+
+    /**
+     * Finds the next non-empty name starting at from; writes trimmed [start, end) to bounds
+     *
+     * @return position to continue from
+     */
+    static int nextName(String authors, int from, int[] bounds) {
+        int i = from;
+        while (true) {
+            int end = authors.indexOf(',', i);
+            if (end < 0) {
+                end = authors.length();
+            }
+            int s = i;
+            int e = end;
+            while (s < e && Character.isWhitespace(authors.charAt(s))) {
+                s++;
+            }
+            while (e > s && Character.isWhitespace(authors.charAt(e - 1))) {
+                e--;
+            }
+            i = end + 1;
+            if (s < e || end >= authors.length()) {
+                bounds[0] = s;
+                bounds[1] = e;
+                return i;
+            }
+        }
+    }
+
+    /**
+     * "Ashish Vaswani" -> "Vaswani, A." (APA) / "VASWANI A" (GB/T)
+     */
+    static void appendFamilyInitials(String a, int s, int e, boolean apa, StringBuilder out) {
+        if (containsCjk(a, s, e)) {
+            out.append(a, s, e);
+            return;
+        }
+        int familyStart = familyStart(a, s, e);
+        if (apa) {
+            out.append(a, familyStart, e);
+        } else {
+            for (int i = familyStart; i < e; i++) {
+                out.append(Character.toUpperCase(a.charAt(i)));
+            }
+        }
+        boolean first = true;
+        for (int i = s; i < familyStart; i++) {
+            char c = a.charAt(i);
+            if (!Character.isWhitespace(c) && (i == s || Character.isWhitespace(a.charAt(i - 1)))) {
+                if (apa) {
+                    out.append(first ? ", " : " ").append(c).append('.');
+                } else {
+                    out.append(' ').append(c);
+                }
+                first = false;
+            }
+        }
+    }
+
+    /**
+     * "Ashish Vaswani" -> "Vaswani, Ashish"
+     */
+    static void appendFamilyFirst(String a, int s, int e, StringBuilder out) {
+        if (containsCjk(a, s, e)) {
+            out.append(a, s, e);
+            return;
+        }
+        int familyStart = familyStart(a, s, e);
+        out.append(a, familyStart, e);
+        if (familyStart > s) {
+            int givenEnd = familyStart;
+            while (givenEnd > s && Character.isWhitespace(a.charAt(givenEnd - 1))) {
+                givenEnd--;
+            }
+            out.append(", ").append(a, s, givenEnd);
+        }
+    }
+
+    /**
+     * "Ashish Vaswani" -> "A. Vaswani"
+     */
+    static void appendInitialsFamily(String a, int s, int e, StringBuilder out) {
+        if (containsCjk(a, s, e)) {
+            out.append(a, s, e);
+            return;
+        }
+        int familyStart = familyStart(a, s, e);
+        for (int i = s; i < familyStart; i++) {
+            char c = a.charAt(i);
+            if (!Character.isWhitespace(c) && (i == s || Character.isWhitespace(a.charAt(i - 1)))) {
+                out.append(c).append(". ");
+            }
+        }
+        out.append(a, familyStart, e);
+    }
+
+    /**
+     * Family name is the last whitespace-separated token
+     */
+    private static int familyStart(String a, int s, int e) {
+        int i = e;
+        while (i > s && !Character.isWhitespace(a.charAt(i - 1))) {
+            i--;
+        }
+        return i;
+    }
+
+    private static boolean containsCjk(String a, int s, int e) {
+        for (int i = s; i < e; i++) {
+            Character.UnicodeScript script = Character.UnicodeScript.of(a.charAt(i));
+            if (script == Character.UnicodeScript.HAN || script == Character.UnicodeScript.HIRAGANA
+                    || script == Character.UnicodeScript.KATAKANA || script == Character.UnicodeScript.HANGUL) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,315 @@
+package com.uni.research.module.doc.citation;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Streaming BibTeX parser
+ * 
+ * 单字符前看的递归下降解析：每次只解析一个 @entry，字段值按花括号 / 引号配对读取，
+ * 支持 # 拼接和 @string 宏。遇到格式错误的条目时跳到下一个 '@' 继续，不影响后续条目。
+ */
+public class BibTeXReader implements CitationReader {
+
+    private static final int EOF = -1;
+    private static final int NONE = -2;
+    private static final int MAX_VALUE_LENGTH = 64 * 1024;
+
+    private final Reader in;
+    private final Map<String, String> macros = new HashMap<>();
+    private final StringBuilder buffer = new StringBuilder(256);
+    private int peeked = NONE;
+    private int malformedCount;
+
+    public BibTeXReader(Reader reader) {
+        this.in = reader instanceof BufferedReader ? reader : new BufferedReader(reader, 64 * 1024);
+    }
+
+    @Override
+    public CitationEntry next() throws IOException {
+        while (skipTo('@')) {
+            String type = readIdentifier().toLowerCase();
+            skipWhitespace();
+            int open = read();
+            if (open != '{' && open != '(') {
+                continue;
+            }
+            int close = open == '{' ? '}' : ')';
+
+            if ("comment".equals(type) || "preamble".equals(type)) {
+                skipBalanced(open, close);
+                continue;
+            }
+            if ("string".equals(type)) {
+                readMacro(close);
+                continue;
+            }
+
+            Map<String, String> fields = readFields(close);
+            if (fields == null) {
+                malformedCount++;
+                continue;
+            }
+            return toEntry(type, fields);
+        }
+        return null;
+    }
+
+    @Override
+    public int getMalformedCount() {
+        return malformedCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Reads "key, name = value, ..." up to the closing delimiter; null when malformed
+     */
+    private Map<String, String> readFields(int close) throws IOException {
+        Map<String, String> fields = new HashMap<>();
+        buffer.setLength(0);
+        int c;
+        while ((c = peek()) != ',' && c != close && c != EOF) {
+            if (c == '=' || c == '@') {
+                // entry without a citation key, or a truncated entry
+                return null;
+            }
+            append((char) read());
+        }
+        fields.put("$key", buffer.toString().trim());
+
+        while (true) {
+            skipWhitespace();
+            c = peek();
+            if (c == EOF || c == close) {
+                read();
+                return fields;
+            }
+            if (c == ',') {
+                read();
+                continue;
+            }
+            String name = readIdentifier().toLowerCase();
+            skipWhitespace();
+            if (name.isEmpty() || read() != '=') {
+                return null;
+            }
+            String value = readValue(close);
+            if (value == null) {
+                return null;
+            }
+            fields.put(name, value);
+        }
+    }
+
+    private void readMacro(int close) throws IOException {
+        skipWhitespace();
+        String name = readIdentifier().toLowerCase();
+        skipWhitespace();
+        if (!name.isEmpty() && read() == '=') {
+            String value = readValue(close);
+            if (value != null) {
+                macros.put(name, value);
+            }
+        }
+        skipTo(close);
+    }
+
+    /**
+     * value := part ('#' part)*, part := {braced} | "quoted" | number | macro
+     */
+    private String readValue(int close) throws IOException {
+        buffer.setLength(0);
+        while (true) {
+            skipWhitespace();
+            int c = peek();
+            if (c == '{') {
+                read();
+                if (!readDelimited('}')) {
+                    return null;
+                }
+            } else if (c == '"') {
+                read();
+                if (!readDelimited('"')) {
+                    return null;
+                }
+            } else if (c != EOF && c != close && c != ',') {
+                String word = readIdentifier();
+                if (word.isEmpty()) {
+                    return null;
+                }
+                String macro = macros.get(word.toLowerCase());
+                append(macro != null ? macro : word);
+            } else {
+                return null;
+            }
+            skipWhitespace();
+            if (peek() == '#') {
+                read();
+                continue;
+            }
+            return clean(buffer);
+        }
+    }
+
+    /**
+     * Reads until the terminator at brace depth 0; nested braces are kept and stripped by clean()
+     */
+    private boolean readDelimited(int terminator) throws IOException {
+        int depth = 0;
+        int prev = 0;
+        while (true) {
+            int c = read();
+            if (c == EOF) {
+                return false;
+            }
+            if (prev != '\\') {
+                if (c == terminator && depth == 0) {
+                    return true;
+                }
+                if (c == '{') {
+                    depth++;
+                } else if (c == '}') {
+                    depth--;
+                }
+            }
+            append((char) c);
+            prev = c;
+        }
+    }
+
+    private CitationEntry toEntry(String type, Map<String, String> fields) {
+        CitationEntry entry = new CitationEntry();
+        entry.setType(type);
+        entry.setKey(fields.get("$key"));
+        entry.setTitle(fields.get("title"));
+
+        String authors = fields.get("author");
+        if (authors != null) {
+            for (String author : authors.split("\\s+(?i:and)\\s+")) {
+                if (!author.isBlank()) {
+                    entry.getAuthors().add(CitationEntry.normalizeName(author));
+                }
+            }
+        }
+
+        String journal = fields.get("journal");
+        if (journal == null) {
+            journal = fields.get("journaltitle");
+        }
+        if (journal == null) {
+            journal = fields.get("booktitle");
+        }
+        entry.setJournal(journal);
+
+        String year = fields.get("year");
+        entry.setYear(CitationEntry.parseYear(year != null ? year : fields.get("date")));
+        entry.setVolume(fields.get("volume"));
+        String pages = fields.get("pages");
+        entry.setPages(pages != null ? pages.replace("--", "-") : null);
+        entry.setDoi(CitationEntry.normalizeDoi(fields.get("doi")));
+        entry.setPublisher(fields.get("publisher"));
+        return entry;
+    }
+
+    /**
+     * Remove grouping braces, unescape LaTeX specials and collapse whitespace
+     */
+    private static String clean(CharSequence raw) {
+        StringBuilder out = new StringBuilder(raw.length());
+        boolean space = false;
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c == '\\' && i + 1 < raw.length() && "{}&%$_#".indexOf(raw.charAt(i + 1)) >= 0) {
+                if (space) {
+                    out.append(' ');
+                    space = false;
+                }
+                out.append(raw.charAt(++i));
+            } else if (c == '{' || c == '}') {
+                continue;
+            } else if (Character.isWhitespace(c)) {
+                space = out.length() > 0;
+            } else {
+                if (space) {
+                    out.append(' ');
+                    space = false;
+                }
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    private void append(CharSequence s) {
+        int room = MAX_VALUE_LENGTH - buffer.length();
+        if (room > 0) {
+            buffer.append(s, 0, Math.min(room, s.length()));
+        }
+    }
+
+    private void append(char c) {
+        if (buffer.length() < MAX_VALUE_LENGTH) {
+            buffer.append(c);
+        }
+    }
+
+    private String readIdentifier() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int c;
+        while ((c = peek()) != EOF && (Character.isLetterOrDigit(c) || "_-:.+/'".indexOf(c) >= 0)) {
+            sb.append((char) read());
+        }
+        return sb.toString();
+    }
+
+    private void skipBalanced(int open, int close) throws IOException {
+        int depth = 1;
+        int c;
+        while (depth > 0 && (c = read()) != EOF) {
+            if (c == open) {
+                depth++;
+            } else if (c == close) {
+                depth--;
+            }
+        }
+    }
+
+    private boolean skipTo(int target) throws IOException {
+        int c;
+        while ((c = read()) != EOF) {
+            if (c == target) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void skipWhitespace() throws IOException {
+        while (peek() != EOF && Character.isWhitespace(peek())) {
+            read();
+        }
+    }
+
+    private int peek() throws IOException {
+        if (peeked == NONE) {
+            peeked = in.read();
+        }
+        return peeked;
+    }
+
+    private int read() throws IOException {
+        if (peeked != NONE) {
+            int c = peeked;
+            peeked = NONE;
+            return c;
+        }
+        return in.read();
+    }
+}
@@ -0,0 +1,109 @@
+package com.uni.research.module.doc.citation;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * One parsed reference, normalized from BibTeX or RIS
+ */
+@Data
+public class CitationEntry {
+
+    /**
+     * Entry type as written in the source (article, inproceedings, JOUR...)
+     */
+    private String type;
+
+    /**
+     * BibTeX citation key (null for RIS)
+     */
+    private String key;
+
+    private String title;
+
+    /**
+     * Author names in "First Last" order
+     */
+    private List<String> authors = new ArrayList<>();
+
+    private String journal;
+
+    private Integer year;
+
+    private String volume;
+
+    private String pages;
+
+    private String doi;
+
+    private String publisher;
+
+    /**
+     * "Vaswani, Ashish" -> "Ashish Vaswani"; names are stored comma-separated,
+     * so the BibTeX/RIS "Last, First" order must not leak into the column
+     */
+    public static String normalizeName(String name) {
+        if (name == null) {
+            return null;
+        }
+        String trimmed = name.trim();
+        int comma = trimmed.indexOf(',');
+        if (comma < 0) {
+            return trimmed;
+        }
+        String last = trimmed.substring(0, comma).trim();
+        String rest = trimmed.substring(comma + 1).trim();
+        int secondComma = rest.indexOf(',');
+        if (secondComma >= 0) {
+            // "Last, Jr., First"
+            String suffix = rest.substring(0, secondComma).trim();
+            String first = rest.substring(secondComma + 1).trim();
+            return (first + " " + last + " " + suffix).trim();
+        }
+        return (rest + " " + last).trim();
+    }
+
+    /**
+     * Strip resolver prefixes and lowercase (DOIs are case-insensitive), so
+     * "https://doi.org/10.1/X" and "10.1/x" are stored and looked up as the same key
+     */
+    public static String normalizeDoi(String doi) {
+        if (doi == null) {
+            return null;
+        }
+        String value = doi.trim();
+        String lower = value.toLowerCase();
+        for (String prefix : new String[] { "https://doi.org/", "http://doi.org/", "https://dx.doi.org/",
+                "http://dx.doi.org/", "doi:" }) {
+            if (lower.startsWith(prefix)) {
+                value = value.substring(prefix.length()).trim();
+                break;
+            }
+        }
+        return value.isEmpty() ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * First four-digit number in the text ("2019-05-01", "2019/", "May 2019")
+     */
+    public static Integer parseYear(String text) {
+        if (text == null) {
+            return null;
+        }
+        int run = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.isDigit(text.charAt(i))) {
+                run++;
+                if (run == 4 && (i + 1 == text.length() || !Character.isDigit(text.charAt(i + 1)))) {
+                    return Integer.parseInt(text.substring(i - 3, i + 1));
+                }
+            } else {
+                run = 0;
+            }
+        }
+        return null;
+    }
+}
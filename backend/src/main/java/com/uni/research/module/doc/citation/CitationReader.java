@@ -0,0 +1,21 @@
+package com.uni.research.module.doc.citation;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Pull-style reader over a reference library file.
+ * Only the current entry is held in memory, so arbitrarily large exports can be imported.
+ */
+public interface CitationReader extends Closeable {
+
+    /**
+     * @return next entry, or null at end of input
+     */
+    CitationEntry next() throws IOException;
+
+    /**
+     * @return number of entries skipped because they could not be parsed
+     */
+    int getMalformedCount();
+}
@@ -0,0 +1,190 @@
+package com.uni.research.module.doc.citation;
+
+import com.uni.research.module.doc.entity.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compiled citation style
+ * 
+ * 对应 408 考点：编译原理 - 词法 / 语法分析；设计模式 - 解释器模式
+ * 
+ * 设计思路：
+ * 1. 样式用一个类似 CSL 的模板描述，启动时只编译一次成片段数组，之后所有渲染共享
+ * 2. 模板语法：
+ *    - {field}：字段（authors / title / journal / year / volume / pages / doi / publisher）
+ *    - [ ... ]：可选组，组内任一字段为空则整组不输出
+ *    - \x：转义，用于输出字面量 [ ] { } \（如 GB/T 7714 的 "\[J\]"）
+ * 3. 渲染直接写入调用方的 StringBuilder；可选组先记录长度，字段缺失时 setLength 回滚，
+ *    整个过程不产生中间字符串
+ * 4. 以 '.' 开头的字面量紧跟在 . ? ! 之后时跳过这个点，避免 "Title?." 之类的重复标点
+ */
+public final class CitationStyle {
+
+    private final String name;
+    private final Segment[] segments;
+    private final AuthorFormat authorFormat;
+
+    private CitationStyle(String name, Segment[] segments, AuthorFormat authorFormat) {
+        this.name = name;
+        this.segments = segments;
+        this.authorFormat = authorFormat;
+    }
+
+    /**
+     * 编译样式模板
+     *
+     * @throws IllegalArgumentException 模板语法错误
+     */
+    public static CitationStyle compile(String name, String template, AuthorFormat authorFormat) {
+        int[] pos = { 0 };
+        List<Segment> segments = parse(template, pos, false);
+        return new CitationStyle(name, segments.toArray(new Segment[0]), authorFormat);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String format(Document doc) {
+        StringBuilder out = new StringBuilder(256);
+        render(doc, out);
+        return out.toString();
+    }
+
+    public void render(Document doc, StringBuilder out) {
+        for (Segment segment : segments) {
+            segment.render(this, doc, out);
+        }
+    }
+
+    private static List<Segment> parse(String template, int[] pos, boolean inGroup) {
+        List<Segment> segments = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        while (pos[0] < template.length()) {
+            char c = template.charAt(pos[0]++);
+            if (c == '\\') {
+                if (pos[0] >= template.length()) {
+                    throw new IllegalArgumentException("Dangling escape in template: " + template);
+                }
+                literal.append(template.charAt(pos[0]++));
+            } else if (c == '{') {
+                int end = template.indexOf('}', pos[0]);
+                if (end < 0) {
+                    throw new IllegalArgumentException("Unclosed field in template: " + template);
+                }
+                flushLiteral(literal, segments);
+                segments.add(new FieldSegment(Field.of(template.substring(pos[0], end))));
+                pos[0] = end + 1;
+            } else if (c == '[') {
+                flushLiteral(literal, segments);
+                segments.add(new GroupSegment(parse(template, pos, true).toArray(new Segment[0])));
+            } else if (c == ']') {
+                if (!inGroup) {
+                    throw new IllegalArgumentException("Unbalanced ']' in template: " + template);
+                }
+                flushLiteral(literal, segments);
+                return segments;
+            } else {
+                literal.append(c);
+            }
+        }
+        if (inGroup) {
+            throw new IllegalArgumentException("Unclosed group in template: " + template);
+        }
+        flushLiteral(literal, segments);
+        return segments;
+    }
+
+    private static void flushLiteral(StringBuilder literal, List<Segment> segments) {
+        if (literal.length() > 0) {
+            segments.add(new LiteralSegment(literal.toString()));
+            literal.setLength(0);
+        }
+    }
+
+    /**
+     * @return false when a referenced field is empty (group will roll back)
+     */
+    private interface Segment {
+        boolean render(CitationStyle style, Document doc, StringBuilder out);
+    }
+
+    private record LiteralSegment(String text) implements Segment {
+        @Override
+        public boolean render(CitationStyle style, Document doc, StringBuilder out) {
+            int len = out.length();
+            if (text.charAt(0) == '.' && len > 0) {
+                char last = out.charAt(len - 1);
+                if (last == '.' || last == '?' || last == '!') {
+                    out.append(text, 1, text.length());
+                    return true;
+                }
+            }
+            out.append(text);
+            return true;
+        }
+    }
+
+    private record GroupSegment(Segment[] children) implements Segment {
+        @Override
+        public boolean render(CitationStyle style, Document doc, StringBuilder out) {
+            int mark = out.length();
+            for (Segment child : children) {
+                if (!child.render(style, doc, out)) {
+                    out.setLength(mark);
+                    return true;
+                }
+            }
+            return true;
+        }
+    }
+
+    private record FieldSegment(Field field) implements Segment {
+        @Override
+        public boolean render(CitationStyle style, Document doc, StringBuilder out) {
+            switch (field) {
+                case AUTHORS:
+                    return style.authorFormat.append(doc.getAuthors(), out);
+                case YEAR:
+                    if (doc.getPublicationYear() == null) {
+                        return false;
+                    }
+                    out.append(doc.getPublicationYear().intValue());
+                    return true;
+                default:
+                    String value = field.value(doc);
+                    if (value == null || value.isEmpty()) {
+                        return false;
+                    }
+                    out.append(value);
+                    return true;
+            }
+        }
+    }
+
+    private enum Field {
+        AUTHORS, TITLE, JOURNAL, YEAR, VOLUME, PAGES, DOI, PUBLISHER;
+
+        static Field of(String name) {
+            try {
+                return valueOf(name.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown citation field: " + name);
+            }
+        }
+
+        String value(Document doc) {
+            return switch (this) {
+                case TITLE -> doc.getTitle();
+                case JOURNAL -> doc.getJournal();
+                case VOLUME -> doc.getVolume();
+                case PAGES -> doc.getPages();
+                case DOI -> doc.getDoi();
+                case PUBLISHER -> doc.getPublisher();
+                default -> null;
+            };
+        }
+    }
+}
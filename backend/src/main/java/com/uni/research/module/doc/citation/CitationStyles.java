@@ -0,0 +1,54 @@
+package com.uni.research.module.doc.citation;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Built-in citation styles, compiled once at class load
+ */
+public final class CitationStyles {
+
+    public static final CitationStyle APA = CitationStyle.compile("apa",
+            "[{authors} ][({year}). ]{title}.[ {journal}][, {volume}][, {pages}].[ https://doi.org/{doi}]",
+            AuthorFormat.APA);
+
+    public static final CitationStyle MLA = CitationStyle.compile("mla",
+            "[{authors}. ]\"{title}.\"[ {journal}][, vol. {volume}][, {year}][, pp. {pages}].",
+            AuthorFormat.MLA);
+
+    public static final CitationStyle IEEE = CitationStyle.compile("ieee",
+            "[{authors}, ]\"{title},\"[ {journal}][, vol. {volume}][, pp. {pages}][, {year}][, doi: {doi}].",
+            AuthorFormat.IEEE);
+
+    public static final CitationStyle GB_T_7714 = CitationStyle.compile("gbt7714",
+            "[{authors}. ]{title}\\[J\\].[ {journal},][ {year}][, {volume}][: {pages}].[ DOI: {doi}.]",
+            AuthorFormat.GB_T_7714);
+
+    private static final Map<String, CitationStyle> STYLES = Map.of(
+            "apa", APA,
+            "mla", MLA,
+            "ieee", IEEE,
+            "gbt7714", GB_T_7714,
+            "gb/t7714", GB_T_7714,
+            "gb7714", GB_T_7714);
+
+    private static final List<CitationStyle> ALL = List.of(APA, MLA, IEEE, GB_T_7714);
+
+    private CitationStyles() {
+    }
+
+    public static List<CitationStyle> all() {
+        return ALL;
+    }
+
+    /**
+     * @return compiled style, or null when the name is unknown
+     */
+    public static CitationStyle find(String name) {
+        if (name == null) {
+            return null;
+        }
+        return STYLES.get(name.toLowerCase(Locale.ROOT).replace(" ", "").replace("-", ""));
+    }
+}
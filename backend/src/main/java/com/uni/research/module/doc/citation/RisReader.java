@@ -0,0 +1,115 @@
+package com.uni.research.module.doc.citation;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Streaming RIS parser
+ * 
+ * RIS 是行式格式（"TY  - JOUR" ... "ER  - "），按行读取即可，一次只保留当前记录。
+ */
+public class RisReader implements CitationReader {
+
+    private final BufferedReader in;
+    private int malformedCount;
+    private boolean firstLine = true;
+
+    public RisReader(Reader reader) {
+        this.in = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader, 64 * 1024);
+    }
+
+    @Override
+    public CitationEntry next() throws IOException {
+        CitationEntry entry = null;
+        String startPage = null;
+        String endPage = null;
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (firstLine) {
+                firstLine = false;
+                if (!line.isEmpty() && line.charAt(0) == '\uFEFF') {
+                    line = line.substring(1);
+                }
+            }
+            // "TY  - JOUR": tag in columns 0-1, value after "  - "
+            if (line.length() < 5 || line.charAt(4) != '-') {
+                continue;
+            }
+            String tag = line.substring(0, 2).toUpperCase();
+            String value = line.length() > 6 ? line.substring(6).trim() : "";
+
+            if ("TY".equals(tag)) {
+                if (entry != null) {
+                    // previous record never reached ER
+                    malformedCount++;
+                }
+                entry = new CitationEntry();
+                entry.setType(value);
+                startPage = null;
+                endPage = null;
+                continue;
+            }
+            if (entry == null) {
+                continue;
+            }
+
+            switch (tag) {
+                case "AU", "A1" -> {
+                    if (!value.isEmpty()) {
+                        entry.getAuthors().add(CitationEntry.normalizeName(value));
+                    }
+                }
+                case "TI", "T1" -> {
+                    if (entry.getTitle() == null) {
+                        entry.setTitle(value);
+                    }
+                }
+                case "JO", "JF", "T2", "JA", "J2" -> {
+                    if (entry.getJournal() == null) {
+                        entry.setJournal(value);
+                    }
+                }
+                case "PY", "Y1", "DA" -> {
+                    if (entry.getYear() == null) {
+                        entry.setYear(CitationEntry.parseYear(value));
+                    }
+                }
+                case "VL" -> entry.setVolume(value);
+                case "SP" -> startPage = value;
+                case "EP" -> endPage = value;
+                case "DO" -> entry.setDoi(CitationEntry.normalizeDoi(value));
+                case "PB" -> entry.setPublisher(value);
+                case "ER" -> {
+                    entry.setPages(joinPages(startPage, endPage));
+                    return entry;
+                }
+                default -> {
+                    // unsupported tag
+                }
+            }
+        }
+        if (entry != null) {
+            // file ended without ER: keep what was parsed
+            entry.setPages(joinPages(startPage, endPage));
+        }
+        return entry;
+    }
+
+    @Override
+    public int getMalformedCount() {
+        return malformedCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private static String joinPages(String start, String end) {
+        if (start == null || start.isEmpty()) {
+            return null;
+        }
+        return end == null || end.isEmpty() ? start : start + "-" + end;
+    }
+}
@@ -1,25 +1,44 @@
 package com.uni.research.module.doc.controller;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.uni.research.common.exception.BizException;
+import com.uni.research.common.result.CursorPage;
 import com.uni.research.common.result.Result;
+import com.uni.research.common.result.ResultCode;
+import com.uni.research.module.doc.dto.ChunkedUploadInitDto;
+import com.uni.research.module.doc.dto.ChunkedUploadVo;
 import com.uni.research.module.doc.dto.DocumentQueryDto;
 import com.uni.research.module.doc.dto.DocumentVo;
+import com.uni.research.module.doc.citation.CitationStyles;
 import com.uni.research.module.doc.entity.Document;
+import com.uni.research.module.doc.service.CitationCache;
 import com.uni.research.module.doc.service.CitationService;
 import com.uni.research.module.doc.service.DocumentService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.tomcat.util.http.fileupload.IOUtils;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Slf4j
@@ -31,6 +50,7 @@ public class DocumentController {
 
     private final DocumentService documentService;
     private final CitationService citationService;
+    private final CitationCache citationCache;
 
     @Operation(summary = "Upload Document")
     @PostMapping(value = "/upload", consumes = "multipart/form-data")
@@ -38,28 +58,100 @@ public class DocumentController {
         return Result.success(documentService.uploadDocument(file));
     }
 
+    @Operation(summary = "Bulk Upload Documents")
+    @PostMapping(value = "/upload/batch", consumes = "multipart/form-data", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter uploadBatch(@RequestParam("files") List<MultipartFile> files) {
+        return documentService.uploadDocuments(files);
+    }
+
+    @Operation(summary = "Init Chunked Upload")
+    @PostMapping("/upload/chunked/init")
+    public Result<ChunkedUploadVo> initChunkedUpload(@RequestBody ChunkedUploadInitDto dto) {
+        return Result.success(documentService.initChunkedUpload(dto));
+    }
+
+    @Operation(summary = "Get Chunked Upload Status")
+    @GetMapping("/upload/chunked/{uploadId}")
+    public Result<ChunkedUploadVo> getChunkedUpload(@PathVariable String uploadId) {
+        return Result.success(documentService.getChunkedUpload(uploadId));
+    }
+
+    @Operation(summary = "Upload Chunk")
+    @PutMapping("/upload/chunked/{uploadId}/{partNumber}")
+    public Result<Boolean> uploadChunk(@PathVariable String uploadId, @PathVariable int partNumber,
+            HttpServletRequest request) throws IOException {
+        // 直接读取原始请求体，分片边读边写入 MinIO
+        documentService.uploadChunk(uploadId, partNumber, request.getInputStream(), request.getContentLengthLong());
+        return Result.success(true);
+    }
+
+    @Operation(summary = "Complete Chunked Upload")
+    @PostMapping("/upload/chunked/{uploadId}/complete")
+    public Result<DocumentVo> completeChunkedUpload(@PathVariable String uploadId) {
+        return Result.success(documentService.completeChunkedUpload(uploadId));
+    }
+
+    @Operation(summary = "Abort Chunked Upload")
+    @DeleteMapping("/upload/chunked/{uploadId}")
+    public Result<Boolean> abortChunkedUpload(@PathVariable String uploadId) {
+        documentService.abortChunkedUpload(uploadId);
+        return Result.success(true);
+    }
+
+    @Operation(summary = "Subscribe Document Events")
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events() {
+        return documentService.subscribeEvents();
+    }
+
+    @Operation(summary = "Import BibTeX/RIS Library")
+    @PostMapping(value = "/import", consumes = "multipart/form-data", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter importLibrary(@RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) String format) {
+        return documentService.importCitations(file, format);
+    }
+
     @Operation(summary = "List Documents")
     @GetMapping("/list")
     public Result<Page<DocumentVo>> list(DocumentQueryDto queryDto) {
         return Result.success(documentService.listDocuments(queryDto));
     }
 
+    @Operation(summary = "List Documents (Cursor)")
+    @GetMapping("/list/cursor")
+    public Result<CursorPage<DocumentVo>> listByCursor(DocumentQueryDto queryDto) {
+        return Result.success(documentService.listDocumentsByCursor(queryDto));
+    }
+
+    @Operation(summary = "Search Documents")
+    @GetMapping("/search")
+    public Result<List<DocumentVo>> search(@RequestParam String q, @RequestParam(defaultValue = "20") Integer k) {
+        return Result.success(documentService.searchDocuments(q, k));
+    }
+
     @Operation(summary = "Download Document")
     @GetMapping("/{id}/download")
-    public void download(@PathVariable Long id, HttpServletResponse response) {
-        // 1. Check permission and get stream (Service throws exception if access
-        // denied)
-        try (InputStream inputStream = documentService.downloadDocument(id)) {
-
-            // 2. Fetch metadata for filename (Access is already verified by step 1)
-            com.uni.research.module.doc.entity.Document doc = documentService.getById(id);
-            String filename = doc != null ? doc.getFileName() : "file_" + id;
+    public void download(@PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            HttpServletResponse response) {
+        // 1. Check permission and open stream (Service throws exception if access
+        // denied); compressed text documents are passed through when the client accepts deflate
+        try (DocumentService.Download download = documentService.openDownload(id, acceptsDeflate(acceptEncoding))) {
+
+            // 2. Metadata for filename comes with the download
+            Document doc = download.document();
+            String filename = doc.getFileName() != null ? doc.getFileName() : "file_" + id;
             String encodedFilename = URLEncoder.encode(filename, StandardCharsets.UTF_8.toString()).replaceAll("\\+",
                     "%20");
 
             response.setContentType("application/octet-stream");
             response.setHeader("Content-Disposition", "attachment; filename*=UTF-8''" + encodedFilename);
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (download.contentEncoding() != null) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, download.contentEncoding());
+            }
 
+            InputStream inputStream = download.stream();
             IOUtils.copy(inputStream, response.getOutputStream());
             response.flushBuffer();
         } catch (Exception e) {
@@ -72,6 +164,36 @@ public class DocumentController {
         }
     }
 
+    /**
+     * Accept-Encoding 中是否包含 deflate（q=0 表示明确拒绝）
+     */
+    private static boolean acceptsDeflate(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            if (!"deflate".equalsIgnoreCase(tokens[0].trim())) {
+                continue;
+            }
+            for (int i = 1; i < tokens.length; i++) {
+                if (tokens[i].replace(" ", "").matches("(?i)q=0(\\.0*)?")) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    @Operation(summary = "Download Documents as ZIP")
+    @GetMapping("/download/zip")
+    public void downloadZip(@RequestParam List<Long> ids, HttpServletResponse response) throws IOException {
+        response.setContentType("application/zip");
+        response.setHeader("Content-Disposition", "attachment; filename=\"documents.zip\"");
+        documentService.downloadZip(ids, response.getOutputStream());
+    }
+
     @Operation(summary = "Delete Document")
     @DeleteMapping("/{id}")
     public Result<Boolean> delete(@PathVariable Long id) {
@@ -82,46 +204,65 @@ public class DocumentController {
     @Operation(summary = "Update Document Metadata")
     @PutMapping("/{id}/metadata")
     public Result<Boolean> updateMetadata(@PathVariable Long id, @RequestBody Document metadata) {
-        Document doc = documentService.getById(id);
-        if (doc == null) {
-            return Result.fail("文档不存在");
-        }
-
-        // Update metadata fields
-        doc.setAuthors(metadata.getAuthors());
-        doc.setPublicationYear(metadata.getPublicationYear());
-        doc.setJournal(metadata.getJournal());
-        doc.setVolume(metadata.getVolume());
-        doc.setPages(metadata.getPages());
-        doc.setDoi(metadata.getDoi());
-        doc.setPublisher(metadata.getPublisher());
-
-        documentService.updateById(doc);
+        documentService.updateMetadata(id, metadata);
         return Result.success(true);
     }
 
     @Operation(summary = "Generate Citation")
     @GetMapping("/{id}/citation")
-    public Result<Map<String, String>> getCitation(@PathVariable Long id,
-            @RequestParam(defaultValue = "bibtex") String format) {
-        Document doc = documentService.getById(id);
-        if (doc == null) {
-            return Result.fail("文档不存在");
+    public ResponseEntity<Result<Map<String, String>>> getCitation(@PathVariable Long id,
+            @RequestParam(defaultValue = "bibtex") String format,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String canonical = citationService.canonicalFormat(format);
+        if (canonical == null) {
+            return ResponseEntity.ok(Result.fail("不支持的格式: " + format));
+        }
+
+        // 只读取元数据版本号，版本未变时直接 304 或命中缓存，不加载完整文档
+        Document head = documentService.getDocumentVersion(id);
+        long version = CitationCache.version(head);
+        String etag = CitationCache.etag(id, version, canonical);
+        if (ifNoneMatch != null && ifNoneMatch.contains(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
         }
 
+        String citation = citationCache.get(id, version, canonical, () -> documentService.getById(id));
+
         Map<String, String> result = new HashMap<>();
+        result.put("format", "ris".equals(canonical) ? "endnote" : canonical);
+        result.put("citation", citation);
+
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(Result.success(result));
+    }
+
+    @Operation(summary = "Export Citations")
+    @GetMapping("/citation/export")
+    public void exportCitations(@RequestParam(defaultValue = "bibtex") String format,
+            @RequestParam(required = false) List<Long> ids, HttpServletResponse response) throws Exception {
+        boolean bibtex = "bibtex".equalsIgnoreCase(format);
+        boolean ris = "ris".equalsIgnoreCase(format) || "endnote".equalsIgnoreCase(format);
+        if (!bibtex && !ris && CitationStyles.find(format) == null) {
+            throw new BizException(ResultCode.BAD_REQUEST, "不支持的格式: " + format);
+        }
 
-        if ("bibtex".equalsIgnoreCase(format)) {
-            result.put("format", "bibtex");
-            result.put("citation", citationService.generateBibTeX(doc));
-        } else if ("endnote".equalsIgnoreCase(format) || "ris".equalsIgnoreCase(format)) {
-            result.put("format", "endnote");
-            result.put("citation", citationService.generateEndNote(doc));
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        if (bibtex || ris) {
+            response.setContentType(bibtex ? "application/x-bibtex" : "application/x-research-info-systems");
+            response.setHeader("Content-Disposition",
+                    "attachment; filename=\"library." + (bibtex ? "bib" : "ris") + "\"");
         } else {
-            return Result.fail("不支持的格式: " + format);
+            // 格式化参考文献列表（APA / MLA / IEEE / GB/T 7714），每行一条
+            response.setContentType("text/plain");
+            response.setHeader("Content-Disposition", "attachment; filename=\"references.txt\"");
         }
 
-        return Result.success(result);
+        Writer writer = new BufferedWriter(
+                new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8), 64 * 1024);
+        documentService.exportCitations(ids, format, writer);
+        writer.flush();
     }
 
     @Operation(summary = "Get Document Detail")
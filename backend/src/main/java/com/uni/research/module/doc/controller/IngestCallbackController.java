@@ -0,0 +1,70 @@
+package com.uni.research.module.doc.controller;
+
+import com.uni.research.common.exception.BizException;
+import com.uni.research.common.result.Result;
+import com.uni.research.common.result.ResultCode;
+import com.uni.research.module.doc.dto.IngestCallbackDto;
+import com.uni.research.module.doc.service.IngestStatusService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Internal callback for the AI service
+ * 
+ * 不走 JWT 认证（SecurityConfig 放行 /internal/**），改用共享令牌校验；
+ * 令牌没有默认值，未配置或仍是旧的示例值时启动失败，避免以公开的令牌对外暴露回调接口
+ */
+@Tag(name = "Internal Callback")
+@RestController
+@RequestMapping("/internal/ingest")
+@RequiredArgsConstructor
+public class IngestCallbackController {
+
+    /**
+     * 早期配置文件中的默认令牌，已公开，不能再使用
+     */
+    private static final String LEGACY_PLACEHOLDER_TOKEN = "uni-research-ingest-callback-change-in-production";
+
+    private static final int MIN_TOKEN_LENGTH = 16;
+
+    private final IngestStatusService ingestStatusService;
+
+    @Value("${ai-service.callback-token:}")
+    private String callbackToken;
+
+    @PostConstruct
+    public void validateToken() {
+        if (!StringUtils.hasText(callbackToken) || LEGACY_PLACEHOLDER_TOKEN.equals(callbackToken.trim())) {
+            throw new IllegalStateException("ai-service.callback-token is not configured: "
+                    + "set AI_CALLBACK_TOKEN to a random secret before starting the backend");
+        }
+        if (callbackToken.trim().length() < MIN_TOKEN_LENGTH) {
+            throw new IllegalStateException("ai-service.callback-token must be at least " + MIN_TOKEN_LENGTH
+                    + " characters");
+        }
+    }
+
+    @Operation(summary = "Ingestion Status Callback")
+    @PostMapping("/callback")
+    public Result<Boolean> callback(@RequestHeader(value = "X-Callback-Token", required = false) String token,
+            @RequestBody IngestCallbackDto callback) {
+        if (token == null || !MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8),
+                callbackToken.getBytes(StandardCharsets.UTF_8))) {
+            throw new BizException(ResultCode.UNAUTHORIZED, "Invalid callback token");
+        }
+        ingestStatusService.onCallback(callback);
+        return Result.success(true);
+    }
+}
@@ -0,0 +1,20 @@
+package com.uni.research.module.doc.dto;
+
+import lombok.Data;
+
+@Data
+public class ChunkedUploadInitDto {
+    private String fileName;
+
+    /**
+     * Total file size in bytes
+     */
+    private Long fileSize;
+
+    /**
+     * Chunk size in bytes (at least 5MB, the MinIO minimum part size); server default when null
+     */
+    private Long chunkSize;
+
+    private String contentType;
+}
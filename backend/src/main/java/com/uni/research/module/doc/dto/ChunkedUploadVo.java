@@ -0,0 +1,19 @@
+package com.uni.research.module.doc.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ChunkedUploadVo {
+    private String uploadId;
+    private String fileName;
+    private Long fileSize;
+    private Long chunkSize;
+    private Integer totalChunks;
+
+    /**
+     * Part numbers (1-based) already stored; a resuming client uploads only the missing ones
+     */
+    private List<Integer> receivedChunks;
+}
@@ -7,4 +7,9 @@ public class DocumentQueryDto {
     private Integer page = 1;
     private Integer size = 10;
     private String keyword;
+
+    /**
+     * Keyset cursor returned by the previous page (cursor mode only)
+     */
+    private String cursor;
 }
@@ -0,0 +1,36 @@
+package com.uni.research.module.doc.dto;
+
+import lombok.Data;
+
+/**
+ * Ingestion status reported by the AI service
+ */
+@Data
+public class IngestCallbackDto {
+    private Long docId;
+
+    /**
+     * processing / completed / failed
+     */
+    private String status;
+
+    /**
+     * 0 - 100
+     */
+    private Integer progress;
+
+    /**
+     * Current stage while processing (started / loaded / split)
+     */
+    private String stage;
+
+    /**
+     * Number of chunks created (completed only)
+     */
+    private Integer chunks;
+
+    /**
+     * Error message (failed only)
+     */
+    private String error;
+}
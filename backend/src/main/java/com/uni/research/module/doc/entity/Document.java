@@ -51,6 +51,11 @@ public class Document implements Serializable {
      */
     private String fileType;
 
+    /**
+     * Storage codec: null-raw, deflate
+     */
+    private String storageCodec;
+
     /**
      * Status: 0-Pending, 1-Vectorizing, 2-Completed, 3-Failed
      */
@@ -91,6 +96,12 @@ public class Document implements Serializable {
      */
     private String publisher;
 
+    /**
+     * Metadata Version: incremented on every metadata update (citation cache key and ETag)
+     */
+    @TableField(insertStrategy = FieldStrategy.NEVER, updateStrategy = FieldStrategy.NEVER)
+    private Integer metaVersion;
+
     /**
      * Logic Delete
      */
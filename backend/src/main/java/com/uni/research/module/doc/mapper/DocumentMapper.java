@@ -2,8 +2,116 @@ package com.uni.research.module.doc.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.uni.research.module.doc.entity.Document;
+import org.apache.ibatis.annotations.Delete;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.ResultType;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 @Mapper
 public interface DocumentMapper extends BaseMapper<Document> {
+
+    /**
+     * 回填历史数据中为空的 create_time / update_time
+     * 启动时执行一次，代替原来在列表查询中逐行 updateById 的做法
+     */
+    @Update("UPDATE doc_document SET create_time = COALESCE(update_time, NOW()), "
+            + "update_time = COALESCE(update_time, NOW()) WHERE create_time IS NULL")
+    int backfillCreateTime();
+
+    /**
+     * 流式读取用户文档的引用字段（导出用）
+     * fetchSize = Integer.MIN_VALUE 让 MySQL 驱动逐行返回结果，而不是把整个结果集读入内存
+     *
+     * @param ids 为空时导出整个文献库
+     */
+    @Select("<script>"
+            + "SELECT id, title, authors, publication_year, journal, volume, pages, doi, publisher, meta_version "
+            + "FROM doc_document WHERE user_id = #{userId} AND deleted = 0"
+            + "<if test='ids != null and ids.size() > 0'> AND id IN "
+            + "<foreach collection='ids' item='docId' open='(' separator=',' close=')'>#{docId}</foreach>"
+            + "</if> ORDER BY id"
+            + "</script>")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    @ResultType(Document.class)
+    void streamCitationFields(@Param("userId") Long userId, @Param("ids") Collection<Long> ids,
+            ResultHandler<Document> handler);
+
+    /**
+     * 逻辑删除（墓碑），同时刷新 update_time 作为后台清理的计时起点
+     * 清空 DOI，墓碑不占用 (user_id, doi) 唯一键，删除后可以重新导入同一文献
+     */
+    @Update("UPDATE doc_document SET deleted = 1, doi = NULL, update_time = NOW() WHERE id = #{id} AND deleted = 0")
+    int markDeleted(@Param("id") Long id);
+
+    /**
+     * 查询超过宽限期、且未处于重试等待中的墓碑（手写 SQL，不受 @TableLogic 过滤）
+     */
+    @Select("SELECT id, user_id, file_path, update_time FROM doc_document "
+            + "WHERE deleted = 1 AND update_time < #{before} AND (purge_after IS NULL OR purge_after <= NOW()) "
+            + "ORDER BY update_time, id LIMIT #{limit}")
+    List<Document> selectPurgeCandidates(@Param("before") LocalDateTime before, @Param("limit") int limit);
+
+    /**
+     * 最早的墓碑时间（即删除时间，重试不会修改 update_time），用于清理延迟指标
+     */
+    @Select("SELECT MIN(update_time) FROM doc_document WHERE deleted = 1")
+    LocalDateTime selectOldestTombstone();
+
+    /**
+     * 清理失败的墓碑记录失败次数并推迟重试：等待 baseMinutes × 2^已失败次数，最长 maxMinutes
+     * 保留 update_time（删除时间），清理延迟指标仍从删除时算起
+     */
+    @Update("<script>UPDATE doc_document SET "
+            + "purge_after = NOW() + INTERVAL CAST(LEAST(#{baseMinutes} * POW(2, LEAST(purge_attempts, 16)), #{maxMinutes}) AS UNSIGNED) MINUTE, "
+            + "purge_attempts = purge_attempts + 1, update_time = update_time WHERE deleted = 1 AND id IN "
+            + "<foreach collection='ids' item='docId' open='(' separator=',' close=')'>#{docId}</foreach>"
+            + "</script>")
+    int deferPurge(@Param("ids") Collection<Long> ids, @Param("baseMinutes") long baseMinutes,
+            @Param("maxMinutes") long maxMinutes);
+
+    /**
+     * 清理失败过的墓碑数与其中最大的失败次数
+     */
+    @Select("SELECT COUNT(*) AS retrying, COALESCE(MAX(purge_attempts), 0) AS maxAttempts "
+            + "FROM doc_document WHERE deleted = 1 AND purge_attempts > 0")
+    Map<String, Object> selectPurgeRetryStats();
+
+    /**
+     * 物理删除已完成外部清理的墓碑
+     */
+    @Delete("<script>DELETE FROM doc_document WHERE deleted = 1 AND id IN "
+            + "<foreach collection='ids' item='docId' open='(' separator=',' close=')'>#{docId}</foreach>"
+            + "</script>")
+    int hardDelete(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 元数据版本号加一，与元数据更新在同一事务中执行
+     * update_time 只有秒精度，同一秒内的两次修改无法区分，引用缓存与 ETag 使用这个计数器
+     */
+    @Update("<script>UPDATE doc_document SET meta_version = meta_version + 1 WHERE id IN "
+            + "<foreach collection='ids' item='docId' open='(' separator=',' close=')'>#{docId}</foreach>"
+            + "</script>")
+    int bumpMetaVersion(@Param("ids") Collection<Long> ids);
+
+    @Select("SELECT user_id FROM doc_document WHERE id = #{id}")
+    Long selectUserId(@Param("id") Long id);
+
+    /**
+     * 批量更新索引状态；保留 update_time，状态变化不影响引用缓存版本
+     */
+    @Update("<script>UPDATE doc_document SET status = #{status}, update_time = update_time "
+            + "WHERE deleted = 0 AND id IN "
+            + "<foreach collection='ids' item='docId' open='(' separator=',' close=')'>#{docId}</foreach>"
+            + "</script>")
+    int updateStatusBatch(@Param("status") int status, @Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,291 @@
+package com.uni.research.module.doc.service;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.IdUtil;
+import com.uni.research.common.exception.BizException;
+import com.uni.research.common.result.ResultCode;
+import com.uni.research.common.service.MinioService;
+import com.uni.research.module.doc.dto.ChunkedUploadInitDto;
+import com.uni.research.module.doc.dto.ChunkedUploadVo;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.InputStream;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resumable Chunked Upload
+ * 
+ * 协议：init -> 并行 PUT 各分片（原始字节）-> complete
+ * 1. 每个分片按 Content-Length 直接流式写入 MinIO 临时对象 chunks/{uploadId}/{partNumber}，
+ *    应用不缓存整个文件，Tomcat 也不解析 multipart
+ * 2. 会话元数据存 Redis 哈希，已收到的分片号存 Redis 集合，断线后客户端查询会话只补传缺失分片
+ * 3. complete 时用 MinIO composeObject（multipart upload-part-copy）在服务端拼接；
+ *    文档记录保存成功后调用方再调用 finish 删除会话与临时分片，保存失败时调用 release，客户端可以重试 complete
+ * 4. 会话带 TTL，每收到一个分片续期；定时任务只清理会话已不存在（空闲超过 TTL、已完成或已取消）的上传的分片，
+ *    按会话的最后活动判断，而不是按单个分片的写入时间，长时间进行中的上传不会丢失早期分片
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ChunkedUploadService {
+
+    /**
+     * MinIO / S3 multipart 最小分片（最后一片除外）
+     */
+    public static final long MIN_CHUNK_SIZE = 5L * 1024 * 1024;
+    private static final long MAX_CHUNK_SIZE = 64L * 1024 * 1024;
+    private static final int MAX_CHUNKS = 10000;
+    private static final String CHUNK_PREFIX = "chunks/";
+    private static final String SESSION_PREFIX = "doc:upload:";
+
+    /**
+     * 分片写入 MinIO 之后才会登记到 Redis，清理时跳过最近写入的分片，避免与进行中的请求竞争
+     */
+    private static final long SWEEP_GRACE_MINUTES = 60;
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final MinioService minioService;
+
+    @Value("${doc.upload.chunked-max-bytes:536870912}")
+    private long maxFileSize;
+
+    @Value("${doc.upload.chunk-size:8388608}")
+    private long defaultChunkSize;
+
+    @Value("${doc.upload.chunked-ttl-hours:24}")
+    private long ttlHours;
+
+    /**
+     * 完成拼接后的上传结果
+     */
+    public record CompletedUpload(String uploadId, int totalChunks, String objectName, String fileName,
+            long fileSize, String fileType) {
+    }
+
+    public ChunkedUploadVo init(Long userId, ChunkedUploadInitDto dto) {
+        if (!StringUtils.hasText(dto.getFileName())) {
+            throw new BizException(ResultCode.BAD_REQUEST, "fileName is required");
+        }
+        long fileSize = dto.getFileSize() == null ? 0 : dto.getFileSize();
+        if (fileSize <= 0 || fileSize > maxFileSize) {
+            throw new BizException(ResultCode.BAD_REQUEST, "fileSize must be between 1 and " + maxFileSize);
+        }
+        long chunkSize = dto.getChunkSize() == null ? defaultChunkSize : dto.getChunkSize();
+        if (chunkSize < MIN_CHUNK_SIZE || chunkSize > MAX_CHUNK_SIZE) {
+            throw new BizException(ResultCode.BAD_REQUEST,
+                    "chunkSize must be between " + MIN_CHUNK_SIZE + " and " + MAX_CHUNK_SIZE);
+        }
+        long totalChunks = (fileSize + chunkSize - 1) / chunkSize;
+        if (totalChunks > MAX_CHUNKS) {
+            throw new BizException(ResultCode.BAD_REQUEST, "Too many chunks, use a larger chunkSize");
+        }
+
+        String uploadId = IdUtil.simpleUUID();
+        String suffix = FileUtil.extName(dto.getFileName());
+        Map<String, String> session = new HashMap<>();
+        session.put("userId", userId.toString());
+        session.put("fileName", dto.getFileName());
+        session.put("fileSize", String.valueOf(fileSize));
+        session.put("chunkSize", String.valueOf(chunkSize));
+        session.put("totalChunks", String.valueOf(totalChunks));
+        session.put("objectName", IdUtil.simpleUUID() + "." + suffix);
+        if (StringUtils.hasText(dto.getContentType())) {
+            session.put("contentType", dto.getContentType());
+        }
+        String key = SESSION_PREFIX + uploadId;
+        stringRedisTemplate.opsForHash().putAll(key, session);
+        stringRedisTemplate.expire(key, ttlHours, TimeUnit.HOURS);
+
+        log.info("分片上传初始化: uploadId={}, userId={}, file={}, size={}, chunks={}",
+                uploadId, userId, dto.getFileName(), fileSize, totalChunks);
+        return toVo(uploadId, session, Collections.emptySet());
+    }
+
+    public ChunkedUploadVo get(Long userId, String uploadId) {
+        Map<String, String> session = loadSession(userId, uploadId);
+        return toVo(uploadId, session, stringRedisTemplate.opsForSet().members(partsKey(uploadId)));
+    }
+
+    /**
+     * 写入一个分片；重复上传同一分片会覆盖，客户端可安全重试
+     *
+     * @param partNumber 1-based
+     * @param length     请求的 Content-Length，必须等于该分片的期望长度
+     */
+    public void uploadChunk(Long userId, String uploadId, int partNumber, InputStream in, long length) {
+        Map<String, String> session = loadSession(userId, uploadId);
+        long fileSize = Long.parseLong(session.get("fileSize"));
+        long chunkSize = Long.parseLong(session.get("chunkSize"));
+        int totalChunks = Integer.parseInt(session.get("totalChunks"));
+        if (partNumber < 1 || partNumber > totalChunks) {
+            throw new BizException(ResultCode.BAD_REQUEST, "partNumber must be between 1 and " + totalChunks);
+        }
+        long expected = partNumber < totalChunks ? chunkSize : fileSize - chunkSize * (totalChunks - 1);
+        if (length != expected) {
+            throw new BizException(ResultCode.BAD_REQUEST,
+                    "Chunk " + partNumber + " must be exactly " + expected + " bytes, got " + length);
+        }
+
+        minioService.uploadStream(chunkObject(uploadId, partNumber), in, length, "application/octet-stream");
+
+        String partsKey = partsKey(uploadId);
+        stringRedisTemplate.opsForSet().add(partsKey, String.valueOf(partNumber));
+        // 每收到一个分片续期，活跃的上传不会过期
+        stringRedisTemplate.expire(partsKey, ttlHours, TimeUnit.HOURS);
+        stringRedisTemplate.expire(SESSION_PREFIX + uploadId, ttlHours, TimeUnit.HOURS);
+    }
+
+    /**
+     * 拼接所有分片为最终对象；会话保留到调用方 finish / release
+     */
+    public CompletedUpload complete(Long userId, String uploadId) {
+        Map<String, String> session = loadSession(userId, uploadId);
+        int totalChunks = Integer.parseInt(session.get("totalChunks"));
+        Long received = stringRedisTemplate.opsForSet().size(partsKey(uploadId));
+        if (received == null || received < totalChunks) {
+            throw new BizException(ResultCode.BAD_REQUEST,
+                    "Upload incomplete: " + (received == null ? 0 : received) + "/" + totalChunks + " chunks received");
+        }
+        // 防止重复 complete 生成两条文档记录
+        Boolean first = stringRedisTemplate.opsForHash().putIfAbsent(SESSION_PREFIX + uploadId, "completing", "1");
+        if (!Boolean.TRUE.equals(first)) {
+            throw new BizException(ResultCode.BAD_REQUEST, "Upload is already being completed");
+        }
+
+        String objectName = session.get("objectName");
+        try {
+            minioService.composeObject(objectName, chunkObjects(uploadId, totalChunks), session.get("contentType"));
+        } catch (RuntimeException e) {
+            release(uploadId);
+            throw e;
+        }
+
+        String fileName = session.get("fileName");
+        log.info("分片拼接完成: uploadId={}, object={}, chunks={}", uploadId, objectName, totalChunks);
+        return new CompletedUpload(uploadId, totalChunks, objectName, fileName,
+                Long.parseLong(session.get("fileSize")), FileUtil.extName(fileName));
+    }
+
+    /**
+     * 文档记录已保存：删除会话与临时分片
+     */
+    public void finish(CompletedUpload upload) {
+        stringRedisTemplate.delete(List.of(SESSION_PREFIX + upload.uploadId(), partsKey(upload.uploadId())));
+        removeChunksQuietly(upload.uploadId(), chunkObjects(upload.uploadId(), upload.totalChunks()));
+    }
+
+    /**
+     * 拼接或保存失败：清除 completing 标记，分片保留，客户端可以重试 complete
+     */
+    public void release(String uploadId) {
+        stringRedisTemplate.opsForHash().delete(SESSION_PREFIX + uploadId, "completing");
+    }
+
+    public void abort(Long userId, String uploadId) {
+        Map<String, String> session = loadSession(userId, uploadId);
+        int totalChunks = Integer.parseInt(session.get("totalChunks"));
+        stringRedisTemplate.delete(List.of(SESSION_PREFIX + uploadId, partsKey(uploadId)));
+        removeChunksQuietly(uploadId, chunkObjects(uploadId, totalChunks));
+    }
+
+    /**
+     * 清理会话已不存在的上传遗留的临时分片
+     * 会话 TTL 在每个分片到达时续期，会话仍存在即说明 TTL 内有活动，这些分片无论写入多久都保留
+     */
+    @Scheduled(fixedDelayString = "${doc.upload.chunk-sweep-interval-ms:3600000}", initialDelayString = "${doc.upload.chunk-sweep-interval-ms:3600000}")
+    public void sweepExpiredChunks() {
+        try {
+            List<String> candidates = minioService.listObjectsOlderThan(CHUNK_PREFIX,
+                    ZonedDateTime.now().minusMinutes(SWEEP_GRACE_MINUTES));
+            Map<String, List<String>> byUpload = new HashMap<>();
+            for (String name : candidates) {
+                int slash = name.indexOf('/', CHUNK_PREFIX.length());
+                if (slash > 0) {
+                    byUpload.computeIfAbsent(name.substring(CHUNK_PREFIX.length(), slash), k -> new ArrayList<>())
+                            .add(name);
+                }
+            }
+            List<String> stale = new ArrayList<>();
+            for (Map.Entry<String, List<String>> entry : byUpload.entrySet()) {
+                if (!Boolean.TRUE.equals(stringRedisTemplate.hasKey(SESSION_PREFIX + entry.getKey()))) {
+                    stale.addAll(entry.getValue());
+                }
+            }
+            if (!stale.isEmpty()) {
+                minioService.removeFiles(stale);
+                log.info("已清理过期上传分片: uploads={}, chunks={}", byUpload.size(), stale.size());
+            }
+        } catch (Exception e) {
+            log.warn("清理过期上传分片失败: {}", e.getMessage());
+        }
+    }
+
+    private Map<String, String> loadSession(Long userId, String uploadId) {
+        Map<Object, Object> raw = stringRedisTemplate.opsForHash().entries(SESSION_PREFIX + uploadId);
+        if (raw.isEmpty()) {
+            throw new BizException(ResultCode.NOT_FOUND, "Upload not found or expired");
+        }
+        Map<String, String> session = new HashMap<>();
+        raw.forEach((k, v) -> session.put(k.toString(), v.toString()));
+        if (!userId.toString().equals(session.get("userId"))) {
+            throw new BizException(ResultCode.NOT_FOUND, "Upload not found or expired");
+        }
+        return session;
+    }
+
+    private void removeChunksQuietly(String uploadId, List<String> chunks) {
+        try {
+            minioService.removeFiles(chunks);
+        } catch (Exception e) {
+            // 遗留分片由 sweepExpiredChunks 兜底
+            log.warn("删除上传分片失败: uploadId={}, error={}", uploadId, e.getMessage());
+        }
+    }
+
+    private static List<String> chunkObjects(String uploadId, int totalChunks) {
+        List<String> chunks = new ArrayList<>(totalChunks);
+        for (int i = 1; i <= totalChunks; i++) {
+            chunks.add(chunkObject(uploadId, i));
+        }
+        return chunks;
+    }
+
+    private static String chunkObject(String uploadId, int partNumber) {
+        return CHUNK_PREFIX + uploadId + "/" + partNumber;
+    }
+
+    private static String partsKey(String uploadId) {
+        return SESSION_PREFIX + uploadId + ":parts";
+    }
+
+    private static ChunkedUploadVo toVo(String uploadId, Map<String, String> session, Set<String> parts) {
+        ChunkedUploadVo vo = new ChunkedUploadVo();
+        vo.setUploadId(uploadId);
+        vo.setFileName(session.get("fileName"));
+        vo.setFileSize(Long.parseLong(session.get("fileSize")));
+        vo.setChunkSize(Long.parseLong(session.get("chunkSize")));
+        vo.setTotalChunks(Integer.parseInt(session.get("totalChunks")));
+        List<Integer> received = new ArrayList<>();
+        if (parts != null) {
+            for (String part : parts) {
+                received.add(Integer.parseInt(part));
+            }
+        }
+        Collections.sort(received);
+        vo.setReceivedChunks(received);
+        return vo;
+    }
+}
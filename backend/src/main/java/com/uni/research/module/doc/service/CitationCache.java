@@ -0,0 +1,103 @@
+package com.uni.research.module.doc.service;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import com.uni.research.module.doc.citation.CitationStyle;
+import com.uni.research.module.doc.citation.CitationStyles;
+import com.uni.research.module.doc.entity.Document;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Rendered Citation Cache
+ * 
+ * 引用文本只在元数据变化时才会改变，按 (docId, format) 缓存渲染结果，
+ * 并记录渲染时文档的 metaVersion 作为版本（每次元数据更新加一；update_time 只有秒精度，不适合做版本）：
+ * 1. 命中且版本一致直接返回，不再加载完整文档、不再重新渲染
+ * 2. 版本不一致（其他节点改过元数据）视为未命中，重新渲染覆盖
+ * 3. 元数据更新 / 删除时主动失效，及时释放空间
+ * 
+ * 同一版本号也用于生成 ETag，客户端可用 If-None-Match 得到 304。
+ */
+@Service
+@RequiredArgsConstructor
+public class CitationCache {
+
+    private final CitationService citationService;
+
+    @Value("${doc.citation.cache-size:10000}")
+    private int cacheSize;
+
+    private LRUCache<String, Entry> cache;
+
+    /**
+     * 所有规范格式名，失效时逐个移除
+     */
+    private List<String> formats;
+
+    private record Entry(long version, String text) {
+    }
+
+    @PostConstruct
+    public void init() {
+        cache = CacheUtil.newLRUCache(cacheSize);
+        formats = new ArrayList<>(List.of("bibtex", "ris"));
+        for (CitationStyle style : CitationStyles.all()) {
+            formats.add(style.getName());
+        }
+    }
+
+    /**
+     * 文档版本号：元数据版本计数器
+     */
+    public static long version(Document doc) {
+        return doc.getMetaVersion() == null ? 0L : doc.getMetaVersion();
+    }
+
+    /**
+     * 弱 ETag：W/"docId-version-format"
+     *
+     * @param format 规范格式名（见 CitationService.canonicalFormat）
+     */
+    public static String etag(Long docId, long version, String format) {
+        return "W/\"" + docId + "-" + version + "-" + format + "\"";
+    }
+
+    /**
+     * 读取缓存，未命中时通过 loader 加载完整文档并渲染
+     *
+     * @param format 规范格式名
+     * @param loader 只在未命中时调用，用于按需加载完整文档
+     */
+    public String get(Long docId, long version, String format, Supplier<Document> loader) {
+        String key = docId + ":" + format;
+        Entry entry = cache.get(key, false);
+        if (entry != null && entry.version() == version) {
+            return entry.text();
+        }
+        String text = citationService.render(loader.get(), format);
+        if (text != null) {
+            cache.put(key, new Entry(version, text));
+        }
+        return text;
+    }
+
+    /**
+     * 已持有完整文档（含 id 和 metaVersion）时使用，如批量渲染参考文献列表
+     */
+    public String get(Document doc, String format) {
+        return get(doc.getId(), version(doc), format, () -> doc);
+    }
+
+    public void invalidate(Long docId) {
+        for (String format : formats) {
+            cache.remove(docId + ":" + format);
+        }
+    }
+}
@@ -1,68 +1,101 @@
 package com.uni.research.module.doc.service;
 
+import com.uni.research.module.doc.citation.CitationEntry;
+import com.uni.research.module.doc.citation.CitationStyle;
+import com.uni.research.module.doc.citation.CitationStyles;
 import com.uni.research.module.doc.entity.Document;
 import org.springframework.stereotype.Service;
 
+import java.util.HashSet;
+import java.util.Set;
+
 /**
  * Citation Generation Service
- * Generates academic citations in BibTeX and EndNote (RIS) formats
+ * Generates academic citations in BibTeX and EndNote (RIS) formats,
+ * formatted references in APA / MLA / IEEE / GB/T 7714 styles, and maps imported BibTeX / RIS entries back onto Document fields
  */
 @Service
 public class CitationService {
 
     /**
-     * Generate BibTeX citation
+     * Render a citation in the given format
+     *
+     * @param format bibtex / ris / endnote, or a style name (apa, mla, ieee, gbt7714)
+     * @return citation text, or null when the format is not supported
      */
-    public String generateBibTeX(Document doc) {
-        String citationKey = generateCitationKey(doc);
-
-        StringBuilder bib = new StringBuilder();
-        bib.append("@article{").append(citationKey).append(",\n");
-        bib.append("  title={").append(escape(doc.getTitle())).append("},\n");
-
-        if (doc.getAuthors() != null && !doc.getAuthors().isEmpty()) {
-            bib.append("  author={").append(escape(doc.getAuthors())).append("},\n");
+    public String render(Document doc, String format) {
+        if ("bibtex".equalsIgnoreCase(format)) {
+            return generateBibTeX(doc);
         }
-
-        if (doc.getJournal() != null && !doc.getJournal().isEmpty()) {
-            bib.append("  journal={").append(escape(doc.getJournal())).append("},\n");
+        if ("ris".equalsIgnoreCase(format) || "endnote".equalsIgnoreCase(format)) {
+            return generateEndNote(doc);
         }
+        CitationStyle style = CitationStyles.find(format);
+        return style == null ? null : style.format(doc);
+    }
 
-        if (doc.getPublicationYear() != null) {
-            bib.append("  year={").append(doc.getPublicationYear()).append("},\n");
+    /**
+     * Canonical format name: aliases (endnote, gb/t7714 ...) map to one name
+     *
+     * @return bibtex / ris / style name, or null when the format is not supported
+     */
+    public String canonicalFormat(String format) {
+        if ("bibtex".equalsIgnoreCase(format)) {
+            return "bibtex";
         }
-
-        if (doc.getVolume() != null && !doc.getVolume().isEmpty()) {
-            bib.append("  volume={").append(escape(doc.getVolume())).append("},\n");
+        if ("ris".equalsIgnoreCase(format) || "endnote".equalsIgnoreCase(format)) {
+            return "ris";
         }
+        CitationStyle style = CitationStyles.find(format);
+        return style == null ? null : style.getName();
+    }
 
-        if (doc.getPages() != null && !doc.getPages().isEmpty()) {
-            bib.append("  pages={").append(escape(doc.getPages())).append("},\n");
-        }
+    /**
+     * Generate BibTeX citation
+     */
+    public String generateBibTeX(Document doc) {
+        StringBuilder bib = new StringBuilder(256);
+        appendBibTeX(doc, generateCitationKey(doc), bib);
+        return bib.toString();
+    }
 
-        if (doc.getDoi() != null && !doc.getDoi().isEmpty()) {
-            bib.append("  doi={").append(escape(doc.getDoi())).append("},\n");
-        }
+    /**
+     * Append a BibTeX entry to an existing buffer (used by bulk export to reuse buffers)
+     */
+    public void appendBibTeX(Document doc, String citationKey, StringBuilder bib) {
+        bib.append("@article{").append(citationKey).append(",\n");
+        bib.append("  title={");
+        appendEscaped(doc.getTitle(), bib);
+        bib.append('}');
 
-        if (doc.getPublisher() != null && !doc.getPublisher().isEmpty()) {
-            bib.append("  publisher={").append(escape(doc.getPublisher())).append("},\n");
-        }
+        appendBibField("author", doc.getAuthors(), bib);
+        appendBibField("journal", doc.getJournal(), bib);
 
-        // Remove trailing comma and newline, add closing brace
-        String result = bib.toString();
-        if (result.endsWith(",\n")) {
-            result = result.substring(0, result.length() - 2) + "\n";
+        if (doc.getPublicationYear() != null) {
+            bib.append(",\n  year={").append(doc.getPublicationYear()).append('}');
         }
-        result += "}";
 
-        return result;
+        appendBibField("volume", doc.getVolume(), bib);
+        appendBibField("pages", doc.getPages(), bib);
+        appendBibField("doi", doc.getDoi(), bib);
+        appendBibField("publisher", doc.getPublisher(), bib);
+
+        bib.append("\n}");
     }
 
     /**
      * Generate EndNote (RIS) citation
      */
     public String generateEndNote(Document doc) {
-        StringBuilder ris = new StringBuilder();
+        StringBuilder ris = new StringBuilder(256);
+        appendEndNote(doc, ris);
+        return ris.toString();
+    }
+
+    /**
+     * Append a RIS record to an existing buffer (used by bulk export to reuse buffers)
+     */
+    public void appendEndNote(Document doc, StringBuilder ris) {
         ris.append("TY  - JOUR\n"); // Journal Article
 
         if (doc.getAuthors() != null && !doc.getAuthors().isEmpty()) {
@@ -105,14 +138,38 @@ public class CitationService {
         }
 
         ris.append("ER  - \n");
+    }
 
-        return ris.toString();
+    /**
+     * Map an imported entry onto a metadata-only Document (no attached file)
+     */
+    public Document toDocument(CitationEntry entry, Long userId) {
+        String title = entry.getTitle() != null && !entry.getTitle().isBlank()
+                ? truncate(entry.getTitle(), 255)
+                : "Untitled";
+
+        Document doc = new Document();
+        doc.setUserId(userId);
+        doc.setTitle(title);
+        doc.setFileName(title);
+        doc.setFilePath("");
+        doc.setFileSize(0L);
+        doc.setStatus(2); // Nothing to vectorize
+        doc.setDeleted(0);
+        doc.setAuthors(entry.getAuthors().isEmpty() ? null : truncate(String.join(", ", entry.getAuthors()), 1000));
+        doc.setPublicationYear(entry.getYear());
+        doc.setJournal(truncate(entry.getJournal(), 255));
+        doc.setVolume(truncate(entry.getVolume(), 50));
+        doc.setPages(truncate(entry.getPages(), 50));
+        doc.setDoi(truncate(entry.getDoi(), 255));
+        doc.setPublisher(truncate(entry.getPublisher(), 255));
+        return doc;
     }
 
     /**
      * Generate citation key (e.g., "zhang2024llm")
      */
-    private String generateCitationKey(Document doc) {
+    public String generateCitationKey(Document doc) {
         StringBuilder key = new StringBuilder();
 
         // Extract first author's last name
@@ -147,16 +204,63 @@ public class CitationService {
         return key.toString();
     }
 
+    /**
+     * Citation keys unique within one export: repeated keys get a, b, c... suffixes
+     * (zhang2024llm, zhang2024llma, zhang2024llmb), the usual BibTeX convention
+     */
+    public static class CitationKeyRegistry {
+
+        private final Set<String> usedKeys = new HashSet<>();
+
+        public String register(String baseKey) {
+            if (usedKeys.add(baseKey)) {
+                return baseKey;
+            }
+            for (int n = 0;; n++) {
+                String candidate = baseKey + suffix(n);
+                if (usedKeys.add(candidate)) {
+                    return candidate;
+                }
+            }
+        }
+
+        private static String suffix(int n) {
+            StringBuilder sb = new StringBuilder();
+            do {
+                sb.insert(0, (char) ('a' + n % 26));
+                n = n / 26 - 1;
+            } while (n >= 0);
+            return sb.toString();
+        }
+    }
+
+    private static String truncate(String value, int maxLength) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        return value.length() > maxLength ? value.substring(0, maxLength) : value;
+    }
+
+    private void appendBibField(String name, String value, StringBuilder bib) {
+        if (value != null && !value.isEmpty()) {
+            bib.append(",\n  ").append(name).append("={");
+            appendEscaped(value, bib);
+            bib.append('}');
+        }
+    }
+
     /**
      * Escape special characters for BibTeX
      */
-    private String escape(String text) {
+    private void appendEscaped(String text, StringBuilder out) {
         if (text == null)
-            return "";
-        return text.replace("{", "\\{")
-                .replace("}", "\\}")
-                .replace("$", "\\$")
-                .replace("&", "\\&")
-                .replace("%", "\\%");
+            return;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '{' || c == '}' || c == '$' || c == '&' || c == '%') {
+                out.append('\\');
+            }
+            out.append(c);
+        }
     }
 }
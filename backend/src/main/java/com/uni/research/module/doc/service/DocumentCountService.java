@@ -0,0 +1,92 @@
+package com.uni.research.module.doc.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.uni.research.module.doc.entity.Document;
+import com.uni.research.module.doc.mapper.DocumentMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-user Document Count Cache
+ * 
+ * 文档列表的总数不再每页执行 COUNT(*)：首次访问时统计一次写入 Redis，
+ * 之后由上传 / 删除增量维护。计数键带 TTL，即使增量偶尔丢失也会定期自愈。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DocumentCountService {
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final DocumentMapper documentMapper;
+
+    private static final String COUNT_PREFIX = "doc:count:user:";
+    private static final long COUNT_TTL_HOURS = 24;
+
+    /**
+     * 仅当计数已存在时才增量，避免对不存在的 key 执行 INCRBY 得到错误的初始值
+     */
+    private static final DefaultRedisScript<Long> INCR_IF_EXISTS = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 1 then return redis.call('INCRBY', KEYS[1], ARGV[1]) end return nil",
+            Long.class);
+
+    /**
+     * 获取用户未删除文档数
+     */
+    public long getCount(Long userId) {
+        String key = COUNT_PREFIX + userId;
+        try {
+            String cached = stringRedisTemplate.opsForValue().get(key);
+            if (cached != null) {
+                return Long.parseLong(cached);
+            }
+        } catch (Exception e) {
+            log.warn("读取文档计数缓存失败，回退到数据库: userId={}, error={}", userId, e.getMessage());
+            return countFromDb(userId);
+        }
+
+        long count = countFromDb(userId);
+        try {
+            stringRedisTemplate.opsForValue().setIfAbsent(key, String.valueOf(count), COUNT_TTL_HOURS, TimeUnit.HOURS);
+        } catch (Exception e) {
+            log.warn("写入文档计数缓存失败: userId={}, error={}", userId, e.getMessage());
+        }
+        return count;
+    }
+
+    /**
+     * 增量调整计数（上传为正，删除为负）
+     */
+    public void adjust(Long userId, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        try {
+            stringRedisTemplate.execute(INCR_IF_EXISTS, Collections.singletonList(COUNT_PREFIX + userId),
+                    String.valueOf(delta));
+        } catch (Exception e) {
+            // 计数失效比计数错误更安全：删除后下次读取重新统计
+            log.warn("调整文档计数失败，清除缓存: userId={}, error={}", userId, e.getMessage());
+            evict(userId);
+        }
+    }
+
+    public void evict(Long userId) {
+        try {
+            stringRedisTemplate.delete(COUNT_PREFIX + userId);
+        } catch (Exception e) {
+            log.warn("清除文档计数缓存失败: userId={}, error={}", userId, e.getMessage());
+        }
+    }
+
+    private long countFromDb(Long userId) {
+        return documentMapper.selectCount(new LambdaQueryWrapper<Document>()
+                .eq(Document::getUserId, userId));
+    }
+}
@@ -0,0 +1,77 @@
+package com.uni.research.module.doc.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Per-user SSE Channel for Document Events
+ * 
+ * 每个用户可以有多个连接（多个标签页），事件推送给该用户的全部连接。
+ * 连接完成 / 超时 / 出错时自动移除；定期发送心跳注释，防止代理因空闲断开连接。
+ */
+@Slf4j
+@Component
+public class DocumentEventHub {
+
+    private final Map<Long, List<SseEmitter>> emitters = new ConcurrentHashMap<>();
+
+    @Value("${doc.events.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    public SseEmitter subscribe(Long userId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        List<SseEmitter> list = emitters.computeIfAbsent(userId, k -> new CopyOnWriteArrayList<>());
+        list.add(emitter);
+        Runnable remove = () -> remove(userId, emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+        return emitter;
+    }
+
+    /**
+     * 推送事件给用户的所有连接；用户不在线时直接丢弃
+     */
+    public void publish(Long userId, String name, Object data) {
+        List<SseEmitter> list = emitters.get(userId);
+        if (list == null) {
+            return;
+        }
+        for (SseEmitter emitter : list) {
+            try {
+                emitter.send(SseEmitter.event().name(name).data(data));
+            } catch (Exception e) {
+                log.debug("SSE 推送失败，移除连接: userId={}, error={}", userId, e.getMessage());
+                remove(userId, emitter);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${doc.events.heartbeat-ms:25000}")
+    public void heartbeat() {
+        emitters.forEach((userId, list) -> {
+            for (SseEmitter emitter : list) {
+                try {
+                    emitter.send(SseEmitter.event().comment("ping"));
+                } catch (Exception e) {
+                    remove(userId, emitter);
+                }
+            }
+        });
+    }
+
+    private void remove(Long userId, SseEmitter emitter) {
+        emitters.computeIfPresent(userId, (k, list) -> {
+            list.remove(emitter);
+            return list.isEmpty() ? null : list;
+        });
+    }
+}
@@ -0,0 +1,192 @@
+package com.uni.research.module.doc.service;
+
+import com.uni.research.common.service.MinioService;
+import com.uni.research.common.service.RagService;
+import com.uni.research.module.doc.entity.Document;
+import com.uni.research.module.doc.mapper.DocumentMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background Purger for Deleted Documents
+ * 
+ * 删除接口只写墓碑（deleted = 1），外部资源由这里异步清理：
+ * 1. 定期取出超过宽限期的墓碑，每批一次 MinIO removeObjects + 一次批量向量删除
+ * 2. 两步都成功的行才物理删除；失败的行累加 purge_attempts，并按 purge_after 指数退避后重试
+ *    （宽限期 × 2^失败次数，最长 max-retry-minutes）；update_time 保持为删除时间
+ * 3. 两种外部删除都是幂等的，多节点同时清理或重复清理都不会出错
+ * 
+ * 指标：
+ * - doc.purge.lag.seconds：最早墓碑的存在时长（从删除时算起，一直清理失败的墓碑会持续增长）
+ * - doc.purge.purged / doc.purge.failed：清理成功 / 失败的文档数（失败按每次尝试计数）
+ * - doc.purge.retrying / doc.purge.max.attempts：清理失败过、仍待重试的墓碑数及其最大失败次数
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DocumentPurgeService {
+
+    private final DocumentMapper documentMapper;
+    private final MinioService minioService;
+    private final RagService ragService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${doc.purge.grace-minutes:10}")
+    private long graceMinutes;
+
+    @Value("${doc.purge.batch-size:100}")
+    private int batchSize;
+
+    @Value("${doc.purge.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+
+    @Value("${doc.purge.max-retry-minutes:1440}")
+    private long maxRetryMinutes;
+
+    private final AtomicLong lagSeconds = new AtomicLong();
+    private final AtomicLong retrying = new AtomicLong();
+    private final AtomicLong maxAttempts = new AtomicLong();
+    private Counter purgedCounter;
+    private Counter failedCounter;
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("doc.purge.lag.seconds", lagSeconds, AtomicLong::get)
+                .description("Age of the oldest deleted document not yet purged")
+                .register(meterRegistry);
+        Gauge.builder("doc.purge.retrying", retrying, AtomicLong::get)
+                .description("Deleted documents whose purge has failed at least once and is pending retry")
+                .register(meterRegistry);
+        Gauge.builder("doc.purge.max.attempts", maxAttempts, AtomicLong::get)
+                .description("Most failed purge attempts of any pending deleted document")
+                .register(meterRegistry);
+        purgedCounter = Counter.builder("doc.purge.purged")
+                .description("Deleted documents purged from storage, vector store and database")
+                .register(meterRegistry);
+        failedCounter = Counter.builder("doc.purge.failed")
+                .description("Deleted documents whose purge failed and will be retried")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${doc.purge.interval-ms:60000}", initialDelayString = "${doc.purge.initial-delay-ms:30000}")
+    public void purge() {
+        try {
+            LocalDateTime before = LocalDateTime.now().minusMinutes(graceMinutes);
+            long purged = 0;
+            for (int i = 0; i < maxBatchesPerRun; i++) {
+                List<Document> batch = documentMapper.selectPurgeCandidates(before, batchSize);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                purged += purgeBatch(batch);
+                if (batch.size() < batchSize) {
+                    break;
+                }
+            }
+            if (purged > 0) {
+                log.info("已删除文档清理完成: purged={}", purged);
+            }
+        } catch (Exception e) {
+            log.error("已删除文档清理异常: {}", e.getMessage(), e);
+        } finally {
+            updateProgress();
+        }
+    }
+
+    /**
+     * @return 物理删除的行数
+     */
+    private int purgeBatch(List<Document> batch) {
+        // 1. MinIO：一次请求删除整批对象（导入的文献条目没有文件）
+        List<String> objectNames = new ArrayList<>(batch.size());
+        for (Document doc : batch) {
+            if (StringUtils.hasText(doc.getFilePath())) {
+                objectNames.add(doc.getFilePath());
+            }
+        }
+        Set<String> failedObjects;
+        try {
+            failedObjects = minioService.removeFiles(objectNames);
+        } catch (Exception e) {
+            retryLater(idsOf(batch));
+            return 0;
+        }
+
+        List<Long> storageDone = new ArrayList<>(batch.size());
+        List<Long> failed = new ArrayList<>();
+        for (Document doc : batch) {
+            if (doc.getFilePath() != null && failedObjects.contains(doc.getFilePath())) {
+                failed.add(doc.getId());
+            } else {
+                storageDone.add(doc.getId());
+            }
+        }
+
+        // 2. 向量库：一次请求删除整批向量
+        if (!storageDone.isEmpty()) {
+            List<String> docIds = new ArrayList<>(storageDone.size());
+            for (Long id : storageDone) {
+                docIds.add(id.toString());
+            }
+            if (!ragService.deleteDocumentVectors(docIds)) {
+                failed.addAll(storageDone);
+                storageDone.clear();
+            }
+        }
+
+        // 3. 外部资源都已清理的行物理删除
+        int deleted = storageDone.isEmpty() ? 0 : documentMapper.hardDelete(storageDone);
+        purgedCounter.increment(deleted);
+        retryLater(failed);
+        return deleted;
+    }
+
+    private void retryLater(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        failedCounter.increment(ids.size());
+        log.warn("已删除文档清理失败，稍后重试: count={}, ids={}", ids.size(), ids);
+        documentMapper.deferPurge(ids, Math.max(1, graceMinutes), maxRetryMinutes);
+    }
+
+    private void updateProgress() {
+        try {
+            LocalDateTime oldest = documentMapper.selectOldestTombstone();
+            lagSeconds.set(oldest == null ? 0 : Math.max(0, Duration.between(oldest, LocalDateTime.now()).getSeconds()));
+            Map<String, Object> stats = documentMapper.selectPurgeRetryStats();
+            retrying.set(stats != null ? toLong(stats.get("retrying")) : 0);
+            maxAttempts.set(stats != null ? toLong(stats.get("maxAttempts")) : 0);
+        } catch (Exception e) {
+            log.warn("读取清理进度失败: {}", e.getMessage());
+        }
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number number ? number.longValue() : 0L;
+    }
+
+    private static List<Long> idsOf(List<Document> docs) {
+        List<Long> ids = new ArrayList<>(docs.size());
+        for (Document doc : docs) {
+            ids.add(doc.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,107 @@
+package com.uni.research.module.doc.service;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.uni.research.common.search.InvertedIndex;
+import com.uni.research.module.doc.entity.Document;
+import com.uni.research.module.doc.mapper.DocumentMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Document Full-text Search Index
+ * 
+ * 按用户分区的内存倒排索引，覆盖标题、作者、期刊和 DOI。
+ * 分区在用户第一次搜索时从数据库加载，之后由上传 / 元数据更新 / 删除增量维护；
+ * 分区数量受 LRU 限制，冷用户被淘汰后下次搜索重新加载。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DocumentSearchIndex {
+
+    private static final float TITLE_WEIGHT = 3.0f;
+    private static final float AUTHORS_WEIGHT = 2.0f;
+    private static final float JOURNAL_WEIGHT = 1.0f;
+    private static final float DOI_WEIGHT = 1.0f;
+
+    private final DocumentMapper documentMapper;
+
+    @Value("${doc.search.max-cached-users:1000}")
+    private int maxCachedUsers;
+
+    private LRUCache<Long, InvertedIndex> partitions;
+
+    @PostConstruct
+    public void init() {
+        partitions = CacheUtil.newLRUCache(maxCachedUsers);
+    }
+
+    /**
+     * 搜索当前用户的文档
+     *
+     * @param matchAll true 时要求命中全部查询词项（用于列表关键字过滤）
+     */
+    public List<InvertedIndex.Hit> search(Long userId, String query, int k, boolean matchAll) {
+        return partition(userId).search(query, k, matchAll);
+    }
+
+    /**
+     * 得分归一化到 [0, 1] 的查询，用于与其他类型的结果合并排序
+     */
+    public List<InvertedIndex.Hit> searchNormalised(Long userId, String query, int k) {
+        return partition(userId).searchNormalised(query, k);
+    }
+
+    /**
+     * 文档新增或元数据变更后调用；分区未加载时无需处理，加载时会读到最新数据
+     */
+    public void onSaved(Document doc) {
+        InvertedIndex index = partitions.get(doc.getUserId(), false);
+        if (index != null) {
+            index.put(doc.getId(), fields(doc));
+        }
+    }
+
+    public void onDeleted(Document doc) {
+        InvertedIndex index = partitions.get(doc.getUserId(), false);
+        if (index != null) {
+            index.remove(doc.getId());
+        }
+    }
+
+    private InvertedIndex partition(Long userId) {
+        return partitions.get(userId, () -> load(userId));
+    }
+
+    private InvertedIndex load(Long userId) {
+        long start = System.currentTimeMillis();
+        List<Document> docs = documentMapper.selectList(new LambdaQueryWrapper<Document>()
+                .select(Document::getId, Document::getUserId, Document::getTitle, Document::getAuthors,
+                        Document::getJournal, Document::getDoi)
+                .eq(Document::getUserId, userId));
+
+        InvertedIndex index = new InvertedIndex();
+        for (Document doc : docs) {
+            index.put(doc.getId(), fields(doc));
+        }
+        log.info("文档搜索索引已加载: userId={}, docs={}, cost={}ms", userId, docs.size(),
+                System.currentTimeMillis() - start);
+        return index;
+    }
+
+    private InvertedIndex.Field[] fields(Document doc) {
+        return new InvertedIndex.Field[] {
+                new InvertedIndex.Field(doc.getTitle(), TITLE_WEIGHT),
+                new InvertedIndex.Field(doc.getAuthors(), AUTHORS_WEIGHT),
+                new InvertedIndex.Field(doc.getJournal(), JOURNAL_WEIGHT),
+                new InvertedIndex.Field(doc.getDoi(), DOI_WEIGHT)
+        };
+    }
+}
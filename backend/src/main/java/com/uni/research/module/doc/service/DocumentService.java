@@ -2,12 +2,21 @@ package com.uni.research.module.doc.service;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.uni.research.common.result.CursorPage;
+import com.uni.research.module.doc.dto.ChunkedUploadInitDto;
+import com.uni.research.module.doc.dto.ChunkedUploadVo;
 import com.uni.research.module.doc.dto.DocumentQueryDto;
 import com.uni.research.module.doc.dto.DocumentVo;
 import com.uni.research.module.doc.entity.Document;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.List;
 
 public interface DocumentService extends IService<Document> {
 
@@ -19,6 +28,67 @@ public interface DocumentService extends IService<Document> {
      */
     DocumentVo uploadDocument(MultipartFile file);
 
+    /**
+     * Bulk Upload Documents
+     * Files are stored to MinIO in parallel, rows are batch inserted and
+     * ingestion is submitted in batches. Progress is pushed over SSE.
+     *
+     * @param files Multipart Files
+     * @return SSE Emitter with per-file progress events
+     */
+    SseEmitter uploadDocuments(List<MultipartFile> files);
+
+    /**
+     * Start a resumable chunked upload
+     *
+     * @param dto File name, size and chunk size
+     * @return Upload session (uploadId, chunk layout)
+     */
+    ChunkedUploadVo initChunkedUpload(ChunkedUploadInitDto dto);
+
+    /**
+     * Get a chunked upload session, including chunks already received (for resuming)
+     */
+    ChunkedUploadVo getChunkedUpload(String uploadId);
+
+    /**
+     * Store one chunk of a chunked upload
+     *
+     * @param partNumber 1-based chunk number
+     * @param in         Raw chunk bytes (request body)
+     * @param length     Content-Length of the request
+     */
+    void uploadChunk(String uploadId, int partNumber, InputStream in, long length);
+
+    /**
+     * Merge all chunks, create the document and trigger ingestion
+     *
+     * @return Document VO
+     */
+    DocumentVo completeChunkedUpload(String uploadId);
+
+    /**
+     * Abort a chunked upload and discard stored chunks
+     */
+    void abortChunkedUpload(String uploadId);
+
+    /**
+     * Subscribe to document events of the current user (ingestion progress)
+     *
+     * @return SSE Emitter receiving "ingest" events until the client disconnects
+     */
+    SseEmitter subscribeEvents();
+
+    /**
+     * Import a BibTeX / RIS reference library
+     * The file is parsed as a stream and entries are upserted by DOI in batches.
+     *
+     * @param file   Library file
+     * @param format bibtex / ris, detected from the file extension when null
+     * @return SSE Emitter with import progress events
+     */
+    SseEmitter importCitations(MultipartFile file, String format);
+
     /**
      * List Documents
      *
@@ -27,6 +97,47 @@ public interface DocumentService extends IService<Document> {
      */
     Page<DocumentVo> listDocuments(DocumentQueryDto queryDto);
 
+    /**
+     * List Documents by keyset cursor on (create_time, id), newest first
+     *
+     * @param queryDto Query Parameters (cursor, size, keyword)
+     * @return Cursor Page of Document VOs
+     */
+    CursorPage<DocumentVo> listDocumentsByCursor(DocumentQueryDto queryDto);
+
+    /**
+     * Ranked full-text search over title, authors, journal and DOI
+     *
+     * @param query Query Text
+     * @param k     Max Results
+     * @return Document VOs ordered by relevance
+     */
+    List<DocumentVo> searchDocuments(String query, int k);
+
+    /**
+     * Update Document Metadata
+     *
+     * @param id       Document ID
+     * @param metadata Metadata Fields
+     */
+    void updateMetadata(Long id, Document metadata);
+
+    /**
+     * Stream citations of the selected documents (or the whole library) to a writer
+     *
+     * @param ids    Document IDs, null or empty for the whole library
+     * @param format bibtex / ris, or a citation style (apa, mla, ieee, gbt7714) for a plain-text reference list
+     * @param out    Target writer (typically the response body)
+     * @return Number of exported entries
+     */
+    long exportCitations(List<Long> ids, String format, Writer out);
+
+    /**
+     * Load only id / owner / updateTime of a document owned by the current user
+     * (cheap version check for cached citations)
+     */
+    Document getDocumentVersion(Long id);
+
     /**
      * Download Document
      *
@@ -35,10 +146,40 @@ public interface DocumentService extends IService<Document> {
      */
     InputStream downloadDocument(Long id);
 
+    /**
+     * Open a document for download
+     *
+     * @param id            Document ID
+     * @param acceptDeflate Whether the client accepts "Content-Encoding: deflate";
+     *                      compressed objects are then passed through as stored
+     * @return Document, stream and the content encoding of the stream (null if raw)
+     */
+    Download openDownload(Long id, boolean acceptDeflate);
+
+    /**
+     * Download several documents as one ZIP archive, streamed to the output
+     *
+     * @param ids Document IDs in archive order
+     * @param out Target stream (typically the response body)
+     * @return Number of entries written
+     */
+    int downloadZip(List<Long> ids, OutputStream out) throws IOException;
+
     /**
      * Delete Document
      *
      * @param id Document ID
      */
     void deleteDocument(Long id);
+
+    /**
+     * Opened document download
+     */
+    record Download(Document document, InputStream stream, String contentEncoding) implements Closeable {
+
+        @Override
+        public void close() throws IOException {
+            stream.close();
+        }
+    }
 }
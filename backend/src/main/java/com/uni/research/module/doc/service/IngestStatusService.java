@@ -0,0 +1,141 @@
+package com.uni.research.module.doc.service;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import com.uni.research.common.exception.BizException;
+import com.uni.research.common.result.ResultCode;
+import com.uni.research.module.doc.dto.IngestCallbackDto;
+import com.uni.research.module.doc.mapper.DocumentMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ingestion Status Tracking
+ * 
+ * AI 服务在索引过程中回调进度与结果：
+ * 1. 每次回调立即通过 DocumentEventHub 推送给文档所有者
+ * 2. 状态写库合并处理：同一文档在一个刷新周期内只保留最新状态，
+ *    周期结束时按状态分组批量 UPDATE，而不是每次回调一条 UPDATE
+ * 3. 终态（已完成 / 失败）不会被同一周期内迟到的处理中回调覆盖
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IngestStatusService {
+
+    public static final int STATUS_PROCESSING = 1;
+    public static final int STATUS_COMPLETED = 2;
+    public static final int STATUS_FAILED = 3;
+
+    private final DocumentMapper documentMapper;
+    private final DocumentEventHub documentEventHub;
+
+    @Value("${doc.ingest.max-tracked-docs:10000}")
+    private int maxTrackedDocs;
+
+    /**
+     * docId -> userId，上传时登记，避免每次回调查库
+     */
+    private LRUCache<Long, Long> owners;
+
+    /**
+     * 待写库的状态：docId -> status
+     */
+    private final Map<Long, Integer> pending = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        owners = CacheUtil.newLRUCache(maxTrackedDocs);
+    }
+
+    /**
+     * 提交索引时登记文档所有者
+     */
+    public void track(Long docId, Long userId) {
+        owners.put(docId, userId);
+    }
+
+    public void onCallback(IngestCallbackDto callback) {
+        if (callback.getDocId() == null) {
+            throw new BizException(ResultCode.BAD_REQUEST, "docId is required");
+        }
+        int status = toStatus(callback.getStatus());
+        Long docId = callback.getDocId();
+
+        pending.merge(docId, status,
+                (previous, current) -> previous != STATUS_PROCESSING && current == STATUS_PROCESSING ? previous : current);
+
+        Long userId = owners.get(docId, false);
+        if (userId == null) {
+            // 重启后或登记已被淘汰时回查所有者
+            userId = documentMapper.selectUserId(docId);
+            if (userId == null) {
+                return;
+            }
+            owners.put(docId, userId);
+        }
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("docId", docId);
+        event.put("status", status);
+        event.put("progress", callback.getProgress());
+        event.put("stage", callback.getStage());
+        if (callback.getChunks() != null) {
+            event.put("chunks", callback.getChunks());
+        }
+        if (callback.getError() != null) {
+            event.put("error", callback.getError());
+        }
+        documentEventHub.publish(userId, "ingest", event);
+
+        if (status != STATUS_PROCESSING) {
+            owners.remove(docId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${doc.ingest.status-flush-ms:1000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<Integer, List<Long>> byStatus = new HashMap<>();
+        for (Long docId : pending.keySet()) {
+            Integer status = pending.remove(docId);
+            if (status != null) {
+                byStatus.computeIfAbsent(status, k -> new ArrayList<>()).add(docId);
+            }
+        }
+        byStatus.forEach((status, ids) -> {
+            try {
+                documentMapper.updateStatusBatch(status, ids);
+            } catch (Exception e) {
+                // 放回队列下个周期重试；期间到达的新状态优先
+                log.warn("批量更新索引状态失败，稍后重试: status={}, count={}, error={}", status, ids.size(), e.getMessage());
+                ids.forEach(id -> pending.putIfAbsent(id, status));
+            }
+        });
+    }
+
+    private static int toStatus(String status) {
+        if ("processing".equalsIgnoreCase(status)) {
+            return STATUS_PROCESSING;
+        }
+        if ("completed".equalsIgnoreCase(status)) {
+            return STATUS_COMPLETED;
+        }
+        if ("failed".equalsIgnoreCase(status)) {
+            return STATUS_FAILED;
+        }
+        throw new BizException(ResultCode.BAD_REQUEST, "Unknown ingestion status: " + status);
+    }
+}
@@ -7,30 +7,77 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.uni.research.common.exception.BizException;
+import com.uni.research.common.result.CursorPage;
+import com.uni.research.common.result.ResultCode;
+import com.uni.research.common.search.InvertedIndex;
 import com.uni.research.common.service.MinioService;
 import com.uni.research.common.service.RagService;
+import com.uni.research.common.service.SpoolService;
+import com.uni.research.common.service.StorageCodec;
+import com.uni.research.common.util.TransactionHooks;
 import com.uni.research.module.auth.entity.User;
 import com.uni.research.module.auth.mapper.UserMapper;
+import com.uni.research.module.doc.citation.BibTeXReader;
+import com.uni.research.module.doc.citation.CitationEntry;
+import com.uni.research.module.doc.citation.CitationReader;
+import com.uni.research.module.doc.citation.CitationStyle;
+import com.uni.research.module.doc.citation.CitationStyles;
+import com.uni.research.module.doc.citation.RisReader;
+import com.uni.research.module.doc.dto.ChunkedUploadInitDto;
+import com.uni.research.module.doc.dto.ChunkedUploadVo;
 import com.uni.research.module.doc.dto.DocumentQueryDto;
 import com.uni.research.module.doc.dto.DocumentVo;
 import com.uni.research.module.doc.entity.Document;
 import com.uni.research.module.doc.mapper.DocumentMapper;
+import com.uni.research.module.doc.service.ChunkedUploadService;
+import com.uni.research.module.doc.service.CitationCache;
+import com.uni.research.module.doc.service.CitationService;
+import com.uni.research.module.doc.service.DocumentCountService;
+import com.uni.research.module.doc.service.DocumentEventHub;
+import com.uni.research.module.doc.service.DocumentSearchIndex;
 import com.uni.research.module.doc.service.DocumentService;
+import com.uni.research.module.doc.service.DocumentZipWriter;
+import com.uni.research.module.doc.service.IngestStatusService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.util.StringUtils;
 
+import java.io.IOException;
 import java.io.InputStream;
-import java.nio.file.Files;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -41,10 +88,54 @@ public class DocumentServiceImpl extends ServiceImpl<DocumentMapper, Document> i
     private final MinioService minioService;
     private final UserMapper userMapper;
     private final RagService ragService;
+    private final SpoolService spoolService;
+    private final DocumentCountService documentCountService;
+    private final DocumentSearchIndex documentSearchIndex;
+    private final CitationService citationService;
+    private final CitationCache citationCache;
+    private final ChunkedUploadService chunkedUploadService;
+    private final DocumentEventHub documentEventHub;
+    private final DocumentZipWriter documentZipWriter;
+    private final IngestStatusService ingestStatusService;
+    private final TransactionTemplate transactionTemplate;
+    @Qualifier("docIoExecutor")
+    private final ThreadPoolTaskExecutor docIoExecutor;
+    @Qualifier("docTaskExecutor")
+    private final ThreadPoolTaskExecutor docTaskExecutor;
 
     // 支持 RAG 索引的文件类型
     private static final Set<String> RAG_SUPPORTED_TYPES = Set.of("pdf", "md", "txt", "text", "doc", "docx");
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+
+    /**
+     * 游标中表示 create_time 为空的占位符
+     */
+    private static final String NULL_CURSOR_TIME = "n";
+
+    private static final int MAX_KEYWORD_HITS = 10000;
+    private static final int IMPORT_BATCH_SIZE = 500;
+
+    /**
+     * 并发导入同一 DOI 触发唯一键冲突时，当前批次最多执行的次数
+     */
+    private static final int IMPORT_UPSERT_ATTEMPTS = 2;
+
+    @Value("${doc.upload.bulk-max-files:500}")
+    private int bulkMaxFiles;
+
+    @Value("${doc.upload.ingest-batch-size:20}")
+    private int ingestBatchSize;
+
+    @Value("${doc.upload.bulk-timeout-ms:1800000}")
+    private long bulkTimeoutMs;
+
+    @Value("${doc.download.zip-max-files:200}")
+    private int zipMaxFiles;
+
+    @Value("${doc.storage.compress-text:true}")
+    private boolean compressText;
+
     @Override
     @Transactional(rollbackFor = Exception.class)
     public DocumentVo uploadDocument(MultipartFile file) {
@@ -64,8 +155,15 @@ public class DocumentServiceImpl extends ServiceImpl<DocumentMapper, Document> i
         String uuid = IdUtil.simpleUUID();
         String objectName = uuid + "." + suffix;
 
-        // 3. Upload to MinIO
-        minioService.uploadFile(file, objectName);
+        // 3. 先写入索引 spool（配额不足时直接拒绝，不留下 MinIO 对象），再上传 MinIO
+        Path spooled = spoolIfIndexable(file, suffix);
+        StorageCodec codec = storageCodecFor(suffix);
+        try {
+            minioService.uploadFile(file, objectName, codec);
+        } catch (RuntimeException e) {
+            spoolService.release(spooled);
+            throw e;
+        }
 
         // 4. Save Metadata
         LocalDateTime now = LocalDateTime.now();
@@ -76,39 +174,317 @@ public class DocumentServiceImpl extends ServiceImpl<DocumentMapper, Document> i
         doc.setFilePath(objectName);
         doc.setFileSize(file.getSize());
         doc.setFileType(suffix);
+        doc.setStorageCodec(codec.getValue());
         doc.setStatus(0); // 0-Pending indexing
         doc.setDeleted(0);
         doc.setCreateTime(now);
         doc.setUpdateTime(now);
 
-        this.save(doc);
+        try {
+            this.save(doc);
+        } catch (RuntimeException e) {
+            spoolService.release(spooled);
+            throw e;
+        }
+        documentCountService.adjust(currentUser.getId(), 1);
+        documentSearchIndex.onSaved(doc);
 
         // 5. 触发异步 RAG 索引（仅支持的文件类型）
-        if (suffix != null && RAG_SUPPORTED_TYPES.contains(suffix.toLowerCase())) {
-            triggerRagIndexing(file, doc.getId().toString(), originalFilename);
+        if (spooled != null) {
+            ingestStatusService.track(doc.getId(), currentUser.getId());
+            ragService.triggerDocumentIngestion(spooled.toAbsolutePath().toString(), objectName,
+                    doc.getId().toString());
+            log.info("已触发 RAG 索引: docId={}, spoolFile={}", doc.getId(), spooled);
         }
 
         return BeanUtil.copyProperties(doc, DocumentVo.class);
     }
 
+    @Override
+    public SseEmitter uploadDocuments(List<MultipartFile> files) {
+        if (files == null || files.isEmpty()) {
+            throw new BizException("No files to upload");
+        }
+        if (files.size() > bulkMaxFiles) {
+            throw new BizException("Too many files in one batch, max " + bulkMaxFiles);
+        }
+
+        // SecurityContext 只在请求线程可用，必须在进入后台任务前取出用户
+        User currentUser = getCurrentUser();
+        if (currentUser == null) {
+            throw new BizException("User not found");
+        }
+
+        SseEmitter emitter = new SseEmitter(bulkTimeoutMs);
+        try {
+            docTaskExecutor.execute(() -> runBulkUpload(currentUser.getId(), files, emitter));
+        } catch (TaskRejectedException e) {
+            throw new BizException("Bulk upload is busy, please retry later");
+        }
+        return emitter;
+    }
+
+    @Override
+    public ChunkedUploadVo initChunkedUpload(ChunkedUploadInitDto dto) {
+        return chunkedUploadService.init(requireCurrentUserId(), dto);
+    }
+
+    @Override
+    public ChunkedUploadVo getChunkedUpload(String uploadId) {
+        return chunkedUploadService.get(requireCurrentUserId(), uploadId);
+    }
+
+    @Override
+    public void uploadChunk(String uploadId, int partNumber, InputStream in, long length) {
+        chunkedUploadService.uploadChunk(requireCurrentUserId(), uploadId, partNumber, in, length);
+    }
+
+    @Override
+    public DocumentVo completeChunkedUpload(String uploadId) {
+        Long userId = requireCurrentUserId();
+        ChunkedUploadService.CompletedUpload upload = chunkedUploadService.complete(userId, uploadId);
+
+        Document doc = newDocument(userId, upload.fileName(), upload.objectName(), upload.fileSize(),
+                upload.fileType());
+        try {
+            this.save(doc);
+        } catch (RuntimeException e) {
+            removeQuietly(upload.objectName());
+            chunkedUploadService.release(uploadId);
+            throw e;
+        }
+        // 文档记录已提交，之后才删除会话与分片；保存失败时分片仍在，客户端可以重试 complete
+        chunkedUploadService.finish(upload);
+        documentCountService.adjust(userId, 1);
+        documentSearchIndex.onSaved(doc);
+
+        // 文件只在 MinIO 中，没有 spool 副本，索引走流式传输
+        String suffix = upload.fileType();
+        if (suffix != null && RAG_SUPPORTED_TYPES.contains(suffix.toLowerCase())) {
+            ingestStatusService.track(doc.getId(), userId);
+            ragService.triggerDocumentIngestion(null, upload.objectName(), doc.getId().toString());
+        }
+        return BeanUtil.copyProperties(doc, DocumentVo.class);
+    }
+
+    @Override
+    public void abortChunkedUpload(String uploadId) {
+        chunkedUploadService.abort(requireCurrentUserId(), uploadId);
+    }
+
+    @Override
+    public SseEmitter subscribeEvents() {
+        User currentUser = getCurrentUser();
+        if (currentUser == null) {
+            throw new BizException("User not found");
+        }
+        return documentEventHub.subscribe(currentUser.getId());
+    }
+
     /**
-     * 异步触发 RAG 索引
-     * 将上传的文件保存到临时目录，然后调用 Python 服务进行向量化
+     * 批量上传主流程
+     * 1. 在 docIoExecutor 上并行写入 MinIO（线程数即并发上限）
+     * 2. 成功的记录一次性 saveBatch
+     * 3. 按 ingestBatchSize 分批提交 RAG 索引
      */
-    private void triggerRagIndexing(MultipartFile file, String docId, String fileName) {
+    private void runBulkUpload(Long userId, List<MultipartFile> files, SseEmitter emitter) {
+        int total = files.size();
+        Document[] storedDocs = new Document[total];
+        Path[] spooledFiles = new Path[total];
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+
         try {
-            // 保存到临时文件
-            String suffix = FileUtil.extName(fileName);
-            Path tempFile = Files.createTempFile("rag_", "." + suffix);
-            file.transferTo(tempFile.toFile());
+            List<CompletableFuture<Void>> futures = new ArrayList<>(total);
+            for (int i = 0; i < total; i++) {
+                int index = i;
+                MultipartFile file = files.get(i);
+                futures.add(CompletableFuture
+                        .runAsync(() -> {
+                            Path spooled = spoolIfIndexable(file, FileUtil.extName(file.getOriginalFilename()));
+                            try {
+                                storedDocs[index] = storeFile(userId, file);
+                            } catch (RuntimeException e) {
+                                spoolService.release(spooled);
+                                throw e;
+                            }
+                            spooledFiles[index] = spooled;
+                        }, docIoExecutor)
+                        .whenComplete((v, ex) -> {
+                            Map<String, Object> event = progressEvent(index, file.getOriginalFilename(),
+                                    completed.incrementAndGet(), total);
+                            if (ex != null) {
+                                failed.incrementAndGet();
+                                Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                                event.put("status", "failed");
+                                event.put("error", cause.getMessage());
+                            } else {
+                                event.put("status", "stored");
+                            }
+                            sendEvent(emitter, "progress", event);
+                        }));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).exceptionally(ex -> null).join();
+
+            List<Document> docs = new ArrayList<>(total);
+            for (Document doc : storedDocs) {
+                if (doc != null) {
+                    docs.add(doc);
+                }
+            }
+
+            if (!docs.isEmpty()) {
+                try {
+                    this.saveBatch(docs, 100);
+                    documentCountService.adjust(userId, docs.size());
+                    docs.forEach(documentSearchIndex::onSaved);
+                } catch (Exception e) {
+                    // 元数据写入失败时回收已上传的对象，避免 MinIO 中留下孤儿文件
+                    log.error("批量写入文档记录失败: count={}", docs.size(), e);
+                    docs.forEach(doc -> removeQuietly(doc.getFilePath()));
+                    for (Path spooled : spooledFiles) {
+                        spoolService.release(spooled);
+                    }
+                    throw e;
+                }
+                for (int i = 0; i < total; i++) {
+                    if (storedDocs[i] != null) {
+                        Map<String, Object> event = progressEvent(i, storedDocs[i].getFileName(), completed.get(), total);
+                        event.put("status", "saved");
+                        event.put("docId", storedDocs[i].getId());
+                        sendEvent(emitter, "progress", event);
+                    }
+                }
+            }
+
+            submitIngestionInBatches(storedDocs, spooledFiles, emitter);
+
+            Map<String, Object> done = new HashMap<>();
+            done.put("total", total);
+            done.put("succeeded", docs.size());
+            done.put("failed", failed.get());
+            sendEvent(emitter, "done", done);
+            emitter.complete();
+        } catch (Exception e) {
+            log.error("批量上传失败: userId={}, count={}", userId, total, e);
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            sendEvent(emitter, "error", error);
+            emitter.complete();
+        }
+    }
+
+    private Document storeFile(Long userId, MultipartFile file) {
+        if (file.isEmpty()) {
+            throw new BizException("Cannot upload empty file");
+        }
+        String originalFilename = file.getOriginalFilename();
+        String suffix = FileUtil.extName(originalFilename);
+        String objectName = IdUtil.simpleUUID() + "." + suffix;
+
+        StorageCodec codec = storageCodecFor(suffix);
+        minioService.uploadFile(file, objectName, codec);
+        Document doc = newDocument(userId, originalFilename, objectName, file.getSize(), suffix);
+        doc.setStorageCodec(codec.getValue());
+        return doc;
+    }
+
+    /**
+     * 文本类文档压缩存储；分片上传在 MinIO 端拼接，不经过应用，始终原样存储
+     */
+    private StorageCodec storageCodecFor(String suffix) {
+        return compressText ? StorageCodec.forFileType(suffix) : StorageCodec.NONE;
+    }
+
+    private Document newDocument(Long userId, String fileName, String objectName, long fileSize, String suffix) {
+        LocalDateTime now = LocalDateTime.now();
+        Document doc = new Document();
+        doc.setUserId(userId);
+        doc.setTitle(fileName);
+        doc.setFileName(fileName);
+        doc.setFilePath(objectName);
+        doc.setFileSize(fileSize);
+        doc.setFileType(suffix);
+        doc.setStatus(0);
+        doc.setDeleted(0);
+        doc.setCreateTime(now);
+        doc.setUpdateTime(now);
+        return doc;
+    }
 
-            // 异步调用 RAG 服务
-            ragService.triggerDocumentIngestion(tempFile.toAbsolutePath().toString(), docId);
+    /**
+     * 为 RAG 索引准备本地副本（复制而不是 transferTo，避免移动 multipart 临时文件）
+     *
+     * @return spool 文件；不支持索引的类型或写入失败时返回 null
+     * @throws BizException spool 配额不足
+     */
+    private Path spoolIfIndexable(MultipartFile file, String suffix) {
+        if (suffix == null || !RAG_SUPPORTED_TYPES.contains(suffix.toLowerCase())) {
+            return null;
+        }
+        try (InputStream in = file.getInputStream()) {
+            return spoolService.spool(in, file.getSize(), suffix);
+        } catch (IOException e) {
+            log.error("保存 RAG spool 文件失败: file={}", file.getOriginalFilename(), e);
+            return null;
+        }
+    }
+
+    private void submitIngestionInBatches(Document[] storedDocs, Path[] spooledFiles, SseEmitter emitter) {
+        List<Map<String, String>> batch = new ArrayList<>(ingestBatchSize);
+        for (int i = 0; i < storedDocs.length; i++) {
+            if (storedDocs[i] == null || spooledFiles[i] == null) {
+                continue;
+            }
+            ingestStatusService.track(storedDocs[i].getId(), storedDocs[i].getUserId());
+            Map<String, String> item = new HashMap<>();
+            item.put("file_path", spooledFiles[i].toAbsolutePath().toString());
+            item.put("object_name", storedDocs[i].getFilePath());
+            item.put("doc_id", storedDocs[i].getId().toString());
+            batch.add(item);
+            if (batch.size() >= ingestBatchSize) {
+                flushIngestionBatch(batch, emitter);
+                batch = new ArrayList<>(ingestBatchSize);
+            }
+        }
+        flushIngestionBatch(batch, emitter);
+    }
 
-            log.info("已触发 RAG 索引: docId={}, tempFile={}", docId, tempFile);
+    private void flushIngestionBatch(List<Map<String, String>> batch, SseEmitter emitter) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        ragService.triggerBatchIngestion(batch);
+        Map<String, Object> event = new HashMap<>();
+        event.put("docIds", batch.stream().map(item -> item.get("doc_id")).collect(Collectors.toList()));
+        sendEvent(emitter, "ingest", event);
+    }
+
+    private Map<String, Object> progressEvent(int index, String fileName, int completed, int total) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("index", index);
+        event.put("fileName", fileName);
+        event.put("completed", completed);
+        event.put("total", total);
+        return event;
+    }
+
+    /**
+     * 推送 SSE 事件；客户端断开不影响后台上传继续完成
+     */
+    private void sendEvent(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data));
         } catch (Exception e) {
-            log.error("触发 RAG 索引失败: docId={}, error={}", docId, e.getMessage(), e);
-            // 不影响主流程，只记录日志
+            log.debug("SSE 推送失败（客户端可能已断开）: event={}, error={}", name, e.getMessage());
+        }
+    }
+
+    private void removeQuietly(String objectName) {
+        try {
+            minioService.removeFile(objectName);
+        } catch (Exception e) {
+            log.warn("回收 MinIO 对象失败: object={}", objectName);
         }
     }
 
@@ -119,60 +495,499 @@ public class DocumentServiceImpl extends ServiceImpl<DocumentMapper, Document> i
             throw new BizException("User not found");
         }
 
+        if (StringUtils.hasText(queryDto.getKeyword())) {
+            return listByKeyword(currentUser.getId(), queryDto);
+        }
+
         Page<Document> page = new Page<>(queryDto.getPage(), queryDto.getSize());
+        // 总数来自增量维护的缓存计数，跳过分页插件的 COUNT(*)
+        page.setSearchCount(false);
+
         LambdaQueryWrapper<Document> wrapper = new LambdaQueryWrapper<>();
         wrapper.eq(Document::getUserId, currentUser.getId())
                 .eq(Document::getDeleted, 0)
-                .like(StringUtils.hasText(queryDto.getKeyword()), Document::getTitle, queryDto.getKeyword())
-                .orderByDesc(Document::getCreateTime);
+                .orderByDesc(Document::getCreateTime)
+                .orderByDesc(Document::getId);
 
         Page<Document> result = this.page(page, wrapper);
+        long total = documentCountService.getCount(currentUser.getId());
+
+        Page<DocumentVo> voPage = new Page<>(result.getCurrent(), result.getSize(), total);
+        voPage.setRecords(toVoList(result.getRecords()));
+
+        return voPage;
+    }
+
+    /**
+     * 关键字列表：倒排索引命中全部词项的文档按相关度排序，再按页取出
+     */
+    private Page<DocumentVo> listByKeyword(Long userId, DocumentQueryDto queryDto) {
+        List<InvertedIndex.Hit> hits = documentSearchIndex.search(userId, queryDto.getKeyword(),
+                MAX_KEYWORD_HITS, true);
+
+        long current = queryDto.getPage();
+        long size = queryDto.getSize();
+        Page<DocumentVo> voPage = new Page<>(current, size, hits.size());
+
+        int from = (int) Math.min((current - 1) * size, hits.size());
+        int to = (int) Math.min(from + size, hits.size());
+        List<Long> ids = hits.subList(from, to).stream().map(InvertedIndex.Hit::id).collect(Collectors.toList());
+        voPage.setRecords(toVoList(loadInOrder(ids)));
+        return voPage;
+    }
+
+    @Override
+    public List<DocumentVo> searchDocuments(String query, int k) {
+        User currentUser = getCurrentUser();
+        if (currentUser == null) {
+            throw new BizException("User not found");
+        }
+        if (!StringUtils.hasText(query)) {
+            return new ArrayList<>();
+        }
+
+        int limit = Math.max(1, Math.min(k, MAX_CURSOR_PAGE_SIZE));
+        List<Long> ids = documentSearchIndex.search(currentUser.getId(), query, limit, false).stream()
+                .map(InvertedIndex.Hit::id)
+                .collect(Collectors.toList());
+        return toVoList(loadInOrder(ids));
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void updateMetadata(Long id, Document metadata) {
+        Document doc = this.getById(id);
+        if (doc == null || !doc.getUserId().equals(getCurrentUser().getId())) {
+            throw new BizException("Document not found or access denied");
+        }
+
+        applyMetadata(doc, metadata);
+        // 实体已加载，自动填充不会覆盖旧值；显式刷新更新时间，版本号单独递增，缓存的引用据此失效
+        doc.setUpdateTime(LocalDateTime.now());
+
+        try {
+            this.updateById(doc);
+            baseMapper.bumpMetaVersion(List.of(id));
+        } catch (DuplicateKeyException e) {
+            throw new BizException(ResultCode.BAD_REQUEST, "Another document already uses DOI " + doc.getDoi());
+        }
+        // 提交后再同步索引、失效引用缓存，避免并发读取回填提交前的旧版本
+        TransactionHooks.afterCommit(() -> {
+            documentSearchIndex.onSaved(doc);
+            citationCache.invalidate(id);
+        });
+    }
+
+    @Override
+    public Document getDocumentVersion(Long id) {
+        Document doc = this.getOne(new LambdaQueryWrapper<Document>()
+                .select(Document::getId, Document::getUserId, Document::getMetaVersion)
+                .eq(Document::getId, id));
+        if (doc == null || !doc.getUserId().equals(getCurrentUser().getId())) {
+            throw new BizException("Document not found or access denied");
+        }
+        return doc;
+    }
+
+    @Override
+    public long exportCitations(List<Long> ids, String format, Writer out) {
+        User currentUser = getCurrentUser();
+        if (currentUser == null) {
+            throw new BizException("User not found");
+        }
+        boolean bibtex = "bibtex".equalsIgnoreCase(format);
+        // 非 BibTeX / RIS 时按编译好的样式输出参考文献列表
+        CitationStyle style = bibtex ? null : CitationStyles.find(format);
+
+        // 所有条目复用同一个缓冲区，逐行读库、逐条写出，内存占用与文献库大小无关
+        StringBuilder buffer = new StringBuilder(1024);
+        CitationService.CitationKeyRegistry keys = new CitationService.CitationKeyRegistry();
+        long[] count = { 0 };
+        long start = System.nanoTime();
+
+        baseMapper.streamCitationFields(currentUser.getId(), ids, context -> {
+            Document doc = context.getResultObject();
+            buffer.setLength(0);
+            if (bibtex) {
+                citationService.appendBibTeX(doc, keys.register(citationService.generateCitationKey(doc)), buffer);
+                buffer.append("\n\n");
+            } else {
+                // BibTeX 的 key 依赖本次导出的去重状态，不走缓存；其余格式与单篇渲染共用缓存
+                buffer.append(citationCache.get(doc, style != null ? style.getName() : "ris"));
+                buffer.append('\n');
+            }
+            try {
+                out.append(buffer);
+            } catch (IOException e) {
+                // 客户端断开时停止读取，释放数据库连接
+                context.stop();
+                throw new UncheckedIOException(e);
+            }
+            count[0]++;
+        });
+
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        log.info("引用导出完成: userId={}, format={}, entries={}, cost={}s, throughput={} entries/s",
+                currentUser.getId(), format, count[0], String.format("%.3f", seconds),
+                seconds > 0 ? Math.round(count[0] / seconds) : count[0]);
+        return count[0];
+    }
+
+    @Override
+    public SseEmitter importCitations(MultipartFile file, String format) {
+        if (file.isEmpty()) {
+            throw new BizException("Cannot import empty file");
+        }
+        String resolved = StringUtils.hasText(format) ? format.toLowerCase() : FileUtil.extName(file.getOriginalFilename());
+        boolean bibtex;
+        if ("bibtex".equals(resolved) || "bib".equals(resolved)) {
+            bibtex = true;
+        } else if ("ris".equals(resolved) || "endnote".equals(resolved)) {
+            bibtex = false;
+        } else {
+            throw new BizException(ResultCode.BAD_REQUEST, "Unsupported import format: " + resolved);
+        }
+
+        User currentUser = getCurrentUser();
+        if (currentUser == null) {
+            throw new BizException("User not found");
+        }
+
+        SseEmitter emitter = new SseEmitter(bulkTimeoutMs);
+        try {
+            docTaskExecutor.execute(() -> runCitationImport(currentUser.getId(), file, bibtex, emitter));
+        } catch (TaskRejectedException e) {
+            throw new BizException("Import is busy, please retry later");
+        }
+        return emitter;
+    }
+
+    /**
+     * 流式导入：解析器一次只产出一条记录，攒满 IMPORT_BATCH_SIZE 条后按 DOI 做一次 upsert
+     */
+    private void runCitationImport(Long userId, MultipartFile file, boolean bibtex, SseEmitter emitter) {
+        ImportStats stats = new ImportStats();
+        long start = System.nanoTime();
+        try (InputStream in = file.getInputStream();
+                Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+                CitationReader citations = bibtex ? new BibTeXReader(reader) : new RisReader(reader)) {
+
+            List<Document> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+            CitationEntry entry;
+            while ((entry = citations.next()) != null) {
+                stats.parsed++;
+                batch.add(citationService.toDocument(entry, userId));
+                if (batch.size() >= IMPORT_BATCH_SIZE) {
+                    upsertByDoi(userId, batch, stats);
+                    batch.clear();
+                    sendEvent(emitter, "progress", stats.toEvent());
+                }
+            }
+            upsertByDoi(userId, batch, stats);
+            stats.malformed = citations.getMalformedCount();
+
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+            log.info("文献导入完成: userId={}, parsed={}, inserted={}, updated={}, malformed={}, cost={}s",
+                    userId, stats.parsed, stats.inserted, stats.updated, stats.malformed, String.format("%.3f", seconds));
+            sendEvent(emitter, "done", stats.toEvent());
+            emitter.complete();
+        } catch (Exception e) {
+            log.error("文献导入失败: userId={}, parsed={}", userId, stats.parsed, e);
+            Map<String, Object> error = stats.toEvent();
+            error.put("error", e.getMessage());
+            sendEvent(emitter, "error", error);
+            emitter.complete();
+        }
+    }
+
+    /**
+     * 按 DOI upsert 一批记录：批内 DOI 重复时后者覆盖前者，库中已有相同 DOI 的只更新元数据
+     *
+     * DOI 已在解析时规范化（去掉解析器前缀、小写），(user_id, doi) 上有唯一键；
+     * 查询已有记录与写入在同一事务中，并发导入同一 DOI 时后提交的一方触发唯一键冲突，
+     * 整批回滚后重新查询一次即可看到对方写入的行
+     */
+    private void upsertByDoi(Long userId, List<Document> batch, ImportStats stats) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<Document> inserts = new ArrayList<>();
+        List<Document> updates = new ArrayList<>();
+        for (int attempt = 1; ; attempt++) {
+            inserts.clear();
+            updates.clear();
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    planUpsert(userId, batch, inserts, updates);
+                    if (!inserts.isEmpty()) {
+                        this.saveBatch(inserts, IMPORT_BATCH_SIZE);
+                    }
+                    if (!updates.isEmpty()) {
+                        this.updateBatchById(updates, IMPORT_BATCH_SIZE);
+                        baseMapper.bumpMetaVersion(updates.stream().map(Document::getId).toList());
+                    }
+                });
+                break;
+            } catch (DuplicateKeyException e) {
+                if (attempt >= IMPORT_UPSERT_ATTEMPTS) {
+                    throw e;
+                }
+                log.info("文献导入 DOI 冲突，重试当前批次: userId={}, attempt={}", userId, attempt);
+                // 回滚后保存失败的实体可能已带上自增 ID，重新规划前清掉
+                batch.forEach(doc -> doc.setId(null));
+            }
+        }
+
+        documentCountService.adjust(userId, inserts.size());
+        inserts.forEach(documentSearchIndex::onSaved);
+        updates.forEach(documentSearchIndex::onSaved);
+        updates.forEach(doc -> citationCache.invalidate(doc.getId()));
+        stats.inserted += inserts.size();
+        stats.updated += updates.size();
+    }
+
+    /**
+     * 拆分为新增与更新（调用方持有事务）
+     */
+    private void planUpsert(Long userId, List<Document> batch, List<Document> inserts, List<Document> updates) {
+        Map<String, Document> byDoi = new LinkedHashMap<>();
+        for (Document doc : batch) {
+            if (doc.getDoi() != null) {
+                byDoi.put(doc.getDoi(), doc);
+            } else {
+                inserts.add(doc);
+            }
+        }
+        if (!byDoi.isEmpty()) {
+            List<Document> existing = this.list(new LambdaQueryWrapper<Document>()
+                    .eq(Document::getUserId, userId)
+                    .in(Document::getDoi, byDoi.keySet()));
+            for (Document current : existing) {
+                Document incoming = byDoi.remove(current.getDoi());
+                if (incoming != null) {
+                    if (current.getTitle() == null || current.getTitle().equals(current.getFileName())) {
+                        // 标题仍是上传时的文件名，用文献库中的正式标题替换
+                        current.setTitle(incoming.getTitle());
+                    }
+                    applyMetadata(current, incoming);
+                    current.setUpdateTime(LocalDateTime.now());
+                    updates.add(current);
+                }
+            }
+        }
+        inserts.addAll(byDoi.values());
+    }
+
+    private void applyMetadata(Document target, Document source) {
+        target.setAuthors(source.getAuthors());
+        target.setPublicationYear(source.getPublicationYear());
+        target.setJournal(source.getJournal());
+        target.setVolume(source.getVolume());
+        target.setPages(source.getPages());
+        target.setDoi(CitationEntry.normalizeDoi(source.getDoi()));
+        target.setPublisher(source.getPublisher());
+    }
+
+    private static class ImportStats {
+        long parsed;
+        long inserted;
+        long updated;
+        int malformed;
+
+        Map<String, Object> toEvent() {
+            Map<String, Object> event = new LinkedHashMap<>();
+            event.put("parsed", parsed);
+            event.put("inserted", inserted);
+            event.put("updated", updated);
+            event.put("malformed", malformed);
+            return event;
+        }
+    }
+
+    /**
+     * 按给定 id 顺序批量加载文档（保持相关度排序）
+     */
+    private List<Document> loadInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Document> byId = this.listByIds(ids).stream()
+                .collect(Collectors.toMap(Document::getId, doc -> doc));
+        List<Document> ordered = new ArrayList<>(ids.size());
+        for (Long docId : ids) {
+            Document doc = byId.get(docId);
+            if (doc != null) {
+                ordered.add(doc);
+            }
+        }
+        return ordered;
+    }
+
+    @Override
+    public CursorPage<DocumentVo> listDocumentsByCursor(DocumentQueryDto queryDto) {
+        User currentUser = getCurrentUser();
+        if (currentUser == null) {
+            throw new BizException("User not found");
+        }
+
+        int size = Math.max(1, Math.min(queryDto.getSize() == null ? 10 : queryDto.getSize(), MAX_CURSOR_PAGE_SIZE));
+        boolean hasKeyword = StringUtils.hasText(queryDto.getKeyword());
+
+        // 走 (user_id, deleted, create_time, id) 联合索引的范围扫描，多取一条判断是否还有下一页
+        LambdaQueryWrapper<Document> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(Document::getUserId, currentUser.getId())
+                .eq(Document::getDeleted, 0)
+                .like(hasKeyword, Document::getTitle, queryDto.getKeyword());
+        if (StringUtils.hasText(queryDto.getCursor())) {
+            Object[] cursor = decodeCursor(queryDto.getCursor());
+            LocalDateTime cursorTime = (LocalDateTime) cursor[0];
+            Long cursorId = (Long) cursor[1];
+            if (cursorTime == null) {
+                // 上一页停在未回填的行上：DESC 排序时 NULL 排在最后，只剩 NULL 行
+                wrapper.and(w -> w.isNull(Document::getCreateTime).lt(Document::getId, cursorId));
+            } else {
+                // 未回填（create_time 为 NULL）的行排在所有非空行之后，仍属于后续页
+                wrapper.and(w -> w.lt(Document::getCreateTime, cursorTime)
+                        .or(o -> o.eq(Document::getCreateTime, cursorTime).lt(Document::getId, cursorId))
+                        .or(o -> o.isNull(Document::getCreateTime)));
+            }
+        }
+        wrapper.orderByDesc(Document::getCreateTime)
+                .orderByDesc(Document::getId)
+                .last("LIMIT " + (size + 1));
 
-        Page<DocumentVo> voPage = new Page<>(result.getCurrent(), result.getSize(), result.getTotal());
-        List<DocumentVo> voList = result.getRecords().stream()
+        List<Document> rows = this.list(wrapper);
+        String nextCursor = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            Document last = rows.get(size - 1);
+            nextCursor = encodeCursor(last.getCreateTime(), last.getId());
+        }
+
+        Long total = hasKeyword ? null : documentCountService.getCount(currentUser.getId());
+        return CursorPage.of(toVoList(rows), nextCursor, total);
+    }
+
+    /**
+     * 启动时一次性回填空的 create_time，读路径不再写库
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillCreateTime() {
+        try {
+            int updated = baseMapper.backfillCreateTime();
+            if (updated > 0) {
+                log.info("已回填文档 create_time: rows={}", updated);
+            }
+        } catch (Exception e) {
+            log.warn("回填文档 create_time 失败: {}", e.getMessage());
+        }
+    }
+
+    private List<DocumentVo> toVoList(List<Document> docs) {
+        return docs.stream()
                 .map(doc -> {
-                    if (doc.getCreateTime() == null) {
-                        LocalDateTime fallback = doc.getUpdateTime() != null ? doc.getUpdateTime() : LocalDateTime.now();
-                        doc.setCreateTime(fallback);
-                        if (doc.getUpdateTime() == null) {
-                            doc.setUpdateTime(fallback);
-                        }
-                        this.updateById(doc);
+                    DocumentVo vo = BeanUtil.copyProperties(doc, DocumentVo.class);
+                    if (vo.getCreateTime() == null) {
+                        // 尚未回填的历史数据仅在展示层兜底，不写库
+                        vo.setCreateTime(doc.getUpdateTime());
                     }
-                    return BeanUtil.copyProperties(doc, DocumentVo.class);
+                    return vo;
                 })
                 .collect(Collectors.toList());
-        voPage.setRecords(voList);
+    }
 
-        return voPage;
+    /**
+     * 游标格式：Base64URL("createTimeMillis:id")，对客户端不透明
+     * 启动回填完成前 create_time 可能为空，此时写为 "n:id"
+     */
+    private String encodeCursor(LocalDateTime createTime, Long id) {
+        String time = createTime == null ? NULL_CURSOR_TIME
+                : String.valueOf(createTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((time + ":" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Object[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf(':');
+            String time = raw.substring(0, sep);
+            Long id = Long.parseLong(raw.substring(sep + 1));
+            if (NULL_CURSOR_TIME.equals(time)) {
+                return new Object[] { null, id };
+            }
+            LocalDateTime createTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(Long.parseLong(time)),
+                    ZoneId.systemDefault());
+            return new Object[] { createTime, id };
+        } catch (Exception e) {
+            throw new BizException(ResultCode.BAD_REQUEST, "Invalid cursor");
+        }
     }
 
     @Override
     public InputStream downloadDocument(Long id) {
+        return openDownload(id, false).stream();
+    }
+
+    @Override
+    public Download openDownload(Long id, boolean acceptDeflate) {
         Document doc = this.getById(id);
         if (doc == null || !doc.getUserId().equals(getCurrentUser().getId())) {
             throw new BizException("Document not found or access denied");
         }
-        return minioService.getFile(doc.getFilePath());
+        if (!StringUtils.hasText(doc.getFilePath())) {
+            throw new BizException("Document has no attached file");
+        }
+        StorageCodec codec = StorageCodec.of(doc.getStorageCodec());
+        InputStream stored = minioService.getFile(doc.getFilePath());
+        if (codec != StorageCodec.NONE && acceptDeflate) {
+            // 客户端能解码时直接透传压缩字节，省去服务端解压和一半以上的出口流量
+            return new Download(doc, stored, codec.getValue());
+        }
+        return new Download(doc, codec.decode(stored), null);
+    }
+
+    @Override
+    public int downloadZip(List<Long> ids, OutputStream out) throws IOException {
+        Long userId = requireCurrentUserId();
+        if (ids == null || ids.isEmpty()) {
+            throw new BizException(ResultCode.BAD_REQUEST, "No documents selected");
+        }
+        if (ids.size() > zipMaxFiles) {
+            throw new BizException(ResultCode.BAD_REQUEST, "Too many documents, at most " + zipMaxFiles);
+        }
+        List<Document> docs = loadInOrder(new ArrayList<>(new LinkedHashSet<>(ids))).stream()
+                .filter(doc -> doc.getUserId().equals(userId) && StringUtils.hasText(doc.getFilePath()))
+                .collect(Collectors.toList());
+        if (docs.isEmpty()) {
+            throw new BizException("Document not found or access denied");
+        }
+        return documentZipWriter.write(docs, out);
     }
 
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public void deleteDocument(Long id) {
         Document doc = this.getById(id);
         if (doc == null || !doc.getUserId().equals(getCurrentUser().getId())) {
             throw new BizException("Document not found or access denied");
         }
 
-        // 1. Delete from MinIO
-        minioService.removeFile(doc.getFilePath());
-
-        // 2. Delete from DB
-        this.removeById(id);
+        // 只写墓碑；MinIO 文件、向量和数据库行由 DocumentPurgeService 在后台批量清理
+        if (baseMapper.markDeleted(id) == 0) {
+            return;
+        }
+        documentCountService.adjust(doc.getUserId(), -1);
+        documentSearchIndex.onDeleted(doc);
+        citationCache.invalidate(id);
+        log.info("文档已标记删除: docId={}", id);
+    }
 
-        // 3. 异步删除向量数据库中的向量
-        ragService.deleteDocumentVectors(id.toString());
-        log.info("已触发向量删除: docId={}", id);
+    private Long requireCurrentUserId() {
+        User currentUser = getCurrentUser();
+        if (currentUser == null) {
+            throw new BizException("User not found");
+        }
+        return currentUser.getId();
     }
 
     private User getCurrentUser() {
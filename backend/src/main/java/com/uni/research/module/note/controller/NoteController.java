@@ -1,8 +1,12 @@
 package com.uni.research.module.note.controller;
 
 import com.uni.research.common.result.Result;
+import com.uni.research.module.note.dto.NoteBatchDto;
+import com.uni.research.module.note.dto.NoteBatchVo;
+import com.uni.research.module.note.dto.NoteSearchHitVo;
 import com.uni.research.module.note.entity.Note;
 import com.uni.research.module.note.service.NoteService;
+import com.uni.research.module.note.service.NoteTagIndex;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
@@ -33,6 +37,19 @@ public class NoteController {
         return Result.success(noteService.updateNote(id, note));
     }
 
+    @Operation(summary = "Autosave Note Content")
+    @PutMapping("/{id}/autosave")
+    public Result<Boolean> autosaveNote(@PathVariable Long id, @RequestBody Note note) {
+        noteService.autosave(id, note.getContent());
+        return Result.success(true);
+    }
+
+    @Operation(summary = "Batch Note Operations")
+    @PostMapping("/batch")
+    public Result<NoteBatchVo> applyBatch(@RequestBody NoteBatchDto batch) {
+        return Result.success(noteService.applyBatch(batch));
+    }
+
     @Operation(summary = "Delete Note")
     @DeleteMapping("/{id}")
     public Result<Boolean> deleteNote(@PathVariable Long id) {
@@ -46,9 +63,38 @@ public class NoteController {
         return Result.success(noteService.getDocumentNotes(docId));
     }
 
+    @Operation(summary = "Get Document Notes in Page Range")
+    @GetMapping("/doc/{docId}/range")
+    public Result<List<Note>> getDocumentNotesInRange(@PathVariable Long docId, @RequestParam int from,
+            @RequestParam int to) {
+        return Result.success(noteService.getDocumentNotesInRange(docId, from, to));
+    }
+
     @Operation(summary = "Search Notes")
     @GetMapping("/search")
     public Result<List<Note>> searchNotes(@RequestParam String keyword) {
         return Result.success(noteService.searchNotes(keyword));
     }
+
+    @Operation(summary = "Search Notes by Relevance")
+    @GetMapping("/search/ranked")
+    public Result<List<NoteSearchHitVo>> searchNotesRanked(@RequestParam String q,
+            @RequestParam(defaultValue = "20") int k) {
+        return Result.success(noteService.searchNotesRanked(q, k));
+    }
+
+    @Operation(summary = "Get Notes by Tags")
+    @GetMapping("/tagged")
+    public Result<List<Note>> getNotesByTags(@RequestParam List<String> tags,
+            @RequestParam(defaultValue = "and") String mode) {
+        return Result.success(noteService.getNotesByTags(tags, !"or".equalsIgnoreCase(mode)));
+    }
+
+    @Operation(summary = "Get Tag Facets")
+    @GetMapping("/tags")
+    public Result<List<NoteTagIndex.Facet>> getTagFacets(@RequestParam(required = false) List<String> tags,
+            @RequestParam(defaultValue = "and") String mode,
+            @RequestParam(defaultValue = "50") int limit) {
+        return Result.success(noteService.getTagFacets(tags, !"or".equalsIgnoreCase(mode), limit));
+    }
 }
@@ -0,0 +1,21 @@
+package com.uni.research.module.note.dto;
+
+import com.uni.research.module.note.entity.Note;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Batched note operations, applied in one transaction
+ */
+@Data
+public class NoteBatchDto {
+    private List<Note> creates;
+
+    /**
+     * Notes to update (id required); null fields are left unchanged
+     */
+    private List<Note> updates;
+
+    private List<Long> deletes;
+}
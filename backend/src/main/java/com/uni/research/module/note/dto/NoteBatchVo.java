@@ -0,0 +1,18 @@
+package com.uni.research.module.note.dto;
+
+import com.uni.research.module.note.entity.Note;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class NoteBatchVo {
+    /**
+     * Created notes with generated ids, in request order
+     */
+    private List<Note> created;
+
+    private List<Note> updated;
+
+    private List<Long> deleted;
+}
@@ -0,0 +1,24 @@
+package com.uni.research.module.note.dto;
+
+import com.uni.research.module.note.entity.Note;
+import lombok.Data;
+
+@Data
+public class NoteSearchHitVo {
+    private Note note;
+
+    /**
+     * BM25 relevance score
+     */
+    private Float score;
+
+    /**
+     * Content snippet with matched terms wrapped in &lt;em&gt; (HTML-escaped)
+     */
+    private String highlight;
+
+    /**
+     * Tags with matched terms wrapped in &lt;em&gt; (HTML-escaped)
+     */
+    private String tagsHighlight;
+}
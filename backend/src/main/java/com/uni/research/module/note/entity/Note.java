@@ -46,11 +46,42 @@ public class Note implements Serializable {
      */
     private String position;
 
+    /**
+     * Start Page (1-based), null for document-level notes
+     * (page columns are always written on update so a note can be moved back to document level)
+     */
+    @TableField(updateStrategy = FieldStrategy.ALWAYS)
+    private Integer pageStart;
+
+    /**
+     * End Page (inclusive)
+     */
+    @TableField(updateStrategy = FieldStrategy.ALWAYS)
+    private Integer pageEnd;
+
+    /**
+     * Character offset within the start page
+     */
+    @TableField(updateStrategy = FieldStrategy.ALWAYS)
+    private Integer offsetStart;
+
+    /**
+     * Character offset within the end page
+     */
+    @TableField(updateStrategy = FieldStrategy.ALWAYS)
+    private Integer offsetEnd;
+
     /**
      * Tags (comma-separated)
      */
     private String tags;
 
+    /**
+     * Version: incremented by explicit saves and deletes; autosave writes are guarded by it
+     */
+    @TableField(insertStrategy = FieldStrategy.NEVER, updateStrategy = FieldStrategy.NEVER)
+    private Integer version;
+
     /**
      * Logic Delete
      */
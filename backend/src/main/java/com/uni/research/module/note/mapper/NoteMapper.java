@@ -3,10 +3,38 @@ package com.uni.research.module.note.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.uni.research.module.note.entity.Note;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Note Mapper
  */
 @Mapper
 public interface NoteMapper extends BaseMapper<Note> {
+
+    /**
+     * 页码列为空、position 为 JSON 对象的笔记（加入页码列之前写入的历史数据），按 id 分批读取
+     */
+    @Select("SELECT id, position FROM note WHERE deleted = 0 AND page_start IS NULL AND position LIKE '{%' "
+            + "AND id > #{afterId} ORDER BY id LIMIT #{limit}")
+    List<Note> selectPageBackfillCandidates(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    /**
+     * 回填页码列；保留 update_time，回填不算用户修改
+     */
+    @Update("UPDATE note SET page_start = #{pageStart}, page_end = #{pageEnd}, offset_start = #{offsetStart}, "
+            + "offset_end = #{offsetEnd}, update_time = update_time WHERE id = #{id} AND page_start IS NULL")
+    int backfillPageRange(Note note);
+
+    /**
+     * 显式保存后递增版本号，基于旧版本的自动保存不会再覆盖这次保存
+     */
+    @Update("<script>UPDATE note SET version = version + 1 WHERE id IN "
+            + "<foreach collection='ids' item='noteId' open='(' separator=',' close=')'>#{noteId}</foreach>"
+            + "</script>")
+    int bumpVersion(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,215 @@
+package com.uni.research.module.note.service;
+
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.uni.research.module.note.entity.Note;
+import com.uni.research.module.note.mapper.NoteMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Note Autosave Coalescer
+ *
+ * 编辑器自动保存会对同一条笔记连续发送很多次内容，这里只保留每条笔记的最新版本：
+ * 1. 第一次提交时登记并定时；之后的提交只替换内容、刷新最后编辑时间
+ * 2. 到期时间 = min(最后编辑 + delay, 首次编辑 + maxDelay)：停止输入 delay 后落库，
+ *    持续输入时最多 maxDelay 也会落库一次
+ * 3. 落库只 UPDATE content 一列，不做整行更新；条件带上快照的 version，
+ *    显式保存 / 删除之后（version 已递增或已删除）匹配 0 行，旧的自动保存不会覆盖新数据
+ * 4. 显式保存 / 删除前调用 discard 丢弃待写内容；读取时用待写内容覆盖，保证读到自己刚写的
+ * 5. 落库与 discard 按笔记加锁互斥：discard 返回时不会有该笔记的落库正在进行；
+ *    只有更新了 1 行时才同步索引和缓存
+ *
+ * 对应 408 考点：操作系统 - 写合并（类似页缓存的延迟写回）
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NoteAutosaveCoalescer {
+
+    /**
+     * 按笔记 ID 分段的锁，串行化同一笔记的落库与 discard
+     */
+    private static final int LOCK_STRIPES = 64;
+
+    private final NoteMapper noteMapper;
+    private final NoteSearchIndex noteSearchIndex;
+    private final NoteCache noteCache;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${note.autosave.delay-ms:2000}")
+    private long delayMs;
+
+    @Value("${note.autosave.max-delay-ms:10000}")
+    private long maxDelayMs;
+
+    private final Map<Long, Pending> pending = new ConcurrentHashMap<>();
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private ScheduledExecutorService scheduler;
+
+    private Counter receivedCounter;
+    private Counter flushedCounter;
+    private Counter failedCounter;
+    private Counter conflictCounter;
+
+    /**
+     * 待写入的笔记；note 在提交时整体替换，落库线程在移出 map 之后再读取
+     */
+    private static final class Pending {
+        volatile Note note;
+        volatile long lastEdit;
+        final long firstEdit;
+
+        Pending(Note note, long now) {
+            this.note = note;
+            this.lastEdit = now;
+            this.firstEdit = now;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "note-autosave");
+            thread.setDaemon(true);
+            return thread;
+        });
+        receivedCounter = meterRegistry.counter("note.autosave.received");
+        flushedCounter = meterRegistry.counter("note.autosave.flushed");
+        failedCounter = meterRegistry.counter("note.autosave.failed");
+        conflictCounter = meterRegistry.counter("note.autosave.conflicts");
+        meterRegistry.gauge("note.autosave.pending", pending, Map::size);
+    }
+
+    /**
+     * 提交一次自动保存（调用方已校验归属）
+     *
+     * @param note 完整的笔记快照，content 为最新内容
+     */
+    public void submit(Note note) {
+        receivedCounter.increment();
+        long now = System.currentTimeMillis();
+        pending.compute(note.getId(), (id, current) -> {
+            if (current == null) {
+                schedule(id, delayMs);
+                return new Pending(note, now);
+            }
+            current.note = note;
+            current.lastEdit = now;
+            return current;
+        });
+    }
+
+    /**
+     * 待写入的快照（用于归属校验和读取覆盖），没有时返回 null
+     */
+    public Note peek(Long noteId) {
+        Pending p = pending.get(noteId);
+        return p != null ? p.note : null;
+    }
+
+    /**
+     * 用待写入的内容覆盖查询结果
+     */
+    public void overlay(List<Note> notes) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        for (Note note : notes) {
+            Pending p = pending.get(note.getId());
+            if (p != null) {
+                note.setContent(p.note.getContent());
+            }
+        }
+    }
+
+    /**
+     * 显式保存或删除前丢弃待写内容；正在落库时等待其完成，之后的写入不会被旧内容覆盖。
+     * 必须在事务写入之前调用：落库线程持有笔记锁时可能在等待同一行的行锁
+     */
+    public void discard(Long noteId) {
+        synchronized (lockFor(noteId)) {
+            pending.remove(noteId);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        for (Long id : List.copyOf(pending.keySet())) {
+            synchronized (lockFor(id)) {
+                Pending p = pending.remove(id);
+                if (p != null) {
+                    write(p.note);
+                }
+            }
+        }
+    }
+
+    private void schedule(Long noteId, long delay) {
+        scheduler.schedule(() -> flushIfDue(noteId), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void flushIfDue(Long noteId) {
+        Pending p = pending.get(noteId);
+        if (p == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long due = Math.min(p.lastEdit + delayMs, p.firstEdit + maxDelayMs);
+        if (now < due) {
+            schedule(noteId, due - now);
+            return;
+        }
+        // remove 与 submit 的 compute 互斥：移出之后的提交会登记新的 Pending
+        synchronized (lockFor(noteId)) {
+            if (pending.remove(noteId, p)) {
+                write(p.note);
+            }
+        }
+    }
+
+    private Object lockFor(Long noteId) {
+        return locks[Math.floorMod(noteId.hashCode(), LOCK_STRIPES)];
+    }
+
+    private void write(Note note) {
+        try {
+            LambdaUpdateWrapper<Note> update = new LambdaUpdateWrapper<Note>()
+                    .set(Note::getContent, note.getContent())
+                    .eq(Note::getId, note.getId())
+                    .eq(Note::getUserId, note.getUserId());
+            if (note.getVersion() != null) {
+                update.eq(Note::getVersion, note.getVersion());
+            }
+            int rows = noteMapper.update(null, update);
+            if (rows != 1) {
+                // 快照之后有显式保存或删除，放弃这次自动保存
+                conflictCounter.increment();
+                log.info("笔记自动保存已被覆盖，放弃落库: noteId={}", note.getId());
+                return;
+            }
+            noteCache.invalidate(note.getUserId(), note.getDocId());
+            noteSearchIndex.onSaved(note);
+            flushedCounter.increment();
+        } catch (Exception e) {
+            failedCounter.increment();
+            log.error("笔记自动保存失败: noteId={}", note.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.uni.research.module.note.service;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uni.research.module.note.entity.Note;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Per-document Notes Cache
+ *
+ * 打开文档时读取该文档下的全部笔记，读远多于写，按 (userId, docId) 两级缓存：
+ * 1. L1：本地 LRU（带短 TTL），命中时不访问 Redis
+ * 2. L2：Redis 中的 JSON，多节点共享
+ * 3. 写入笔记后使缓存失效：INCR 版本号 + 删除 L2，再通过 pub/sub 通知所有节点清除 L1
+ * 4. 回填 L2 时用 Lua 比较版本号，读库期间发生过写入则放弃回填，避免旧数据覆盖新数据
+ *
+ * Redis 不可用时直接读库，缓存只是加速，不影响正确性。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NoteCache {
+
+    private static final String KEY_PREFIX = "note:doc:";
+    private static final String VERSION_PREFIX = "note:doc:ver:";
+    private static final String CHANNEL = "note:cache:invalidate";
+    private static final long VERSION_TTL_SECONDS = 24 * 3600;
+
+    /**
+     * 版本号未变时才写入缓存
+     */
+    private static final DefaultRedisScript<Long> SET_IF_VERSION = new DefaultRedisScript<>(
+            "if (redis.call('GET', KEYS[1]) or '0') == ARGV[1] then "
+                    + "redis.call('SET', KEYS[2], ARGV[2], 'EX', ARGV[3]) return 1 end return 0",
+            Long.class);
+
+    /**
+     * 版本号递增并删除缓存
+     */
+    private static final DefaultRedisScript<Long> BUMP_VERSION = new DefaultRedisScript<>(
+            "local v = redis.call('INCR', KEYS[1]) redis.call('EXPIRE', KEYS[1], ARGV[1]) "
+                    + "redis.call('DEL', KEYS[2]) return v",
+            Long.class);
+
+    private static final TypeReference<List<Note>> NOTE_LIST = new TypeReference<>() {
+    };
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${note.cache.local-size:2000}")
+    private int localSize;
+
+    @Value("${note.cache.local-ttl-seconds:60}")
+    private long localTtlSeconds;
+
+    @Value("${note.cache.redis-ttl-minutes:30}")
+    private long redisTtlMinutes;
+
+    private LRUCache<String, List<Note>> local;
+
+    private Counter l1Hits;
+    private Counter l2Hits;
+    private Counter misses;
+
+    @PostConstruct
+    public void init() {
+        local = CacheUtil.newLRUCache(localSize, localTtlSeconds * 1000);
+        listenerContainer.addMessageListener(
+                (message, pattern) -> local.remove(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(CHANNEL));
+
+        l1Hits = Counter.builder("note.cache.requests").tag("result", "l1_hit").register(meterRegistry);
+        l2Hits = Counter.builder("note.cache.requests").tag("result", "l2_hit").register(meterRegistry);
+        misses = Counter.builder("note.cache.requests").tag("result", "miss").register(meterRegistry);
+        meterRegistry.gauge("note.cache.hit.ratio", this, cache -> {
+            double hits = cache.l1Hits.count() + cache.l2Hits.count();
+            double total = hits + cache.misses.count();
+            return total == 0 ? 0 : hits / total;
+        });
+    }
+
+    /**
+     * 读取文档笔记列表，未命中时调用 loader 读库并回填
+     *
+     * @return 副本，调用方可以修改
+     */
+    public List<Note> get(Long userId, Long docId, Supplier<List<Note>> loader) {
+        String id = userId + ":" + docId;
+        List<Note> cached = local.get(id, false);
+        if (cached != null) {
+            l1Hits.increment();
+            return copy(cached);
+        }
+
+        String version = null;
+        try {
+            String json = stringRedisTemplate.opsForValue().get(KEY_PREFIX + id);
+            if (json != null) {
+                List<Note> notes = objectMapper.readValue(json, NOTE_LIST);
+                local.put(id, notes);
+                l2Hits.increment();
+                return copy(notes);
+            }
+            // 先读版本号再读库：读库期间若有写入，版本号会变化，回填会被拒绝
+            version = stringRedisTemplate.opsForValue().get(VERSION_PREFIX + id);
+        } catch (Exception e) {
+            log.warn("读取笔记缓存失败，回退到数据库: key={}, error={}", id, e.getMessage());
+            misses.increment();
+            return loader.get();
+        }
+
+        misses.increment();
+        List<Note> notes = loader.get();
+        try {
+            Long stored = stringRedisTemplate.execute(SET_IF_VERSION,
+                    Arrays.asList(VERSION_PREFIX + id, KEY_PREFIX + id),
+                    version != null ? version : "0",
+                    objectMapper.writeValueAsString(notes),
+                    String.valueOf(redisTtlMinutes * 60));
+            if (stored != null && stored == 1) {
+                local.put(id, copy(notes));
+            }
+        } catch (Exception e) {
+            log.warn("写入笔记缓存失败: key={}, error={}", id, e.getMessage());
+        }
+        return notes;
+    }
+
+    /**
+     * 笔记写入后调用（写穿透失效）：本节点立即清除，其他节点通过 pub/sub 清除
+     */
+    public void invalidate(Long userId, Long docId) {
+        if (docId == null) {
+            return;
+        }
+        String id = userId + ":" + docId;
+        local.remove(id);
+        try {
+            stringRedisTemplate.execute(BUMP_VERSION, Arrays.asList(VERSION_PREFIX + id, KEY_PREFIX + id),
+                    String.valueOf(VERSION_TTL_SECONDS));
+            stringRedisTemplate.convertAndSend(CHANNEL, id);
+        } catch (Exception e) {
+            // 本地 L1 有短 TTL，L2 有过期时间，通知失败时最多读到一个 TTL 内的旧数据
+            log.warn("笔记缓存失效失败: key={}, error={}", id, e.getMessage());
+        }
+    }
+
+    private static List<Note> copy(List<Note> notes) {
+        List<Note> copies = new ArrayList<>(notes.size());
+        for (Note note : notes) {
+            Note copy = new Note();
+            BeanUtils.copyProperties(note, copy);
+            copies.add(copy);
+        }
+        return copies;
+    }
+}
@@ -0,0 +1,199 @@
+package com.uni.research.module.note.service;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.uni.research.module.note.entity.Note;
+import com.uni.research.module.note.mapper.NoteMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Note Page-range Index
+ *
+ * 按文档分区的批注区间索引，查询与页窗口 [from, to] 重叠的批注：
+ * 1. 区间按 (起始页, 起始偏移) 排序后存入原始类型数组
+ * 2. 在有序数组上隐式建一棵平衡二叉树（区间中点为根），每个节点记录子树内的最大结束页
+ * 3. 查询时子树最大结束页 &lt; from 的整棵剪掉；节点起始页 &gt; to 时右子树也不可能重叠，
+ *    复杂度 O(log n + k)
+ * 4. 写入只修改 id -> 区间的映射并标记脏，下一次查询时重建数组（单文档批注数有限，重建代价很小）
+ *
+ * 分区按 userId:docId 缓存，数量受 LRU 限制。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NoteRangeIndex {
+
+    private final NoteMapper noteMapper;
+
+    @Value("${note.range.max-cached-docs:2000}")
+    private int maxCachedDocs;
+
+    private LRUCache<String, Partition> partitions;
+
+    @PostConstruct
+    public void init() {
+        partitions = CacheUtil.newLRUCache(maxCachedDocs);
+    }
+
+    /**
+     * 查询与页窗口重叠的批注
+     *
+     * @return 笔记 ID，按起始页、页内偏移排序
+     */
+    public List<Long> overlapping(Long userId, Long docId, int fromPage, int toPage) {
+        return partitions.get(key(userId, docId), () -> load(userId, docId)).overlapping(fromPage, toPage);
+    }
+
+    /**
+     * 笔记新增或修改后调用；分区未加载时无需处理，加载时会读到最新数据
+     */
+    public void onSaved(Note note) {
+        if (note.getDocId() == null) {
+            return;
+        }
+        Partition partition = partitions.get(key(note.getUserId(), note.getDocId()), false);
+        if (partition != null) {
+            partition.put(note);
+        }
+    }
+
+    public void onDeleted(Note note) {
+        if (note.getDocId() == null) {
+            return;
+        }
+        Partition partition = partitions.get(key(note.getUserId(), note.getDocId()), false);
+        if (partition != null) {
+            partition.remove(note.getId());
+        }
+    }
+
+    private Partition load(Long userId, Long docId) {
+        long start = System.currentTimeMillis();
+        List<Note> notes = noteMapper.selectList(new LambdaQueryWrapper<Note>()
+                .select(Note::getId, Note::getPageStart, Note::getPageEnd, Note::getOffsetStart, Note::getOffsetEnd)
+                .eq(Note::getUserId, userId)
+                .eq(Note::getDocId, docId)
+                .isNotNull(Note::getPageStart));
+
+        Partition partition = new Partition();
+        notes.forEach(partition::put);
+        log.debug("批注区间索引已加载: userId={}, docId={}, notes={}, cost={}ms", userId, docId, notes.size(),
+                System.currentTimeMillis() - start);
+        return partition;
+    }
+
+    private static String key(Long userId, Long docId) {
+        return userId + ":" + docId;
+    }
+
+    private record Interval(long id, int pageStart, int pageEnd, int offset) {
+    }
+
+    /**
+     * 单个文档的批注区间
+     */
+    private static final class Partition {
+
+        private static final Comparator<Interval> ORDER = Comparator.comparingInt(Interval::pageStart)
+                .thenComparingInt(Interval::offset)
+                .thenComparingLong(Interval::id);
+
+        private final Map<Long, Interval> intervals = new HashMap<>();
+        private boolean dirty = true;
+
+        private long[] ids;
+        private int[] starts;
+        private int[] ends;
+        private int[] maxEnds;
+
+        synchronized void put(Note note) {
+            if (note.getPageStart() == null) {
+                // 改成了文档级笔记
+                if (intervals.remove(note.getId()) != null) {
+                    dirty = true;
+                }
+                return;
+            }
+            int pageStart = note.getPageStart();
+            int pageEnd = note.getPageEnd() != null ? Math.max(note.getPageEnd(), pageStart) : pageStart;
+            int offset = note.getOffsetStart() != null ? note.getOffsetStart() : 0;
+            intervals.put(note.getId(), new Interval(note.getId(), pageStart, pageEnd, offset));
+            dirty = true;
+        }
+
+        synchronized void remove(long id) {
+            if (intervals.remove(id) != null) {
+                dirty = true;
+            }
+        }
+
+        synchronized List<Long> overlapping(int from, int to) {
+            if (dirty) {
+                rebuild();
+            }
+            List<Long> result = new ArrayList<>();
+            collect(0, ids.length - 1, from, to, result);
+            return result;
+        }
+
+        private void rebuild() {
+            List<Interval> sorted = new ArrayList<>(intervals.values());
+            sorted.sort(ORDER);
+            int n = sorted.size();
+            ids = new long[n];
+            starts = new int[n];
+            ends = new int[n];
+            maxEnds = new int[n];
+            for (int i = 0; i < n; i++) {
+                Interval interval = sorted.get(i);
+                ids[i] = interval.id();
+                starts[i] = interval.pageStart();
+                ends[i] = interval.pageEnd();
+            }
+            buildMaxEnds(0, n - 1);
+            dirty = false;
+        }
+
+        private int buildMaxEnds(int lo, int hi) {
+            if (lo > hi) {
+                return Integer.MIN_VALUE;
+            }
+            int mid = (lo + hi) >>> 1;
+            int max = Math.max(ends[mid], Math.max(buildMaxEnds(lo, mid - 1), buildMaxEnds(mid + 1, hi)));
+            maxEnds[mid] = max;
+            return max;
+        }
+
+        /**
+         * 中序遍历隐式树，结果保持有序
+         */
+        private void collect(int lo, int hi, int from, int to, List<Long> out) {
+            if (lo > hi) {
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            if (maxEnds[mid] < from) {
+                return;
+            }
+            collect(lo, mid - 1, from, to, out);
+            if (starts[mid] > to) {
+                return;
+            }
+            if (ends[mid] >= from) {
+                out.add(ids[mid]);
+            }
+            collect(mid + 1, hi, from, to, out);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.uni.research.module.note.service;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.uni.research.common.search.InvertedIndex;
+import com.uni.research.module.note.entity.Note;
+import com.uni.research.module.note.mapper.NoteMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Note Full-text Search Index
+ * 
+ * 按用户分区的内存倒排索引，覆盖笔记内容和标签（CJK bigram + 英文单词，BM25 排序）。
+ * 与 DocumentSearchIndex 相同：分区在用户第一次搜索时加载，之后由新建 / 修改 / 删除增量维护，
+ * 分区数量受 LRU 限制。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NoteSearchIndex {
+
+    private static final float CONTENT_WEIGHT = 1.0f;
+    private static final float TAGS_WEIGHT = 2.0f;
+
+    private final NoteMapper noteMapper;
+
+    @Value("${note.search.max-cached-users:1000}")
+    private int maxCachedUsers;
+
+    private LRUCache<Long, InvertedIndex> partitions;
+
+    @PostConstruct
+    public void init() {
+        partitions = CacheUtil.newLRUCache(maxCachedUsers);
+    }
+
+    /**
+     * 搜索用户的笔记
+     *
+     * @param matchAll true 时要求命中全部查询词项（近似 LIKE 子串匹配）
+     */
+    public List<InvertedIndex.Hit> search(Long userId, String query, int k, boolean matchAll) {
+        return partition(userId).search(query, k, matchAll);
+    }
+
+    /**
+     * 得分归一化到 [0, 1] 的查询，用于与其他类型的结果合并排序
+     */
+    public List<InvertedIndex.Hit> searchNormalised(Long userId, String query, int k) {
+        return partition(userId).searchNormalised(query, k);
+    }
+
+    /**
+     * 笔记新增或修改后调用；分区未加载时无需处理，加载时会读到最新数据
+     */
+    public void onSaved(Note note) {
+        InvertedIndex index = partitions.get(note.getUserId(), false);
+        if (index != null) {
+            index.put(note.getId(), fields(note));
+        }
+    }
+
+    public void onDeleted(Note note) {
+        InvertedIndex index = partitions.get(note.getUserId(), false);
+        if (index != null) {
+            index.remove(note.getId());
+        }
+    }
+
+    private InvertedIndex partition(Long userId) {
+        return partitions.get(userId, () -> load(userId));
+    }
+
+    private InvertedIndex load(Long userId) {
+        long start = System.currentTimeMillis();
+        List<Note> notes = noteMapper.selectList(new LambdaQueryWrapper<Note>()
+                .select(Note::getId, Note::getUserId, Note::getContent, Note::getTags)
+                .eq(Note::getUserId, userId));
+
+        InvertedIndex index = new InvertedIndex();
+        for (Note note : notes) {
+            index.put(note.getId(), fields(note));
+        }
+        log.info("笔记搜索索引已加载: userId={}, notes={}, cost={}ms", userId, notes.size(),
+                System.currentTimeMillis() - start);
+        return index;
+    }
+
+    private InvertedIndex.Field[] fields(Note note) {
+        return new InvertedIndex.Field[] {
+                new InvertedIndex.Field(note.getContent(), CONTENT_WEIGHT),
+                new InvertedIndex.Field(note.getTags(), TAGS_WEIGHT)
+        };
+    }
+}
@@ -1,6 +1,9 @@
 package com.uni.research.module.note.service;
 
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.uni.research.module.note.dto.NoteBatchDto;
+import com.uni.research.module.note.dto.NoteBatchVo;
+import com.uni.research.module.note.dto.NoteSearchHitVo;
 import com.uni.research.module.note.entity.Note;
 
 import java.util.List;
@@ -20,6 +23,17 @@ public interface NoteService extends IService<Note> {
      */
     Note updateNote(Long id, Note note);
 
+    /**
+     * Autosave note content; rapid successive calls are coalesced and only the
+     * latest content is written after a short delay
+     */
+    void autosave(Long id, String content);
+
+    /**
+     * Apply creates / updates / deletes in one transaction
+     */
+    NoteBatchVo applyBatch(NoteBatchDto batch);
+
     /**
      * Delete note
      */
@@ -30,8 +44,38 @@ public interface NoteService extends IService<Note> {
      */
     List<Note> getDocumentNotes(Long docId);
 
+    /**
+     * Get notes of a document whose page range overlaps [fromPage, toPage],
+     * ordered by position (document-level notes without a page are excluded)
+     */
+    List<Note> getDocumentNotesInRange(Long docId, int fromPage, int toPage);
+
     /**
      * Search notes by keyword
      */
     List<Note> searchNotes(String keyword);
+
+    /**
+     * Search notes ranked by relevance (BM25), with highlighted snippets
+     *
+     * @param query Query text
+     * @param k     Max results
+     */
+    List<NoteSearchHitVo> searchNotesRanked(String query, int k);
+
+    /**
+     * Get notes carrying the given tags
+     *
+     * @param matchAll true requires every tag (AND), false any tag (OR)
+     */
+    List<Note> getNotesByTags(List<String> tags, boolean matchAll);
+
+    /**
+     * Tag facet counts, optionally restricted to notes matching the selected tags
+     *
+     * @param tags     Selected tags (empty for all notes)
+     * @param matchAll How the selected tags are combined
+     * @param limit    Max facets, highest counts first
+     */
+    List<NoteTagIndex.Facet> getTagFacets(List<String> tags, boolean matchAll, int limit);
 }
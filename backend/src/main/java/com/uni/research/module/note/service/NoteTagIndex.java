@@ -0,0 +1,328 @@
+package com.uni.research.module.note.service;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.uni.research.module.note.entity.Note;
+import com.uni.research.module.note.mapper.NoteMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Note Tag Index
+ *
+ * 按用户分区的标签倒排索引：
+ * 1. 标签字典：规范化后的标签（去空白、小写）-> 标签序号，保留第一次出现时的写法用于展示
+ * 2. 笔记序号：分区内把笔记 ID 映射为连续的 int 序号，倒排表用 RoaringBitmap 存储序号
+ * 3. AND / OR 过滤即位图交 / 并；分面计数用 andCardinality，不需要物化交集
+ *
+ * 分区加载、淘汰与 NoteSearchIndex 一致，由 NoteServiceImpl 的新建 / 修改 / 删除增量维护。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NoteTagIndex {
+
+    /**
+     * 标签分隔符：英文 / 中文逗号、分号、顿号
+     */
+    private static final String TAG_SEPARATORS = "[,，;；、]";
+    private static final int MAX_TAG_LENGTH = 64;
+
+    /**
+     * 标签分面
+     */
+    public record Facet(String tag, int count) {
+    }
+
+    private final NoteMapper noteMapper;
+
+    @Value("${note.search.max-cached-users:1000}")
+    private int maxCachedUsers;
+
+    private LRUCache<Long, Partition> partitions;
+
+    @PostConstruct
+    public void init() {
+        partitions = CacheUtil.newLRUCache(maxCachedUsers);
+    }
+
+    /**
+     * 拆分并规范化标签字符串：去掉首尾空白和空标签，按小写去重，保留原顺序和写法
+     */
+    public static List<String> parseTags(String tags) {
+        if (tags == null || tags.isBlank()) {
+            return new ArrayList<>();
+        }
+        Map<String, String> unique = new LinkedHashMap<>();
+        for (String raw : tags.split(TAG_SEPARATORS)) {
+            String tag = raw.strip().replaceAll("\\s+", " ");
+            if (tag.isEmpty()) {
+                continue;
+            }
+            if (tag.length() > MAX_TAG_LENGTH) {
+                tag = tag.substring(0, MAX_TAG_LENGTH);
+            }
+            unique.putIfAbsent(key(tag), tag);
+        }
+        return new ArrayList<>(unique.values());
+    }
+
+    /**
+     * 规范化后的标签字符串（逗号分隔），空标签返回 null
+     */
+    public static String normalize(String tags) {
+        List<String> parsed = parseTags(tags);
+        return parsed.isEmpty() ? null : String.join(",", parsed);
+    }
+
+    /**
+     * 按标签过滤笔记
+     *
+     * @param matchAll true 要求包含全部标签（AND），false 包含任一标签（OR）
+     * @return 命中的笔记 ID，按 ID 倒序（新笔记在前）
+     */
+    public List<Long> filter(Long userId, List<String> tags, boolean matchAll) {
+        return partition(userId).filter(tags, matchAll);
+    }
+
+    /**
+     * 标签分面计数
+     *
+     * @param tags     已选标签，为空时统计全部笔记
+     * @param matchAll 已选标签的组合方式
+     * @param limit    返回的分面数量上限，按计数降序
+     */
+    public List<Facet> facets(Long userId, List<String> tags, boolean matchAll, int limit) {
+        return partition(userId).facets(tags, matchAll, limit);
+    }
+
+    /**
+     * 笔记新增或修改后调用；分区未加载时无需处理，加载时会读到最新数据
+     */
+    public void onSaved(Note note) {
+        Partition partition = partitions.get(note.getUserId(), false);
+        if (partition != null) {
+            partition.put(note.getId(), parseTags(note.getTags()));
+        }
+    }
+
+    public void onDeleted(Note note) {
+        Partition partition = partitions.get(note.getUserId(), false);
+        if (partition != null) {
+            partition.remove(note.getId());
+        }
+    }
+
+    private Partition partition(Long userId) {
+        return partitions.get(userId, () -> load(userId));
+    }
+
+    private Partition load(Long userId) {
+        long start = System.currentTimeMillis();
+        List<Note> notes = noteMapper.selectList(new LambdaQueryWrapper<Note>()
+                .select(Note::getId, Note::getTags)
+                .eq(Note::getUserId, userId)
+                .isNotNull(Note::getTags)
+                .orderByAsc(Note::getId));
+
+        Partition partition = new Partition();
+        for (Note note : notes) {
+            partition.put(note.getId(), parseTags(note.getTags()));
+        }
+        log.info("笔记标签索引已加载: userId={}, notes={}, tags={}, cost={}ms", userId, notes.size(),
+                partition.tagCount(), System.currentTimeMillis() - start);
+        return partition;
+    }
+
+    private static String key(String tag) {
+        return tag.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 单个用户的标签分区
+     */
+    private static final class Partition {
+
+        private final Map<String, Integer> tagIds = new HashMap<>();
+        private final List<String> tagNames = new ArrayList<>();
+        private final List<RoaringBitmap> postings = new ArrayList<>();
+
+        /**
+         * 序号只增不复用，删除只清空位图中的位；分区被淘汰重新加载时自然压缩
+         */
+        private final Map<Long, Integer> ordinals = new HashMap<>();
+        private long[] noteIds = new long[16];
+        private int[][] noteTags = new int[16][];
+        private int nextOrdinal;
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        void put(long noteId, List<String> tags) {
+            lock.writeLock().lock();
+            try {
+                Integer existing = ordinals.get(noteId);
+                if (existing != null) {
+                    clearTags(existing);
+                }
+                if (tags.isEmpty()) {
+                    // 没有标签的笔记不占序号，之前的序号直接作废
+                    if (existing != null) {
+                        ordinals.remove(noteId);
+                    }
+                    return;
+                }
+                int ordinal = existing != null ? existing : allocate(noteId);
+                int[] ids = new int[tags.size()];
+                for (int i = 0; i < ids.length; i++) {
+                    ids[i] = tagId(tags.get(i));
+                    postings.get(ids[i]).add(ordinal);
+                }
+                noteTags[ordinal] = ids;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(long noteId) {
+            lock.writeLock().lock();
+            try {
+                Integer ordinal = ordinals.remove(noteId);
+                if (ordinal != null) {
+                    clearTags(ordinal);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        List<Long> filter(List<String> tags, boolean matchAll) {
+            lock.readLock().lock();
+            try {
+                RoaringBitmap matched = match(tags, matchAll);
+                List<Long> result = new ArrayList<>(matched == null ? 0 : matched.getCardinality());
+                if (matched != null) {
+                    matched.forEach((int ordinal) -> result.add(noteIds[ordinal]));
+                }
+                result.sort(Comparator.reverseOrder());
+                return result;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        List<Facet> facets(List<String> tags, boolean matchAll, int limit) {
+            lock.readLock().lock();
+            try {
+                RoaringBitmap scope = null;
+                if (tags != null && !tags.isEmpty()) {
+                    scope = match(tags, matchAll);
+                    if (scope == null) {
+                        return new ArrayList<>();
+                    }
+                }
+                // 小顶堆取计数最高的 limit 个标签
+                PriorityQueue<Facet> heap = new PriorityQueue<>(Comparator.comparingInt(Facet::count));
+                for (int id = 0; id < postings.size(); id++) {
+                    RoaringBitmap posting = postings.get(id);
+                    int count = scope == null ? posting.getCardinality()
+                            : RoaringBitmap.andCardinality(posting, scope);
+                    if (count == 0) {
+                        continue;
+                    }
+                    if (heap.size() < limit) {
+                        heap.offer(new Facet(tagNames.get(id), count));
+                    } else if (count > heap.peek().count()) {
+                        heap.poll();
+                        heap.offer(new Facet(tagNames.get(id), count));
+                    }
+                }
+                List<Facet> result = new ArrayList<>(heap);
+                result.sort(Comparator.comparingInt(Facet::count).reversed().thenComparing(Facet::tag));
+                return result;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        int tagCount() {
+            return tagNames.size();
+        }
+
+        /**
+         * 已选标签对应的位图组合，没有任何命中时返回 null
+         */
+        private RoaringBitmap match(List<String> tags, boolean matchAll) {
+            List<RoaringBitmap> lists = new ArrayList<>(tags.size());
+            for (String tag : tags) {
+                Integer id = tagIds.get(key(tag.strip()));
+                if (id == null) {
+                    if (matchAll) {
+                        return null;
+                    }
+                    continue;
+                }
+                lists.add(postings.get(id));
+            }
+            if (lists.isEmpty()) {
+                return null;
+            }
+            if (matchAll) {
+                // 基数小的先做交集，中间结果最小
+                lists.sort(Comparator.comparingInt(RoaringBitmap::getCardinality));
+                RoaringBitmap result = lists.get(0).clone();
+                for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+                    result.and(lists.get(i));
+                }
+                return result.isEmpty() ? null : result;
+            }
+            RoaringBitmap result = RoaringBitmap.or(lists.iterator());
+            return result.isEmpty() ? null : result;
+        }
+
+        private int allocate(long noteId) {
+            int ordinal = nextOrdinal++;
+            if (ordinal == noteIds.length) {
+                noteIds = Arrays.copyOf(noteIds, ordinal * 2);
+                noteTags = Arrays.copyOf(noteTags, ordinal * 2);
+            }
+            noteIds[ordinal] = noteId;
+            ordinals.put(noteId, ordinal);
+            return ordinal;
+        }
+
+        private void clearTags(int ordinal) {
+            int[] ids = noteTags[ordinal];
+            if (ids == null) {
+                return;
+            }
+            for (int id : ids) {
+                postings.get(id).remove(ordinal);
+            }
+            noteTags[ordinal] = null;
+        }
+
+        private int tagId(String tag) {
+            return tagIds.computeIfAbsent(key(tag), k -> {
+                tagNames.add(tag);
+                postings.add(new RoaringBitmap());
+                return tagNames.size() - 1;
+            });
+        }
+    }
+}
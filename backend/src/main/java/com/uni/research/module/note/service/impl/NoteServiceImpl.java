@@ -1,27 +1,95 @@
 package com.uni.research.module.note.service.impl;
 
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.uni.research.common.exception.BizException;
+import com.uni.research.common.result.ResultCode;
+import com.uni.research.common.search.InvertedIndex;
+import com.uni.research.common.search.TextHighlighter;
+import com.uni.research.common.search.TextTokenizer;
+import com.uni.research.common.util.TransactionHooks;
 import com.uni.research.module.auth.entity.User;
 import com.uni.research.module.auth.mapper.UserMapper;
 import com.uni.research.module.note.entity.Note;
 import com.uni.research.module.note.mapper.NoteMapper;
+import com.uni.research.module.note.dto.NoteBatchDto;
+import com.uni.research.module.note.dto.NoteBatchVo;
+import com.uni.research.module.note.dto.NoteSearchHitVo;
+import com.uni.research.module.note.service.NoteAutosaveCoalescer;
+import com.uni.research.module.note.service.NoteCache;
+import com.uni.research.module.note.service.NoteRangeIndex;
+import com.uni.research.module.note.service.NoteSearchIndex;
 import com.uni.research.module.note.service.NoteService;
+import com.uni.research.module.note.service.NoteTagIndex;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Note Service Implementation
  */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class NoteServiceImpl extends ServiceImpl<NoteMapper, Note> implements NoteService {
 
+    private static final int MAX_KEYWORD_HITS = 10000;
+    private static final int MAX_RANKED_HITS = 100;
+    private static final int MAX_TAG_FACETS = 500;
+    private static final int MAX_RANGE_PAGES = 200;
+    private static final int MAX_BATCH_OPS = 500;
+    private static final int PAGE_BACKFILL_BATCH_SIZE = 500;
+
     private final UserMapper userMapper;
+    private final NoteSearchIndex noteSearchIndex;
+    private final NoteTagIndex noteTagIndex;
+    private final NoteRangeIndex noteRangeIndex;
+    private final NoteAutosaveCoalescer autosaveCoalescer;
+    private final NoteCache noteCache;
+
+    private final LRUCache<String, Long> userIds = CacheUtil.newLRUCache(10000);
+    private final MeterRegistry meterRegistry;
+
+    @Value("${note.search.snippet-length:120}")
+    private int snippetLength;
+
+    /**
+     * 索引路径与 LIKE 回退路径分开计时，便于在 /actuator/metrics 中对比
+     */
+    private Timer indexSearchTimer;
+    private Timer likeSearchTimer;
+
+    @PostConstruct
+    public void initMetrics() {
+        indexSearchTimer = Timer.builder("note.search.latency").tag("path", "index").register(meterRegistry);
+        likeSearchTimer = Timer.builder("note.search.latency").tag("path", "like").register(meterRegistry);
+    }
 
     private Long getCurrentUserId() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -37,6 +105,12 @@ public class NoteServiceImpl extends ServiceImpl<NoteMapper, Note> implements No
             username = principal.toString();
         }
 
+        // 用户名不可修改，缓存 username -> id，自动保存等高频请求不再每次查 sys_user
+        Long cached = userIds.get(username, false);
+        if (cached != null) {
+            return cached;
+        }
+
         // Use LambdaQueryWrapper to query user by username
         LambdaQueryWrapper<User> wrapper = new LambdaQueryWrapper<>();
         wrapper.eq(User::getUsername, username);
@@ -46,6 +120,7 @@ public class NoteServiceImpl extends ServiceImpl<NoteMapper, Note> implements No
             throw new RuntimeException("用户不存在");
         }
 
+        userIds.put(username, user.getId());
         return user.getId();
     }
 
@@ -53,11 +128,15 @@ public class NoteServiceImpl extends ServiceImpl<NoteMapper, Note> implements No
     public Note createNote(Note note) {
         // Set user ID from context
         note.setUserId(getCurrentUserId());
+        note.setTags(NoteTagIndex.normalize(note.getTags()));
+        applyPageRange(note);
         save(note);
+        onNoteChanged(note);
         return note;
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public Note updateNote(Long id, Note note) {
         Note existingNote = getById(id);
         if (existingNote == null) {
@@ -70,15 +149,141 @@ public class NoteServiceImpl extends ServiceImpl<NoteMapper, Note> implements No
         }
 
         // Update fields
-        existingNote.setContent(note.getContent());
-        existingNote.setTags(note.getTags());
-        existingNote.setNoteType(note.getNoteType());
-        existingNote.setPosition(note.getPosition());
+        applyChanges(existingNote, note);
 
+        // 先丢弃待写的自动保存，再写入并递增版本号（已经开始的落库会在 discard 中等待完成）
+        autosaveCoalescer.discard(id);
         updateById(existingNote);
+        bumpVersions(List.of(existingNote));
+        onNoteChanged(existingNote);
         return existingNote;
     }
 
+    /**
+     * 把请求中的字段合并到已有笔记；为 null 的字段保持不变（与 updateById 忽略 null 一致）
+     */
+    private void applyChanges(Note existing, Note changes) {
+        if (changes.getContent() != null) {
+            existing.setContent(changes.getContent());
+        }
+        if (changes.getTags() != null) {
+            String tags = NoteTagIndex.normalize(changes.getTags());
+            existing.setTags(tags != null ? tags : "");
+        }
+        if (changes.getNoteType() != null) {
+            existing.setNoteType(changes.getNoteType());
+        }
+        if (changes.getPosition() != null) {
+            existing.setPosition(changes.getPosition());
+        }
+        // 只改内容时保留原有页码；给出新位置时重新计算
+        if (changes.getPageStart() != null || changes.getPosition() != null) {
+            existing.setPageStart(changes.getPageStart());
+            existing.setPageEnd(changes.getPageEnd());
+            existing.setOffsetStart(changes.getOffsetStart());
+            existing.setOffsetEnd(changes.getOffsetEnd());
+            applyPageRange(existing);
+        }
+    }
+
+    @Override
+    public void autosave(Long id, String content) {
+        if (content == null) {
+            throw new BizException(ResultCode.BAD_REQUEST, "Content is required");
+        }
+        Long userId = getCurrentUserId();
+        // 连续自动保存时复用待写快照做归属校验，只有第一次需要查库
+        Note snapshot = autosaveCoalescer.peek(id);
+        if (snapshot == null) {
+            snapshot = getById(id);
+            if (snapshot == null) {
+                throw new BizException(ResultCode.NOT_FOUND, "笔记不存在");
+            }
+        }
+        if (!snapshot.getUserId().equals(userId)) {
+            throw new BizException(ResultCode.FORBIDDEN, "无权限修改此笔记");
+        }
+
+        Note latest = new Note();
+        BeanUtils.copyProperties(snapshot, latest);
+        latest.setContent(content);
+        autosaveCoalescer.submit(latest);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public NoteBatchVo applyBatch(NoteBatchDto batch) {
+        List<Note> creates = batch.getCreates() != null ? batch.getCreates() : List.of();
+        List<Note> updates = batch.getUpdates() != null ? batch.getUpdates() : List.of();
+        Set<Long> deletes = batch.getDeletes() != null ? new LinkedHashSet<>(batch.getDeletes()) : Set.of();
+        if (creates.size() + updates.size() + deletes.size() > MAX_BATCH_OPS) {
+            throw new BizException(ResultCode.BAD_REQUEST, "Too many operations, at most " + MAX_BATCH_OPS);
+        }
+        Long userId = getCurrentUserId();
+
+        // 1. 一次查询取出所有要修改 / 删除的笔记并校验归属
+        Set<Long> touched = new HashSet<>(deletes);
+        for (Note update : updates) {
+            if (update.getId() == null) {
+                throw new BizException(ResultCode.BAD_REQUEST, "Note id is required for update");
+            }
+            touched.add(update.getId());
+        }
+        Map<Long, Note> existing = touched.isEmpty() ? Map.of()
+                : listByIds(touched).stream().collect(Collectors.toMap(Note::getId, note -> note));
+        for (Long id : touched) {
+            Note note = existing.get(id);
+            if (note == null || !note.getUserId().equals(userId)) {
+                throw new BizException(ResultCode.NOT_FOUND, "笔记不存在或无权限: " + id);
+            }
+        }
+
+        // 2. 在内存中合并，同一条笔记多次更新按顺序生效；同时被删除的更新直接忽略
+        List<Note> toCreate = new ArrayList<>(creates.size());
+        for (Note create : creates) {
+            create.setId(null);
+            create.setUserId(userId);
+            create.setTags(NoteTagIndex.normalize(create.getTags()));
+            applyPageRange(create);
+            toCreate.add(create);
+        }
+        Map<Long, Note> toUpdate = new LinkedHashMap<>();
+        for (Note update : updates) {
+            if (deletes.contains(update.getId())) {
+                continue;
+            }
+            Note target = existing.get(update.getId());
+            applyChanges(target, update);
+            toUpdate.put(target.getId(), target);
+        }
+
+        // 3. 写入前丢弃待写的自动保存：落库线程持有笔记锁时可能在等待本事务的行锁，写入之后再 discard 会互相等待
+        toUpdate.keySet().forEach(autosaveCoalescer::discard);
+        deletes.forEach(autosaveCoalescer::discard);
+
+        // 4. 批量写入（saveBatch / updateBatchById 走 JDBC batch，配合 rewriteBatchedStatements）
+        if (!toCreate.isEmpty()) {
+            saveBatch(toCreate);
+        }
+        if (!toUpdate.isEmpty()) {
+            updateBatchById(toUpdate.values());
+            bumpVersions(toUpdate.values());
+        }
+        if (!deletes.isEmpty()) {
+            removeByIds(deletes);
+        }
+
+        toCreate.forEach(this::onNoteChanged);
+        toUpdate.values().forEach(this::onNoteChanged);
+        deletes.forEach(id -> onNoteDeleted(existing.get(id)));
+
+        NoteBatchVo vo = new NoteBatchVo();
+        vo.setCreated(toCreate);
+        vo.setUpdated(new ArrayList<>(toUpdate.values()));
+        vo.setDeleted(new ArrayList<>(deletes));
+        return vo;
+    }
+
     @Override
     public void deleteNote(Long id) {
         Note note = getById(id);
@@ -91,26 +296,246 @@ public class NoteServiceImpl extends ServiceImpl<NoteMapper, Note> implements No
             throw new RuntimeException("无权限删除此笔记");
         }
 
+        autosaveCoalescer.discard(id);
         removeById(id);
+        onNoteDeleted(note);
+    }
+
+    /**
+     * 显式保存后递增版本号，基于旧快照的自动保存落库时匹配 0 行
+     */
+    private void bumpVersions(Collection<Note> notes) {
+        baseMapper.bumpVersion(notes.stream().map(Note::getId).toList());
+        for (Note note : notes) {
+            note.setVersion(note.getVersion() != null ? note.getVersion() + 1 : 1);
+        }
+    }
+
+    /**
+     * 笔记写入后使文档笔记缓存失效，并同步内存索引（全文、标签、页码区间）；
+     * 在事务中调用时推迟到提交之后，避免并发读取把旧数据回填进缓存、回滚后索引与数据库不一致
+     */
+    private void onNoteChanged(Note note) {
+        TransactionHooks.afterCommit(() -> {
+            noteCache.invalidate(note.getUserId(), note.getDocId());
+            noteSearchIndex.onSaved(note);
+            noteTagIndex.onSaved(note);
+            noteRangeIndex.onSaved(note);
+        });
+    }
+
+    private void onNoteDeleted(Note note) {
+        TransactionHooks.afterCommit(() -> {
+            noteCache.invalidate(note.getUserId(), note.getDocId());
+            noteSearchIndex.onDeleted(note);
+            noteTagIndex.onDeleted(note);
+            noteRangeIndex.onDeleted(note);
+        });
+    }
+
+    /**
+     * 结构化位置：客户端没有给出页码时从 position JSON 中读取
+     * （page / pageStart / pageEnd / offsetStart / offsetEnd），并校验区间
+     */
+    private void applyPageRange(Note note) {
+        if (note.getPageStart() == null) {
+            readPageRange(note);
+        }
+        if (note.getPageStart() == null) {
+            note.setPageEnd(null);
+            note.setOffsetStart(null);
+            note.setOffsetEnd(null);
+            return;
+        }
+        if (note.getPageEnd() == null) {
+            note.setPageEnd(note.getPageStart());
+        }
+        if (note.getPageStart() < 1 || note.getPageEnd() < note.getPageStart()) {
+            throw new BizException(ResultCode.BAD_REQUEST, "Invalid page range");
+        }
+        if ((note.getOffsetStart() != null && note.getOffsetStart() < 0)
+                || (note.getOffsetEnd() != null && note.getOffsetEnd() < 0)) {
+            throw new BizException(ResultCode.BAD_REQUEST, "Invalid offset");
+        }
+    }
+
+    /**
+     * 从 position JSON 读取页码与偏移
+     *
+     * @return position 中是否带页码
+     */
+    private static boolean readPageRange(Note note) {
+        if (!JSONUtil.isTypeJSONObject(note.getPosition())) {
+            return false;
+        }
+        JSONObject position = JSONUtil.parseObj(note.getPosition());
+        Integer page = position.getInt("pageStart", position.getInt("page"));
+        if (page == null) {
+            return false;
+        }
+        note.setPageStart(page);
+        note.setPageEnd(position.getInt("pageEnd", page));
+        note.setOffsetStart(position.getInt("offsetStart"));
+        note.setOffsetEnd(position.getInt("offsetEnd"));
+        return true;
+    }
+
+    /**
+     * 启动时一次性回填页码列：加入 page_start / page_end 之前写入的批注只有 position JSON，
+     * 不回填时按页查询和区间索引都看不到它们。position 无法解析或页码非法的保持文档级
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillPageRanges() {
+        long afterId = 0;
+        int filled = 0;
+        try {
+            while (true) {
+                List<Note> batch = baseMapper.selectPageBackfillCandidates(afterId, PAGE_BACKFILL_BATCH_SIZE);
+                for (Note note : batch) {
+                    afterId = note.getId();
+                    try {
+                        if (!readPageRange(note) || note.getPageStart() < 1
+                                || note.getPageEnd() < note.getPageStart()) {
+                            continue;
+                        }
+                    } catch (RuntimeException e) {
+                        // position 不是合法 JSON 或页码不是数字
+                        continue;
+                    }
+                    filled += baseMapper.backfillPageRange(note);
+                }
+                if (batch.size() < PAGE_BACKFILL_BATCH_SIZE) {
+                    break;
+                }
+            }
+            if (filled > 0) {
+                log.info("已回填笔记页码: rows={}", filled);
+            }
+        } catch (Exception e) {
+            log.warn("回填笔记页码失败: lastId={}, error={}", afterId, e.getMessage());
+        }
     }
 
     @Override
     public List<Note> getDocumentNotes(Long docId) {
-        LambdaQueryWrapper<Note> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(Note::getUserId, getCurrentUserId())
-                .eq(Note::getDocId, docId)
-                .orderByDesc(Note::getCreateTime);
-        return list(wrapper);
+        Long userId = getCurrentUserId();
+        List<Note> notes = noteCache.get(userId, docId, () -> {
+            LambdaQueryWrapper<Note> wrapper = new LambdaQueryWrapper<>();
+            wrapper.eq(Note::getUserId, userId)
+                    .eq(Note::getDocId, docId)
+                    .orderByDesc(Note::getCreateTime);
+            return list(wrapper);
+        });
+        autosaveCoalescer.overlay(notes);
+        return notes;
     }
 
+    @Override
+    public List<Note> getDocumentNotesInRange(Long docId, int fromPage, int toPage) {
+        if (fromPage < 1 || toPage < fromPage) {
+            throw new BizException(ResultCode.BAD_REQUEST, "Invalid page range");
+        }
+        if (toPage - fromPage + 1 > MAX_RANGE_PAGES) {
+            throw new BizException(ResultCode.BAD_REQUEST, "Page window too large, at most " + MAX_RANGE_PAGES);
+        }
+        List<Long> ids = noteRangeIndex.overlapping(getCurrentUserId(), docId, fromPage, toPage);
+        List<Note> notes = loadInOrder(ids);
+        autosaveCoalescer.overlay(notes);
+        return notes;
+    }
+
+    /**
+     * 关键字过滤：倒排索引命中全部词项的笔记，保持按创建时间倒序；
+     * 单个汉字按索引中的单字词项命中，拉丁词项按前缀命中（见 TextTokenizer）；
+     * 关键字切不出词项（纯符号）时退回 LIKE
+     */
     @Override
     public List<Note> searchNotes(String keyword) {
+        Long userId = getCurrentUserId();
+        if (!StringUtils.hasText(keyword)) {
+            return new ArrayList<>();
+        }
+        if (TextTokenizer.tokenizeQuery(keyword).isEmpty()) {
+            return likeSearchTimer.record(() -> searchNotesLike(userId, keyword));
+        }
+        return indexSearchTimer.record(() -> {
+            List<Long> ids = noteSearchIndex.search(userId, keyword, MAX_KEYWORD_HITS, true).stream()
+                    .map(InvertedIndex.Hit::id)
+                    .collect(Collectors.toList());
+            List<Note> notes = loadInOrder(ids);
+            notes.sort(Comparator.comparing(Note::getCreateTime, Comparator.nullsLast(Comparator.reverseOrder())));
+            return notes;
+        });
+    }
+
+    @Override
+    public List<NoteSearchHitVo> searchNotesRanked(String query, int k) {
+        Long userId = getCurrentUserId();
+        if (!StringUtils.hasText(query)) {
+            return new ArrayList<>();
+        }
+        int limit = Math.max(1, Math.min(k, MAX_RANKED_HITS));
+        return indexSearchTimer.record(() -> {
+            List<InvertedIndex.Hit> hits = noteSearchIndex.search(userId, query, limit, false);
+            Map<Long, Note> byId = loadInOrder(hits.stream().map(InvertedIndex.Hit::id).collect(Collectors.toList()))
+                    .stream()
+                    .collect(Collectors.toMap(Note::getId, note -> note));
+            List<NoteSearchHitVo> results = new ArrayList<>(hits.size());
+            for (InvertedIndex.Hit hit : hits) {
+                Note note = byId.get(hit.id());
+                if (note == null) {
+                    continue;
+                }
+                NoteSearchHitVo vo = new NoteSearchHitVo();
+                vo.setNote(note);
+                vo.setScore(hit.score());
+                vo.setHighlight(TextHighlighter.highlight(note.getContent(), query, snippetLength));
+                vo.setTagsHighlight(TextHighlighter.highlight(note.getTags(), query, Integer.MAX_VALUE));
+                results.add(vo);
+            }
+            return results;
+        });
+    }
+
+    @Override
+    public List<Note> getNotesByTags(List<String> tags, boolean matchAll) {
+        Long userId = getCurrentUserId();
+        if (tags == null || tags.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> ids = noteTagIndex.filter(userId, tags, matchAll);
+        return loadInOrder(ids.size() > MAX_KEYWORD_HITS ? ids.subList(0, MAX_KEYWORD_HITS) : ids);
+    }
+
+    @Override
+    public List<NoteTagIndex.Facet> getTagFacets(List<String> tags, boolean matchAll, int limit) {
+        Long userId = getCurrentUserId();
+        return noteTagIndex.facets(userId, tags, matchAll, Math.max(1, Math.min(limit, MAX_TAG_FACETS)));
+    }
+
+    private List<Note> searchNotesLike(Long userId, String keyword) {
         LambdaQueryWrapper<Note> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(Note::getUserId, getCurrentUserId())
+        wrapper.eq(Note::getUserId, userId)
                 .and(w -> w.like(Note::getContent, keyword)
                         .or()
                         .like(Note::getTags, keyword))
                 .orderByDesc(Note::getCreateTime);
         return list(wrapper);
     }
+
+    private List<Note> loadInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Note> byId = listByIds(ids).stream()
+                .collect(Collectors.toMap(Note::getId, note -> note));
+        List<Note> ordered = new ArrayList<>(ids.size());
+        for (Long noteId : ids) {
+            Note note = byId.get(noteId);
+            if (note != null) {
+                ordered.add(note);
+            }
+        }
+        return ordered;
+    }
 }
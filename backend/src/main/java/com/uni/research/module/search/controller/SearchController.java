@@ -0,0 +1,35 @@
+package com.uni.research.module.search.controller;
+
+import com.uni.research.common.result.Result;
+import com.uni.research.module.search.dto.SearchHitVo;
+import com.uni.research.module.search.service.SearchService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Unified Search Controller
+ */
+@RestController
+@RequestMapping("/search")
+@RequiredArgsConstructor
+@Tag(name = "Unified Search")
+public class SearchController {
+
+    private final SearchService searchService;
+
+    @Operation(summary = "Search Documents, Notes and Chat History")
+    @GetMapping
+    public Result<List<SearchHitVo>> search(@RequestParam String q,
+            @RequestParam(defaultValue = "20") int k,
+            @RequestParam(required = false) List<String> types) {
+        return Result.success(searchService.search(q, k, types != null ? new HashSet<>(types) : null));
+    }
+}
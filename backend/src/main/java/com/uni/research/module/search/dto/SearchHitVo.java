@@ -0,0 +1,39 @@
+package com.uni.research.module.search.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class SearchHitVo {
+    /**
+     * Entity type: document / note / chat
+     */
+    private String type;
+
+    private Long id;
+
+    /**
+     * Related document (document and note hits)
+     */
+    private Long docId;
+
+    /**
+     * Related chat session (chat hits)
+     */
+    private Long sessionId;
+
+    private String title;
+
+    /**
+     * Snippet with matched terms wrapped in &lt;em&gt; (HTML-escaped)
+     */
+    private String highlight;
+
+    /**
+     * Relevance normalised within its type to (0, 1], comparable across types
+     */
+    private Float score;
+
+    private LocalDateTime time;
+}
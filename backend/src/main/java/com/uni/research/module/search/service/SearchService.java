@@ -0,0 +1,25 @@
+package com.uni.research.module.search.service;
+
+import com.uni.research.module.search.dto.SearchHitVo;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Unified Search Service (documents, notes, chat history)
+ */
+public interface SearchService {
+
+    String TYPE_DOCUMENT = "document";
+    String TYPE_NOTE = "note";
+    String TYPE_CHAT = "chat";
+
+    /**
+     * Search the current user's documents, notes and chat messages, merged by relevance
+     *
+     * @param query Query text
+     * @param k     Max results
+     * @param types Entity types to include (null or empty for all)
+     */
+    List<SearchHitVo> search(String query, int k, Set<String> types);
+}
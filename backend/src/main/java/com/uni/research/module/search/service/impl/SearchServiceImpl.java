@@ -0,0 +1,220 @@
+package com.uni.research.module.search.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.uni.research.common.exception.BizException;
+import com.uni.research.common.result.ResultCode;
+import com.uni.research.common.search.InvertedIndex;
+import com.uni.research.common.search.TextHighlighter;
+import com.uni.research.module.auth.entity.User;
+import com.uni.research.module.auth.mapper.UserMapper;
+import com.uni.research.module.chat.entity.ChatMessage;
+import com.uni.research.module.chat.mapper.ChatMessageMapper;
+import com.uni.research.module.chat.service.ChatArchiveService;
+import com.uni.research.module.chat.service.ChatSearchIndex;
+import com.uni.research.module.doc.entity.Document;
+import com.uni.research.module.doc.mapper.DocumentMapper;
+import com.uni.research.module.doc.service.DocumentSearchIndex;
+import com.uni.research.module.note.entity.Note;
+import com.uni.research.module.note.mapper.NoteMapper;
+import com.uni.research.module.note.service.NoteSearchIndex;
+import com.uni.research.module.search.dto.SearchHitVo;
+import com.uni.research.module.search.service.SearchService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Unified Search Service Implementation
+ *
+ * 文档、笔记、对话消息各自已有按用户分区的增量倒排索引，这里不再复制一份，而是统一查询后合并：
+ * 1. 每种类型各取 Top-K（各索引的 BM25 长度统计互相独立，长消息不会压低短标题的得分）
+ * 2. 各类型得分除以本次查询在该索引中的理论上限（InvertedIndex.searchNormalised），归一化到 [0, 1]，
+ *    再整体取 Top-K；只有弱匹配的类型不会因为是本类型第一名而排到前面
+ * 3. 只对最终结果回表加载展示字段并生成高亮；已归档会话的消息从 chat_archive 中读取
+ *
+ * 查询只访问当前用户的分区，耗时与该用户的数据量相关，与整个节点的索引总量无关。
+ */
+@Service
+@RequiredArgsConstructor
+public class SearchServiceImpl implements SearchService {
+
+    private static final int MAX_K = 100;
+
+    private final DocumentSearchIndex documentSearchIndex;
+    private final NoteSearchIndex noteSearchIndex;
+    private final ChatSearchIndex chatSearchIndex;
+    private final ChatArchiveService chatArchiveService;
+    private final DocumentMapper documentMapper;
+    private final NoteMapper noteMapper;
+    private final ChatMessageMapper messageMapper;
+    private final UserMapper userMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${note.search.snippet-length:120}")
+    private int snippetLength;
+
+    private Timer searchTimer;
+
+    /**
+     * 候选结果：类型 + ID + 归一化得分
+     */
+    private record Candidate(String type, long id, float score) {
+    }
+
+    @PostConstruct
+    public void initMetrics() {
+        searchTimer = Timer.builder("search.unified.latency").register(meterRegistry);
+    }
+
+    @Override
+    public List<SearchHitVo> search(String query, int k, Set<String> types) {
+        if (!StringUtils.hasText(query)) {
+            return new ArrayList<>();
+        }
+        Long userId = getCurrentUserId();
+        int limit = Math.max(1, Math.min(k, MAX_K));
+        return searchTimer.record(() -> {
+            List<Candidate> candidates = new ArrayList<>();
+            if (includes(types, TYPE_DOCUMENT)) {
+                collect(TYPE_DOCUMENT, documentSearchIndex.searchNormalised(userId, query, limit), candidates);
+            }
+            if (includes(types, TYPE_NOTE)) {
+                collect(TYPE_NOTE, noteSearchIndex.searchNormalised(userId, query, limit), candidates);
+            }
+            if (includes(types, TYPE_CHAT)) {
+                collect(TYPE_CHAT, chatSearchIndex.searchNormalised(userId, query, limit), candidates);
+            }
+            candidates.sort(Comparator.comparingDouble(Candidate::score).reversed());
+            return load(userId, candidates.subList(0, Math.min(limit, candidates.size())), query);
+        });
+    }
+
+    private static boolean includes(Set<String> types, String type) {
+        return types == null || types.isEmpty() || types.contains(type);
+    }
+
+    /**
+     * 各索引返回的得分已按查询的理论上限归一化，可以直接比较，不再按本类型第一名缩放
+     */
+    private static void collect(String type, List<InvertedIndex.Hit> hits, List<Candidate> out) {
+        for (InvertedIndex.Hit hit : hits) {
+            out.add(new Candidate(type, hit.id(), hit.score()));
+        }
+    }
+
+    /**
+     * 按类型批量回表（每种类型一次查询），保持合并后的顺序
+     */
+    private List<SearchHitVo> load(Long userId, List<Candidate> top, String query) {
+        Map<Long, Document> docs = fetch(top, TYPE_DOCUMENT, ids -> documentMapper.selectList(
+                new LambdaQueryWrapper<Document>()
+                        .select(Document::getId, Document::getTitle, Document::getAuthors, Document::getJournal,
+                                Document::getUpdateTime)
+                        .in(Document::getId, ids)),
+                Document::getId);
+        Map<Long, Note> notes = fetch(top, TYPE_NOTE, noteMapper::selectBatchIds, Note::getId);
+        Map<Long, ChatMessage> messages = new HashMap<>(
+                fetch(top, TYPE_CHAT, messageMapper::selectBatchIds, ChatMessage::getId));
+        // 热表中没有的消息属于已归档的会话
+        List<Long> archivedIds = top.stream()
+                .filter(candidate -> candidate.type().equals(TYPE_CHAT) && !messages.containsKey(candidate.id()))
+                .map(Candidate::id)
+                .toList();
+        if (!archivedIds.isEmpty()) {
+            messages.putAll(chatArchiveService.findArchivedMessages(userId, archivedIds));
+        }
+
+        List<SearchHitVo> results = new ArrayList<>(top.size());
+        for (Candidate candidate : top) {
+            SearchHitVo vo = new SearchHitVo();
+            vo.setType(candidate.type());
+            vo.setId(candidate.id());
+            vo.setScore(candidate.score());
+            switch (candidate.type()) {
+                case TYPE_DOCUMENT -> {
+                    Document doc = docs.get(candidate.id());
+                    if (doc == null) {
+                        continue;
+                    }
+                    vo.setDocId(doc.getId());
+                    vo.setTitle(doc.getTitle());
+                    String authors = StringUtils.hasText(doc.getAuthors()) ? doc.getAuthors() : doc.getJournal();
+                    vo.setHighlight(TextHighlighter.highlight(doc.getTitle(), query, snippetLength)
+                            + (StringUtils.hasText(authors)
+                                    ? " — " + TextHighlighter.highlight(authors, query, snippetLength)
+                                    : ""));
+                    vo.setTime(doc.getUpdateTime());
+                }
+                case TYPE_NOTE -> {
+                    Note note = notes.get(candidate.id());
+                    if (note == null) {
+                        continue;
+                    }
+                    vo.setDocId(note.getDocId());
+                    vo.setTitle(note.getTags());
+                    vo.setHighlight(TextHighlighter.highlight(note.getContent(), query, snippetLength));
+                    vo.setTime(note.getUpdateTime());
+                }
+                default -> {
+                    ChatMessage message = messages.get(candidate.id());
+                    if (message == null) {
+                        continue;
+                    }
+                    vo.setSessionId(message.getSessionId());
+                    vo.setTitle(message.getRole());
+                    vo.setHighlight(TextHighlighter.highlight(message.getContent(), query, snippetLength));
+                    vo.setTime(message.getCreateTime());
+                }
+            }
+            results.add(vo);
+        }
+        return results;
+    }
+
+    private static <T> Map<Long, T> fetch(List<Candidate> top, String type,
+            Function<List<Long>, List<T>> loader, Function<T, Long> idOf) {
+        List<Long> ids = top.stream()
+                .filter(candidate -> candidate.type().equals(type))
+                .map(Candidate::id)
+                .collect(Collectors.toList());
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        return loader.apply(ids).stream().collect(Collectors.toMap(idOf, Function.identity()));
+    }
+
+    private Long getCurrentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication.getPrincipal() == null) {
+            throw new BizException(ResultCode.UNAUTHORIZED);
+        }
+        String username;
+        Object principal = authentication.getPrincipal();
+        if (principal instanceof org.springframework.security.core.userdetails.UserDetails) {
+            username = ((org.springframework.security.core.userdetails.UserDetails) principal).getUsername();
+        } else {
+            username = principal.toString();
+        }
+
+        User user = userMapper.selectOne(new LambdaQueryWrapper<User>().eq(User::getUsername, username));
+        if (user == null) {
+            throw new BizException(ResultCode.USER_NOT_FOUND);
+        }
+        return user.getId();
+    }
+}
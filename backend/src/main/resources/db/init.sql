@@ -1,5 +1,6 @@
 -- =============================================================================
 -- Uni-Research-Assistant 数据库初始化脚本 (MySQL)
+-- 已有数据库的结构变更见 db/upgrade/，按文件名顺序执行
 -- =============================================================================
 
 -- 创建数据库
@@ -31,12 +32,26 @@ CREATE TABLE IF NOT EXISTS doc_document (
     file_path VARCHAR(500) NOT NULL COMMENT '文件存储路径',
     file_size BIGINT COMMENT '文件大小（字节）',
     file_type VARCHAR(50) COMMENT '文件类型：pdf/txt/markdown',
+    storage_codec VARCHAR(20) DEFAULT NULL COMMENT '存储编码：NULL-原始，deflate',
     status TINYINT DEFAULT 0 COMMENT '状态：0-未处理，1-向量化中，2-已完成，3-失败',
+    authors VARCHAR(1000) COMMENT '作者（逗号分隔）',
+    publication_year INT COMMENT '出版年份',
+    journal VARCHAR(255) COMMENT '期刊名称',
+    volume VARCHAR(50) COMMENT '卷号',
+    pages VARCHAR(50) COMMENT '页码范围',
+    doi VARCHAR(255) COMMENT 'DOI',
+    publisher VARCHAR(255) COMMENT '出版社',
+    meta_version INT NOT NULL DEFAULT 0 COMMENT '元数据版本号（引用缓存与 ETag）',
     deleted TINYINT DEFAULT 0 COMMENT '逻辑删除',
+    purge_after DATETIME DEFAULT NULL COMMENT '墓碑清理失败后的下次重试时间',
+    purge_attempts INT NOT NULL DEFAULT 0 COMMENT '墓碑清理失败次数',
     create_time DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     update_time DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     INDEX idx_user_id (user_id),
-    INDEX idx_status (status)
+    INDEX idx_status (status),
+    UNIQUE KEY uk_user_doi (user_id, doi) COMMENT '文献导入按 DOI upsert（DOI 规范化为小写，墓碑清空 DOI）',
+    INDEX idx_user_deleted_ctime_id (user_id, deleted, create_time, id) COMMENT '文档列表游标分页',
+    INDEX idx_deleted_utime (deleted, update_time) COMMENT '后台清理已删除文档'
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='文档表';
 
 -- 3. 对话会话表
@@ -44,10 +59,13 @@ CREATE TABLE IF NOT EXISTS chat_session (
     id BIGINT PRIMARY KEY AUTO_INCREMENT COMMENT '会话ID',
     user_id BIGINT NOT NULL COMMENT '用户ID',
     title VARCHAR(255) COMMENT '会话标题',
+    archived TINYINT NOT NULL DEFAULT 0 COMMENT '是否已归档到 chat_archive',
     deleted TINYINT DEFAULT 0 COMMENT '逻辑删除',
     create_time DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     update_time DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
-    INDEX idx_user_id (user_id)
+    INDEX idx_user_id (user_id),
+    INDEX idx_deleted_utime (deleted, update_time) COMMENT '后台清理已删除会话',
+    INDEX idx_archived_deleted_utime (archived, deleted, update_time) COMMENT '查找待归档的空闲会话'
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='对话会话表';
 
 -- 4. 对话消息表
@@ -55,12 +73,46 @@ CREATE TABLE IF NOT EXISTS chat_message (
     id BIGINT PRIMARY KEY AUTO_INCREMENT COMMENT '消息ID',
     session_id BIGINT NOT NULL COMMENT '会话ID',
     role VARCHAR(20) NOT NULL COMMENT '角色：user/assistant',
-    content TEXT NOT NULL COMMENT '消息内容',
+    content MEDIUMBLOB NOT NULL COMMENT '消息内容（UTF-8，超过阈值时压缩，见 CompressedTextTypeHandler）',
     token_count INT COMMENT 'Token 数量',
+    citations MEDIUMBLOB COMMENT '引用信息 JSON（同上）',
     create_time DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
-    INDEX idx_session_id (session_id)
+    INDEX idx_session_id (session_id) COMMENT '会话消息按 ID 游标分页（二级索引末尾带主键 id）'
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='对话消息表';
 
+-- 4.1 冷会话归档表（整个会话的消息压缩为一条记录）
+CREATE TABLE IF NOT EXISTS chat_archive (
+    session_id BIGINT PRIMARY KEY COMMENT '会话ID',
+    user_id BIGINT NOT NULL COMMENT '用户ID',
+    message_count INT NOT NULL COMMENT '消息数',
+    first_message_id BIGINT NOT NULL COMMENT '最小消息ID',
+    last_message_id BIGINT NOT NULL COMMENT '最大消息ID',
+    payload MEDIUMBLOB NOT NULL COMMENT '消息列表 JSON（压缩，见 CompressedTextTypeHandler）',
+    create_time DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '归档时间',
+    INDEX idx_user_message_range (user_id, first_message_id, last_message_id) COMMENT '搜索命中归档消息时定位归档'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='对话归档表';
+
+-- 5. 笔记表
+CREATE TABLE IF NOT EXISTS note (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT COMMENT '笔记ID',
+    user_id BIGINT NOT NULL COMMENT '用户ID',
+    doc_id BIGINT COMMENT '文档ID',
+    content TEXT COMMENT '笔记内容',
+    note_type VARCHAR(20) COMMENT '笔记类型：DOCUMENT/PARAGRAPH',
+    position VARCHAR(1000) COMMENT '位置信息（JSON）',
+    page_start INT COMMENT '起始页（从 1 开始）',
+    page_end INT COMMENT '结束页（含）',
+    offset_start INT COMMENT '起始页内字符偏移',
+    offset_end INT COMMENT '结束页内字符偏移',
+    tags VARCHAR(500) COMMENT '标签（逗号分隔）',
+    version INT NOT NULL DEFAULT 0 COMMENT '版本号（显式保存时递增，自动保存按版本条件更新）',
+    deleted TINYINT DEFAULT 0 COMMENT '逻辑删除',
+    create_time DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    update_time DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    INDEX idx_user_id (user_id),
+    INDEX idx_user_doc_page (user_id, doc_id, page_start) COMMENT '按页加载文档批注'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='笔记表';
+
 -- =============================================================================
 -- 后续在 PostgreSQL 执行的向量表结构（仅作参考备忘）
 -- =============================================================================
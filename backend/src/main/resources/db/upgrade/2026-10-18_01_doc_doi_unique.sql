@@ -0,0 +1,39 @@
+-- =============================================================================
+-- 升级脚本：文献 DOI 规范化 + (user_id, doi) 唯一键
+-- 适用于在 init.sql 加入 uk_user_doi 之前建库的环境，执行一次即可
+-- =============================================================================
+
+USE uni_research_db;
+
+-- 1. 墓碑与空串不占用唯一键
+UPDATE doc_document SET doi = NULL WHERE deleted = 1 OR TRIM(doi) = '';
+
+-- 2. 去掉解析器前缀并小写，与 CitationEntry.normalizeDoi 一致
+UPDATE doc_document SET doi = LOWER(TRIM(doi)) WHERE doi IS NOT NULL;
+UPDATE doc_document SET doi = TRIM(SUBSTRING(doi, LOCATE('doi.org/', doi) + 8))
+WHERE doi LIKE 'http://doi.org/%' OR doi LIKE 'https://doi.org/%'
+   OR doi LIKE 'http://dx.doi.org/%' OR doi LIKE 'https://dx.doi.org/%';
+UPDATE doc_document SET doi = TRIM(SUBSTRING(doi, 5)) WHERE doi LIKE 'doi:%';
+
+-- 3. 同一用户的重复 DOI 只保留最早的一条，其余清空 DOI（记录本身保留）
+UPDATE doc_document d
+JOIN (
+    SELECT user_id, doi, MIN(id) AS keep_id
+    FROM doc_document
+    WHERE doi IS NOT NULL
+    GROUP BY user_id, doi
+    HAVING COUNT(*) > 1
+) dup ON d.user_id = dup.user_id AND d.doi = dup.doi AND d.id <> dup.keep_id
+SET d.doi = NULL;
+
+-- 4. 删除旧的普通索引（只有按中间版本 init.sql 建库的环境才有 idx_user_doi）
+SET @has_user_doi = (SELECT COUNT(*) FROM information_schema.STATISTICS
+                     WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'doc_document' AND INDEX_NAME = 'idx_user_doi');
+SET @ddl = IF(@has_user_doi > 0, 'ALTER TABLE doc_document DROP INDEX idx_user_doi', 'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 5. 唯一键
+ALTER TABLE doc_document
+    ADD UNIQUE KEY uk_user_doi (user_id, doi) COMMENT '文献导入按 DOI upsert（DOI 规范化为小写，墓碑清空 DOI）';
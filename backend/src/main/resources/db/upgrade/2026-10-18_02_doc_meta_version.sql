@@ -0,0 +1,9 @@
+-- =============================================================================
+-- 升级脚本：文献元数据版本号
+-- 引用缓存与 ETag 原来使用 update_time（DATETIME，秒精度），同一秒内的两次修改会得到相同版本
+-- =============================================================================
+
+USE uni_research_db;
+
+ALTER TABLE doc_document
+    ADD COLUMN meta_version INT NOT NULL DEFAULT 0 COMMENT '元数据版本号（引用缓存与 ETag）' AFTER publisher;
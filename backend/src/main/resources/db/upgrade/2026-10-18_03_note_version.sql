@@ -0,0 +1,9 @@
+-- =============================================================================
+-- 升级脚本：笔记版本号
+-- 自动保存落库时按版本条件更新，不会覆盖在它之后完成的显式保存
+-- =============================================================================
+
+USE uni_research_db;
+
+ALTER TABLE note
+    ADD COLUMN version INT NOT NULL DEFAULT 0 COMMENT '版本号（显式保存时递增，自动保存按版本条件更新）' AFTER tags;
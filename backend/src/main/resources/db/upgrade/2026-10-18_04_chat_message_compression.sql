@@ -0,0 +1,21 @@
+-- =============================================================================
+-- 升级脚本：对话消息内容 / 引用改为 MEDIUMBLOB（CompressedTextTypeHandler 压缩存储）
+-- TEXT -> MEDIUMBLOB 按列字符集（utf8mb4）保留原始字节，历史数据没有头字节，读取时按 UTF-8 解码
+-- 旧版 init.sql 没有 citations 列（部分环境手工加过），这里按是否存在分别 ADD / MODIFY
+-- =============================================================================
+
+USE uni_research_db;
+
+-- 1. 消息内容
+ALTER TABLE chat_message
+    MODIFY COLUMN content MEDIUMBLOB NOT NULL COMMENT '消息内容（UTF-8，超过阈值时压缩，见 CompressedTextTypeHandler）';
+
+-- 2. 引用信息
+SET @has_citations = (SELECT COUNT(*) FROM information_schema.COLUMNS
+                      WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'chat_message' AND COLUMN_NAME = 'citations');
+SET @ddl = IF(@has_citations = 0,
+    'ALTER TABLE chat_message ADD COLUMN citations MEDIUMBLOB COMMENT ''引用信息 JSON（同上）'' AFTER token_count',
+    'ALTER TABLE chat_message MODIFY COLUMN citations MEDIUMBLOB COMMENT ''引用信息 JSON（同上）''');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
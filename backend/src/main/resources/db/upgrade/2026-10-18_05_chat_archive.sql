@@ -0,0 +1,24 @@
+-- =============================================================================
+-- 升级脚本：冷会话归档
+-- chat_session 增加归档标记与候选查询索引，新建 chat_archive（整个会话的消息压缩为一条记录）
+-- 需在 2026-10-18_04_chat_message_compression.sql 之后执行
+-- =============================================================================
+
+USE uni_research_db;
+
+-- 1. 归档标记
+ALTER TABLE chat_session
+    ADD COLUMN archived TINYINT NOT NULL DEFAULT 0 COMMENT '是否已归档到 chat_archive' AFTER title,
+    ADD INDEX idx_archived_deleted_utime (archived, deleted, update_time) COMMENT '查找待归档的空闲会话';
+
+-- 2. 归档表
+CREATE TABLE IF NOT EXISTS chat_archive (
+    session_id BIGINT PRIMARY KEY COMMENT '会话ID',
+    user_id BIGINT NOT NULL COMMENT '用户ID',
+    message_count INT NOT NULL COMMENT '消息数',
+    first_message_id BIGINT NOT NULL COMMENT '最小消息ID',
+    last_message_id BIGINT NOT NULL COMMENT '最大消息ID',
+    payload MEDIUMBLOB NOT NULL COMMENT '消息列表 JSON（压缩，见 CompressedTextTypeHandler）',
+    create_time DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '归档时间',
+    INDEX idx_user_message_range (user_id, first_message_id, last_message_id) COMMENT '搜索命中归档消息时定位归档'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='对话归档表';
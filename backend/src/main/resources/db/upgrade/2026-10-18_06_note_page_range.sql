@@ -0,0 +1,14 @@
+-- =============================================================================
+-- 升级脚本：笔记页码区间
+-- 结构化页码列与按页加载索引；已有笔记的页码由应用启动时从 position JSON 回填
+-- （NoteServiceImpl.backfillPageRanges）
+-- =============================================================================
+
+USE uni_research_db;
+
+ALTER TABLE note
+    ADD COLUMN page_start INT COMMENT '起始页（从 1 开始）' AFTER position,
+    ADD COLUMN page_end INT COMMENT '结束页（含）' AFTER page_start,
+    ADD COLUMN offset_start INT COMMENT '起始页内字符偏移' AFTER page_end,
+    ADD COLUMN offset_end INT COMMENT '结束页内字符偏移' AFTER offset_start,
+    ADD INDEX idx_user_doc_page (user_id, doc_id, page_start) COMMENT '按页加载文档批注';
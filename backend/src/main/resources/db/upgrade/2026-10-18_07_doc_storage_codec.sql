@@ -0,0 +1,9 @@
+-- =============================================================================
+-- 升级脚本：文档存储编码
+-- 文本类文档在对象存储中 deflate 压缩；NULL 表示按原始字节存储（历史对象均为 NULL）
+-- =============================================================================
+
+USE uni_research_db;
+
+ALTER TABLE doc_document
+    ADD COLUMN storage_codec VARCHAR(20) DEFAULT NULL COMMENT '存储编码：NULL-原始，deflate' AFTER file_type;
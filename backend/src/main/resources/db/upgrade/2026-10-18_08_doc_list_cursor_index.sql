@@ -0,0 +1,10 @@
+-- =============================================================================
+-- 升级脚本：文档列表游标分页索引
+-- 列表查询 WHERE user_id = ? AND deleted = 0 + (create_time, id) 游标条件，ORDER BY create_time DESC, id DESC
+-- 没有这个索引时按 idx_user_id 取出用户全部文档再 filesort
+-- =============================================================================
+
+USE uni_research_db;
+
+ALTER TABLE doc_document
+    ADD INDEX idx_user_deleted_ctime_id (user_id, deleted, create_time, id) COMMENT '文档列表游标分页';
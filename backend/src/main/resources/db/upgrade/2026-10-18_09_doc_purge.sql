@@ -0,0 +1,12 @@
+-- =============================================================================
+-- 升级脚本：文档墓碑后台清理
+-- 1. idx_deleted_utime：清理候选与最早墓碑按 (deleted, update_time) 查询，没有索引时每轮全表扫描
+-- 2. purge_after / purge_attempts：清理失败后的重试时间与失败次数；update_time 保持为删除时间
+-- =============================================================================
+
+USE uni_research_db;
+
+ALTER TABLE doc_document
+    ADD COLUMN purge_after DATETIME DEFAULT NULL COMMENT '墓碑清理失败后的下次重试时间' AFTER deleted,
+    ADD COLUMN purge_attempts INT NOT NULL DEFAULT 0 COMMENT '墓碑清理失败次数' AFTER purge_after,
+    ADD INDEX idx_deleted_utime (deleted, update_time) COMMENT '后台清理已删除文档';
@@ -0,0 +1,9 @@
+-- =============================================================================
+-- 升级脚本：已删除会话后台清理索引
+-- ChatPurgeService 的清理候选、最早墓碑、墓碑计数都按 (deleted, update_time) 查询，没有索引时每轮全表扫描
+-- =============================================================================
+
+USE uni_research_db;
+
+ALTER TABLE chat_session
+    ADD INDEX idx_deleted_utime (deleted, update_time) COMMENT '后台清理已删除会话';
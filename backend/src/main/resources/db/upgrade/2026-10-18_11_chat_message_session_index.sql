@@ -0,0 +1,25 @@
+-- =============================================================================
+-- 升级脚本：chat_message 会话索引
+-- InnoDB 二级索引末尾隐含主键，idx_session_id (session_id) 已按 (session_id, id) 有序，
+-- 游标分页 session_id = ? AND id < ? ORDER BY id DESC 直接走该索引；按 init.sql 新建过 idx_session_id_id 的环境删除这个冗余索引
+-- =============================================================================
+
+USE uni_research_db;
+
+-- 1. 确保 idx_session_id 存在
+SET @has_session_idx = (SELECT COUNT(*) FROM information_schema.STATISTICS
+                        WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'chat_message' AND INDEX_NAME = 'idx_session_id');
+SET @ddl = IF(@has_session_idx = 0,
+    'ALTER TABLE chat_message ADD INDEX idx_session_id (session_id) COMMENT ''会话消息按 ID 游标分页（二级索引末尾带主键 id）''',
+    'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 2. 删除冗余的 idx_session_id_id
+SET @has_session_id_idx = (SELECT COUNT(*) FROM information_schema.STATISTICS
+                           WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'chat_message' AND INDEX_NAME = 'idx_session_id_id');
+SET @ddl = IF(@has_session_id_idx > 0, 'ALTER TABLE chat_message DROP INDEX idx_session_id_id', 'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
@@ -0,0 +1,78 @@
+package com.uni.research.common.mybatis;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompressedTextTypeHandlerTest {
+
+    private static final String CITATION = "{\"doc_id\": 12, \"text\": \"根据文献的研究表明，检索增强生成在问答任务上效果显著\", "
+            + "\"chunk_index\": 3, \"source_file\": \"paper.pdf\"}";
+
+    private static String citations(int count) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < count; i++) {
+            json.append(i > 0 ? ", " : "").append(CITATION);
+        }
+        return json.append(']').toString();
+    }
+
+    @Test
+    void shortValuesAreStoredAsPlainUtf8() throws SQLException {
+        String value = "你好, world";
+        byte[] stored = CompressedTextTypeHandler.encode(value);
+
+        assertArrayEquals(value.getBytes(StandardCharsets.UTF_8), stored);
+        assertEquals(value, CompressedTextTypeHandler.decode(stored));
+    }
+
+    @Test
+    void largeValuesAreCompressedAndRoundTrip() throws SQLException {
+        String value = citations(20);
+        byte[] raw = value.getBytes(StandardCharsets.UTF_8);
+        byte[] stored = CompressedTextTypeHandler.encode(value);
+
+        assertEquals(0x01, stored[0]);
+        assertTrue(stored.length < raw.length / 2);
+        assertEquals(value, CompressedTextTypeHandler.decode(stored));
+    }
+
+    @Test
+    void valuesStartingWithHeaderBytesAreEscaped() throws SQLException {
+        for (String value : new String[] { "\u0000x", "\u0001x", "\u0001" }) {
+            byte[] stored = CompressedTextTypeHandler.encode(value);
+            assertEquals(0x00, stored[0]);
+            assertEquals(value, CompressedTextTypeHandler.decode(stored));
+        }
+    }
+
+    @Test
+    void legacyRowsWithoutHeaderDecodeAsUtf8() throws SQLException {
+        // 改造前写入的 TEXT 列转为 MEDIUMBLOB 后就是原始 UTF-8 字节
+        String legacy = "## 总结\n\n- **方法**：" + "检索增强生成 ".repeat(500);
+        assertEquals(legacy, CompressedTextTypeHandler.decode(legacy.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void nullAndEmpty() throws SQLException {
+        assertNull(CompressedTextTypeHandler.decode(null));
+        assertEquals("", CompressedTextTypeHandler.decode(new byte[0]));
+        assertEquals("", CompressedTextTypeHandler.decode(CompressedTextTypeHandler.encode("")));
+    }
+
+    @Test
+    void truncatedCompressedValueFails() {
+        byte[] stored = CompressedTextTypeHandler.encode(citations(20));
+        byte[] truncated = Arrays.copyOf(stored, stored.length / 2);
+
+        assertThrows(SQLException.class, () -> CompressedTextTypeHandler.decode(truncated));
+    }
+}
@@ -0,0 +1,115 @@
+package com.uni.research.common.search;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 关键词检索：LIKE 扫描 vs 倒排索引（100k 条文献元数据），以及单个分区 1M 条记录时的查询耗时
+ *
+ * LIKE '%kw%' 无法使用索引，等价于对每行做子串匹配，这里用 String.contains 逐行扫描模拟。
+ * 1M 条记录的用例需要较大的堆（-Xmx4g 左右）。
+ * 默认不运行：mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+class InvertedIndexBenchmark {
+
+    private static final int DOCS = 100_000;
+    private static final int ROUNDS = 200;
+    private static final int LARGE_DOCS = 1_000_000;
+    private static final int LARGE_ROUNDS = 50;
+
+    private static final String[] WORDS = { "deep", "learning", "graph", "neural", "network", "transformer",
+            "attention", "retrieval", "language", "model", "diffusion", "protein", "vision", "reinforcement",
+            "policy", "federated", "privacy", "quantum", "optimization", "benchmark", "机器学习", "知识图谱",
+            "自然语言", "推荐系统", "图像分割", "蛋白质", "强化学习", "联邦学习" };
+
+    @Test
+    void likeScanVersusIndex() {
+        Random random = new Random(42);
+        List<String> titles = new ArrayList<>(DOCS);
+        InvertedIndex index = new InvertedIndex();
+        for (int i = 0; i < DOCS; i++) {
+            StringBuilder title = new StringBuilder();
+            for (int w = 0; w < 8; w++) {
+                title.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            title.append("study ").append(i);
+            titles.add(title.toString());
+            index.put(i, new InvertedIndex.Field(title.toString(), 3f));
+        }
+
+        String[] queries = { "transformer", "知识图谱", "federated privacy", "蛋白" };
+        for (String query : queries) {
+            String keyword = query.toLowerCase(Locale.ROOT);
+            // 预热
+            like(titles, keyword);
+            index.search(query, 20, true);
+
+            long start = System.nanoTime();
+            int likeHits = 0;
+            for (int r = 0; r < ROUNDS; r++) {
+                likeHits = like(titles, keyword);
+            }
+            double likeMs = (System.nanoTime() - start) / 1e6 / ROUNDS;
+
+            start = System.nanoTime();
+            int indexHits = 0;
+            for (int r = 0; r < ROUNDS; r++) {
+                indexHits = index.search(query, 20, true).size();
+            }
+            double indexMs = (System.nanoTime() - start) / 1e6 / ROUNDS;
+
+            System.out.printf("query=%s like=%.2fms (%d rows) index=%.2fms (top %d)%n",
+                    query, likeMs, likeHits, indexMs, indexHits);
+            if (likeHits > 0) {
+                assertEquals(Math.min(20, likeHits), indexHits);
+            }
+        }
+    }
+
+    @Test
+    void twoTermTopKOnOneMillionEntries() {
+        Random random = new Random(7);
+        InvertedIndex index = new InvertedIndex();
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < LARGE_DOCS; i++) {
+            text.setLength(0);
+            for (int w = 0; w < 8; w++) {
+                text.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            index.put(i, new InvertedIndex.Field(text.toString(), 1f));
+        }
+
+        String[] queries = { "graph neural", "federated privacy", "知识图谱 推荐系统", "quantum optimization" };
+        for (String query : queries) {
+            index.search(query, 20, false);
+            index.searchNormalised(query, 20);
+
+            long start = System.nanoTime();
+            int hits = 0;
+            for (int r = 0; r < LARGE_ROUNDS; r++) {
+                hits = index.search(query, 20, false).size();
+            }
+            double ms = (System.nanoTime() - start) / 1e6 / LARGE_ROUNDS;
+            System.out.printf("1M entries query=%s top20=%.2fms (%d hits)%n", query, ms, hits);
+            assertEquals(20, hits);
+        }
+    }
+
+    private static int like(List<String> titles, String keyword) {
+        int hits = 0;
+        for (String title : titles) {
+            if (title.toLowerCase(Locale.ROOT).contains(keyword)) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+}
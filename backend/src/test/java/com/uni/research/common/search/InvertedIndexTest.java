@@ -0,0 +1,121 @@
+package com.uni.research.common.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InvertedIndexTest {
+
+    private static List<Long> ids(List<InvertedIndex.Hit> hits) {
+        return hits.stream().map(InvertedIndex.Hit::id).toList();
+    }
+
+    @Test
+    void singleCjkCharacterMatchesInsideLongerRun() {
+        InvertedIndex index = new InvertedIndex();
+        index.put(1, new InvertedIndex.Field("我的猫很可爱", 1f));
+        index.put(2, new InvertedIndex.Field("我的狗", 1f));
+
+        assertEquals(List.of(1L), ids(index.search("猫", 10, true)));
+    }
+
+    @Test
+    void matchAllRequiresEveryBigram() {
+        InvertedIndex index = new InvertedIndex();
+        index.put(1, new InvertedIndex.Field("机器学习方法综述", 1f));
+        index.put(2, new InvertedIndex.Field("机器人与学习", 1f));
+
+        assertEquals(List.of(1L), ids(index.search("机器学习", 10, true)));
+        assertEquals(2, index.search("机器学习", 10, false).size());
+    }
+
+    @Test
+    void latinPrefixExpandsButRanksBelowExactMatch() {
+        InvertedIndex index = new InvertedIndex();
+        index.put(1, new InvertedIndex.Field("transformer architectures", 1f));
+        index.put(2, new InvertedIndex.Field("transform coding", 1f));
+        index.put(3, new InvertedIndex.Field("recurrent networks", 1f));
+
+        assertEquals(List.of(2L, 1L), ids(index.search("transform", 10, true)));
+        assertTrue(index.search("tr", 10, true).isEmpty());
+    }
+
+    @Test
+    void bm25PrefersRarerTermsAndHigherFieldWeight() {
+        InvertedIndex index = new InvertedIndex();
+        index.put(1, new InvertedIndex.Field("graph neural network", 3f));
+        index.put(2, new InvertedIndex.Field("graph", 1f), new InvertedIndex.Field("neural network", 1f));
+        for (long id = 10; id < 20; id++) {
+            index.put(id, new InvertedIndex.Field("neural network survey " + id, 1f));
+        }
+
+        List<InvertedIndex.Hit> hits = index.search("graph neural", 5, false);
+        assertEquals(1L, hits.get(0).id());
+        assertEquals(2L, hits.get(1).id());
+        assertTrue(hits.get(0).score() > hits.get(1).score());
+    }
+
+    @Test
+    void topKIsBoundedAndSortedDescending() {
+        InvertedIndex index = new InvertedIndex();
+        for (long id = 1; id <= 50; id++) {
+            index.put(id, new InvertedIndex.Field("paper " + "deep ".repeat((int) (id % 5) + 1), 1f));
+        }
+
+        List<InvertedIndex.Hit> hits = index.search("deep", 7, true);
+        assertEquals(7, hits.size());
+        for (int i = 1; i < hits.size(); i++) {
+            assertTrue(hits.get(i - 1).score() >= hits.get(i).score());
+        }
+    }
+
+    @Test
+    void putReplacesAndRemoveDropsTerms() {
+        InvertedIndex index = new InvertedIndex();
+        index.put(1, new InvertedIndex.Field("transformer", 1f));
+        index.put(1, new InvertedIndex.Field("diffusion", 1f));
+
+        assertTrue(index.search("transform", 10, true).isEmpty());
+        assertEquals(List.of(1L), ids(index.search("diffusion", 10, true)));
+
+        index.remove(1);
+        assertFalse(index.contains(1));
+        assertEquals(0, index.size());
+        assertTrue(index.search("diffusion", 10, true).isEmpty());
+    }
+
+    @Test
+    void normalisedScoresAreBoundedAndKeepOrder() {
+        InvertedIndex index = new InvertedIndex();
+        for (long id = 1; id <= 30; id++) {
+            index.put(id, new InvertedIndex.Field("graph " + "neural ".repeat((int) (id % 4)) + "survey " + id, 1f));
+        }
+
+        List<InvertedIndex.Hit> raw = index.search("graph neural", 30, false);
+        List<InvertedIndex.Hit> normalised = index.searchNormalised("graph neural", 30);
+        assertEquals(ids(raw), ids(normalised));
+        for (InvertedIndex.Hit hit : normalised) {
+            assertTrue(hit.score() > 0 && hit.score() <= 1);
+        }
+    }
+
+    @Test
+    void normalisationDoesNotLiftTheBestWeakMatchToOne() {
+        // 文档索引：标题完整命中查询；对话索引：只有一条消息顺带提到其中一个词
+        InvertedIndex documents = new InvertedIndex();
+        documents.put(1, new InvertedIndex.Field("graph neural network", 3f));
+        documents.put(2, new InvertedIndex.Field("protein folding", 3f));
+        InvertedIndex chats = new InvertedIndex();
+        chats.put(1, new InvertedIndex.Field("we talked about many things, one was a graph of results", 1f));
+        chats.put(2, new InvertedIndex.Field("lunch plans", 1f));
+
+        float document = documents.searchNormalised("graph neural", 1).get(0).score();
+        float chat = chats.searchNormalised("graph neural", 1).get(0).score();
+        assertTrue(chat < 0.5f);
+        assertTrue(document > chat);
+    }
+}
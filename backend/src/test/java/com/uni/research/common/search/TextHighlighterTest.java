@@ -0,0 +1,49 @@
+package com.uni.research.common.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TextHighlighterTest {
+
+    @Test
+    void overlappingBigramsMergeIntoOneSpan() {
+        assertEquals("关于<em>机器学习</em>的笔记", TextHighlighter.highlight("关于机器学习的笔记", "机器学习", 100));
+    }
+
+    @Test
+    void singleCjkCharacterAndLatinPrefixAreHighlighted() {
+        assertEquals("我的<em>猫</em>和 <em>Transformers</em>",
+                TextHighlighter.highlight("我的猫和 Transformers", "猫 transform", 100));
+    }
+
+    @Test
+    void textIsEscapedOutsideAndInsideTags() {
+        assertEquals("&lt;b&gt; <em>R</em>&amp;<em>D</em> &quot;x&quot;",
+                TextHighlighter.highlight("<b> R&D \"x\"", "r d", 100));
+    }
+
+    @Test
+    void windowCentresOnDensestMatches() {
+        String text = "x".repeat(300) + " 重点 内容 " + "y".repeat(300);
+        String snippet = TextHighlighter.highlight(text, "重点 内容", 40);
+        assertTrue(snippet.startsWith("…"));
+        assertTrue(snippet.endsWith("…"));
+        assertTrue(snippet.contains("<em>重点</em> <em>内容</em>"));
+    }
+
+    @Test
+    void spanLongerThanWindowDoesNotOverrun() {
+        String text = "intro " + "a".repeat(50) + " outro " + "z".repeat(40);
+        String snippet = TextHighlighter.highlight(text, "aaa", 20);
+        assertTrue(snippet.contains("<em>"));
+        assertEquals(20, snippet.replace("<em>", "").replace("</em>", "").replace("…", "").length());
+    }
+
+    @Test
+    void noQueryTermsReturnsLeadingWindow() {
+        assertEquals("abc…", TextHighlighter.highlight("abcdef", "!!", 3));
+        assertEquals("", TextHighlighter.highlight(null, "x", 10));
+    }
+}
@@ -0,0 +1,60 @@
+package com.uni.research.common.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TextTokenizerTest {
+
+    @Test
+    void latinRunsAreLowercased() {
+        assertEquals(List.of("attention", "is", "all", "you", "need", "2017"),
+                TextTokenizer.tokenize("Attention Is All You Need (2017)"));
+    }
+
+    @Test
+    void indexEmitsCjkUnigramsAndBigrams() {
+        assertEquals(List.of("机", "机器", "器", "器学", "学", "学习", "习"), TextTokenizer.tokenize("机器学习"));
+    }
+
+    @Test
+    void queryUsesBigramsForMultiCharacterRuns() {
+        assertEquals(List.of("机器", "器学", "学习"), TextTokenizer.tokenizeQuery("机器学习"));
+        assertEquals(List.of("猫"), TextTokenizer.tokenizeQuery("猫"));
+    }
+
+    @Test
+    void mixedScriptSplitsAtBoundaries() {
+        assertEquals(List.of("bert", "模型", "v2"), TextTokenizer.tokenizeQuery("BERT模型 v2"));
+    }
+
+    @Test
+    void scanReportsOffsetsInAscendingOrder() {
+        List<int[]> spans = new ArrayList<>();
+        TextTokenizer.scan("我的猫 cat", (term, start, end) -> spans.add(new int[] { start, end }));
+        for (int i = 1; i < spans.size(); i++) {
+            assertTrue(spans.get(i)[0] >= spans.get(i - 1)[0]);
+        }
+        int[] last = spans.get(spans.size() - 1);
+        assertEquals(4, last[0]);
+        assertEquals(7, last[1]);
+    }
+
+    @Test
+    void prefixTermsAreLatinAndLongEnough() {
+        assertTrue(TextTokenizer.isPrefixTerm("transform"));
+        assertFalse(TextTokenizer.isPrefixTerm("ai"));
+        assertFalse(TextTokenizer.isPrefixTerm("机器学"));
+    }
+
+    @Test
+    void blankTextHasNoTokens() {
+        assertTrue(TextTokenizer.tokenize(null).isEmpty());
+        assertTrue(TextTokenizer.tokenize("  ,. ").isEmpty());
+    }
+}
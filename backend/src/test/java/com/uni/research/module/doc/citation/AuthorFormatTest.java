@@ -0,0 +1,62 @@
+package com.uni.research.module.doc.citation;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuthorFormatTest {
+
+    private static String format(AuthorFormat format, String authors) {
+        StringBuilder out = new StringBuilder();
+        assertTrue(format.append(authors, out));
+        return out.toString();
+    }
+
+    private static String authors(int count) {
+        StringBuilder names = new StringBuilder();
+        for (int i = 1; i <= count; i++) {
+            names.append(i > 1 ? ", " : "").append("Ann Author").append(i);
+        }
+        return names.toString();
+    }
+
+    @Test
+    void twoAuthorsInEachStyle() {
+        String authors = "Ashish Vaswani, Noam Shazeer";
+        assertEquals("Vaswani, A., & Shazeer, N.", format(AuthorFormat.APA, authors));
+        assertEquals("Vaswani, Ashish, and Noam Shazeer", format(AuthorFormat.MLA, authors));
+        assertEquals("A. Vaswani and N. Shazeer", format(AuthorFormat.IEEE, authors));
+        assertEquals("VASWANI A, SHAZEER N", format(AuthorFormat.GB_T_7714, authors));
+    }
+
+    @Test
+    void middleNamesAndStraySeparators() {
+        String authors = " , Geoffrey E. Hinton ,";
+        assertEquals("Hinton, G. E.", format(AuthorFormat.APA, authors));
+        assertEquals("Hinton, Geoffrey E.", format(AuthorFormat.MLA, authors));
+        assertEquals("G. E. Hinton", format(AuthorFormat.IEEE, authors));
+        assertEquals("HINTON G E", format(AuthorFormat.GB_T_7714, authors));
+    }
+
+    @Test
+    void longListsAreTruncatedPerStyle() {
+        assertEquals("A. Author1 et al.", format(AuthorFormat.IEEE, authors(7)));
+        assertEquals("AUTHOR1 A, AUTHOR2 A, AUTHOR3 A, et al.", format(AuthorFormat.GB_T_7714, authors(4)));
+        assertEquals("Author1, Ann, et al.", format(AuthorFormat.MLA, authors(3)));
+        String apa = format(AuthorFormat.APA, authors(22));
+        assertTrue(apa.contains("Author19, A., . . . Author22, A."));
+        assertFalse(apa.contains("Author20"));
+    }
+
+    @Test
+    void emptyListRendersNothing() {
+        StringBuilder out = new StringBuilder();
+        assertFalse(AuthorFormat.APA.append(null, out));
+        assertFalse(AuthorFormat.APA.append(" , ,", out));
+        assertEquals("", out.toString());
+        assertEquals(0, AuthorFormat.countNames(""));
+        assertEquals(3, AuthorFormat.countNames("a, b,, c,"));
+    }
+}
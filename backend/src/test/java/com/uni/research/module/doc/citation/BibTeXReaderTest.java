@@ -0,0 +1,87 @@
+package com.uni.research.module.doc.citation;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BibTeXReaderTest {
+
+    private static List<CitationEntry> readAll(BibTeXReader reader) throws IOException {
+        List<CitationEntry> entries = new ArrayList<>();
+        CitationEntry entry;
+        while ((entry = reader.next()) != null) {
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    @Test
+    void parsesBracedAndQuotedFields() throws IOException {
+        String bib = """
+                @Article{vaswani2017,
+                  title = {Attention Is {All} You Need},
+                  author = "Vaswani, Ashish and Noam Shazeer and Parmar, Niki",
+                  journal = {Advances in Neural Information Processing Systems},
+                  year = 2017,
+                  volume = {30},
+                  pages = {5998--6008},
+                  doi = {https://doi.org/10.5555/3295222.3295349},
+                }
+                """;
+        try (BibTeXReader reader = new BibTeXReader(new StringReader(bib))) {
+            CitationEntry entry = reader.next();
+            assertEquals("article", entry.getType());
+            assertEquals("vaswani2017", entry.getKey());
+            assertEquals("Attention Is All You Need", entry.getTitle());
+            assertEquals(List.of("Ashish Vaswani", "Noam Shazeer", "Niki Parmar"), entry.getAuthors());
+            assertEquals(2017, entry.getYear());
+            assertEquals("30", entry.getVolume());
+            assertEquals("5998-6008", entry.getPages());
+            assertEquals("10.5555/3295222.3295349", entry.getDoi());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void expandsStringMacrosAndConcatenation() throws IOException {
+        String bib = """
+                @string{nips = "Neural Information Processing Systems"}
+                @comment{ignored {nested} block}
+                @inproceedings{k1, booktitle = "Advances in " # nips, year = {2020}}
+                """;
+        try (BibTeXReader reader = new BibTeXReader(new StringReader(bib))) {
+            CitationEntry entry = reader.next();
+            assertEquals("Advances in Neural Information Processing Systems", entry.getJournal());
+            assertEquals(2020, entry.getYear());
+        }
+    }
+
+    @Test
+    void unescapesLatexSpecials() throws IOException {
+        String bib = "@misc{k, title = {R\\&D at 50\\% {C}ost}}";
+        try (BibTeXReader reader = new BibTeXReader(new StringReader(bib))) {
+            assertEquals("R&D at 50% Cost", reader.next().getTitle());
+        }
+    }
+
+    @Test
+    void skipsMalformedEntryAndContinues() throws IOException {
+        String bib = """
+                @article{ title = {no key} }
+                @article{good, title = {Kept}}
+                @article{broken, title = {unterminated
+                """;
+        try (BibTeXReader reader = new BibTeXReader(new StringReader(bib))) {
+            List<CitationEntry> entries = readAll(reader);
+            assertEquals(1, entries.size());
+            assertEquals("Kept", entries.get(0).getTitle());
+            assertEquals(2, reader.getMalformedCount());
+        }
+    }
+}
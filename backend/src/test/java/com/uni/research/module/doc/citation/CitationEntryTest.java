@@ -0,0 +1,33 @@
+package com.uni.research.module.doc.citation;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CitationEntryTest {
+
+    @Test
+    void doiIsStrippedAndLowercased() {
+        assertEquals("10.1000/abc", CitationEntry.normalizeDoi("https://doi.org/10.1000/ABC"));
+        assertEquals("10.1000/abc", CitationEntry.normalizeDoi(" http://dx.doi.org/10.1000/abc "));
+        assertEquals("10.1000/abc", CitationEntry.normalizeDoi("doi:10.1000/Abc"));
+        assertEquals("10.1000/abc", CitationEntry.normalizeDoi("10.1000/abc"));
+        assertNull(CitationEntry.normalizeDoi("  "));
+        assertNull(CitationEntry.normalizeDoi(null));
+    }
+
+    @Test
+    void namesAreReorderedToFirstLast() {
+        assertEquals("Ashish Vaswani", CitationEntry.normalizeName("Vaswani, Ashish"));
+        assertEquals("Martin Luther King Jr.", CitationEntry.normalizeName("King, Jr., Martin Luther"));
+        assertEquals("Geoffrey Hinton", CitationEntry.normalizeName(" Geoffrey Hinton "));
+    }
+
+    @Test
+    void yearIsFirstFourDigitNumber() {
+        assertEquals(2019, CitationEntry.parseYear("2019-05-01"));
+        assertEquals(2019, CitationEntry.parseYear("May 2019"));
+        assertNull(CitationEntry.parseYear("n.d."));
+    }
+}
@@ -0,0 +1,79 @@
+package com.uni.research.module.doc.citation;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 100k 条文献的解析吞吐（BibTeX / RIS），不含数据库写入
+ *
+ * 默认不运行：mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+class CitationImportBenchmark {
+
+    private static final int ENTRIES = 100_000;
+
+    @Test
+    void parseHundredThousandBibTeXEntries() throws IOException {
+        StringBuilder bib = new StringBuilder(ENTRIES * 300);
+        bib.append("@string{nips = \"Neural Information Processing Systems\"}\n");
+        for (int i = 0; i < ENTRIES; i++) {
+            bib.append("@article{key").append(i).append(",\n")
+                    .append("  title = {A {Study} of Topic ").append(i).append("},\n")
+                    .append("  author = {Doe, Jane and Roe, Richard and Wang, Li},\n")
+                    .append("  journal = \"Advances in \" # nips,\n")
+                    .append("  year = {").append(1990 + i % 35).append("},\n")
+                    .append("  pages = {").append(i % 900).append("--").append(i % 900 + 12).append("},\n")
+                    .append("  doi = {https://doi.org/10.1000/BENCH.").append(i).append("}\n}\n\n");
+        }
+        run("bibtex", bib.toString(), BibTeXReader::new);
+    }
+
+    @Test
+    void parseHundredThousandRisRecords() throws IOException {
+        StringBuilder ris = new StringBuilder(ENTRIES * 200);
+        for (int i = 0; i < ENTRIES; i++) {
+            ris.append("TY  - JOUR\n")
+                    .append("AU  - Doe, Jane\nAU  - Roe, Richard\n")
+                    .append("TI  - A Study of Topic ").append(i).append('\n')
+                    .append("JO  - Journal of Benchmarks\n")
+                    .append("PY  - ").append(1990 + i % 35).append('\n')
+                    .append("SP  - ").append(i % 900).append("\nEP  - ").append(i % 900 + 12).append('\n')
+                    .append("DO  - 10.1000/BENCH.").append(i).append('\n')
+                    .append("ER  - \n\n");
+        }
+        run("ris", ris.toString(), RisReader::new);
+    }
+
+    private static void run(String format, String input, Function<Reader, CitationReader> factory)
+            throws IOException {
+        // 预热一轮
+        parse(input, factory);
+        long start = System.nanoTime();
+        int count = parse(input, factory);
+        double ms = (System.nanoTime() - start) / 1e6;
+        System.out.printf("format=%s entries=%d size=%.1fMB cost=%.0fms (%.0f entries/s)%n",
+                format, count, input.length() / 1048576.0, ms, count / (ms / 1000));
+        assertEquals(ENTRIES, count);
+    }
+
+    private static int parse(String input, Function<Reader, CitationReader> factory) throws IOException {
+        int count = 0;
+        try (CitationReader reader = factory.apply(new StringReader(input))) {
+            CitationEntry entry;
+            while ((entry = reader.next()) != null) {
+                if (entry.getDoi() != null) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+}
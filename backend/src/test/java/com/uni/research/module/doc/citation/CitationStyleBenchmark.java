@@ -0,0 +1,68 @@
+package com.uni.research.module.doc.citation;
+
+import com.uni.research.module.doc.entity.Document;
+import com.uni.research.module.doc.service.CitationService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 引用导出吞吐：编译后的样式模板 vs 现有的 CitationService.generateBibTeX / generateEndNote
+ *
+ * 同一批文档、同样经由 CitationService 输出字符串，对照的是线上导出实际走的路径
+ *
+ * 默认不运行：mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+class CitationStyleBenchmark {
+
+    private static final int DOCS = 10_000;
+    private static final int ROUNDS = 20;
+
+    private final CitationService citationService = new CitationService();
+
+    @Test
+    void renderAllFormats() {
+        List<Document> docs = new ArrayList<>(DOCS);
+        for (int i = 0; i < DOCS; i++) {
+            Document doc = new Document();
+            doc.setTitle("A Study of Topic " + i);
+            doc.setAuthors("Jane Doe, Richard Roe, Li Wang" + (i % 3 == 0 ? ", Ann Other, Bo Zhang" : ""));
+            doc.setJournal("Journal of Benchmarks");
+            doc.setPublicationYear(1990 + i % 35);
+            doc.setVolume(String.valueOf(i % 60));
+            doc.setPages((i % 900) + "-" + (i % 900 + 12));
+            doc.setDoi(i % 2 == 0 ? "10.1000/bench." + i : null);
+            docs.add(doc);
+        }
+
+        measure("bibtex", docs, citationService::generateBibTeX);
+        measure("ris", docs, citationService::generateEndNote);
+        for (CitationStyle style : CitationStyles.all()) {
+            String name = style.getName();
+            measure(name, docs, doc -> citationService.render(doc, name));
+        }
+    }
+
+    private static void measure(String format, List<Document> docs, Function<Document, String> renderer) {
+        // 预热
+        for (Document doc : docs) {
+            renderer.apply(doc);
+        }
+        long chars = 0;
+        long start = System.nanoTime();
+        for (int r = 0; r < ROUNDS; r++) {
+            for (Document doc : docs) {
+                chars += renderer.apply(doc).length();
+            }
+        }
+        double nsPerDoc = (System.nanoTime() - start) / (double) (ROUNDS * DOCS);
+        System.out.printf("format=%s %.0fns/doc %.0fchars/doc%n", format, nsPerDoc, chars / (double) (ROUNDS * DOCS));
+        assertTrue(chars > 0);
+    }
+}
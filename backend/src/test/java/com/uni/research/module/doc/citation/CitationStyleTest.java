@@ -0,0 +1,93 @@
+package com.uni.research.module.doc.citation;
+
+import com.uni.research.module.doc.entity.Document;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CitationStyleTest {
+
+    private static Document vaswani() {
+        Document doc = new Document();
+        doc.setTitle("Attention Is All You Need");
+        doc.setAuthors("Ashish Vaswani, Noam Shazeer, Niki Parmar, Jakob Uszkoreit");
+        doc.setJournal("Advances in Neural Information Processing Systems");
+        doc.setPublicationYear(2017);
+        doc.setVolume("30");
+        doc.setPages("5998-6008");
+        doc.setDoi("10.5555/3295222.3295349");
+        return doc;
+    }
+
+    @Test
+    void builtInStylesRenderFullRecord() {
+        Document doc = vaswani();
+        assertEquals("Vaswani, A., Shazeer, N., Parmar, N., & Uszkoreit, J. (2017). Attention Is All You Need. "
+                + "Advances in Neural Information Processing Systems, 30, 5998-6008. "
+                + "https://doi.org/10.5555/3295222.3295349", CitationStyles.APA.format(doc));
+        assertEquals("Vaswani, Ashish, et al. \"Attention Is All You Need.\" "
+                + "Advances in Neural Information Processing Systems, vol. 30, 2017, pp. 5998-6008.",
+                CitationStyles.MLA.format(doc));
+        assertEquals("A. Vaswani, N. Shazeer, N. Parmar, and J. Uszkoreit, \"Attention Is All You Need,\" "
+                + "Advances in Neural Information Processing Systems, vol. 30, pp. 5998-6008, 2017, "
+                + "doi: 10.5555/3295222.3295349.", CitationStyles.IEEE.format(doc));
+        assertEquals("VASWANI A, SHAZEER N, PARMAR N, et al. Attention Is All You Need[J]. "
+                + "Advances in Neural Information Processing Systems, 2017, 30: 5998-6008. "
+                + "DOI: 10.5555/3295222.3295349.", CitationStyles.GB_T_7714.format(doc));
+    }
+
+    @Test
+    void optionalGroupsRollBackWhenFieldMissing() {
+        Document doc = new Document();
+        doc.setTitle("Untitled Draft");
+        doc.setPublicationYear(2021);
+        assertEquals("(2021). Untitled Draft.", CitationStyles.APA.format(doc));
+        assertEquals("Untitled Draft[J]. 2021.", CitationStyles.GB_T_7714.format(doc));
+    }
+
+    @Test
+    void periodAfterTerminalPunctuationIsSkipped() {
+        Document doc = new Document();
+        doc.setTitle("What is learning?");
+        assertEquals("What is learning?", CitationStyles.APA.format(doc));
+    }
+
+    @Test
+    void chineseAuthorsUseDeng() {
+        Document doc = new Document();
+        doc.setTitle("深度学习综述");
+        doc.setAuthors("张三, 李四, 王五, 赵六");
+        doc.setJournal("计算机学报");
+        doc.setPublicationYear(2020);
+        assertEquals("张三, 李四, 王五, 等. 深度学习综述[J]. 计算机学报, 2020.", CitationStyles.GB_T_7714.format(doc));
+    }
+
+    @Test
+    void renderAppendsToCallerBuffer() {
+        CitationStyle style = CitationStyle.compile("custom", "\\[{year}\\] {title}", AuthorFormat.APA);
+        StringBuilder out = new StringBuilder("1. ");
+        style.render(vaswani(), out);
+        assertEquals("1. [2017] Attention Is All You Need", out.toString());
+    }
+
+    @Test
+    void malformedTemplatesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> CitationStyle.compile("x", "{title", AuthorFormat.APA));
+        assertThrows(IllegalArgumentException.class, () -> CitationStyle.compile("x", "[{title}", AuthorFormat.APA));
+        assertThrows(IllegalArgumentException.class, () -> CitationStyle.compile("x", "{title}]", AuthorFormat.APA));
+        assertThrows(IllegalArgumentException.class, () -> CitationStyle.compile("x", "{isbn}", AuthorFormat.APA));
+        assertThrows(IllegalArgumentException.class, () -> CitationStyle.compile("x", "{title}\\", AuthorFormat.APA));
+    }
+
+    @Test
+    void findAcceptsAliases() {
+        assertSame(CitationStyles.GB_T_7714, CitationStyles.find("GB/T 7714"));
+        assertSame(CitationStyles.GB_T_7714, CitationStyles.find("gb-7714"));
+        assertSame(CitationStyles.IEEE, CitationStyles.find("IEEE"));
+        assertNull(CitationStyles.find("chicago"));
+        assertNull(CitationStyles.find(null));
+    }
+}
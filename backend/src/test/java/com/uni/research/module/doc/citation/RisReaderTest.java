@@ -0,0 +1,59 @@
+package com.uni.research.module.doc.citation;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RisReaderTest {
+
+    @Test
+    void parsesRecordAndJoinsPages() throws IOException {
+        String ris = """
+                ﻿TY  - JOUR
+                AU  - He, Kaiming
+                AU  - Zhang, Xiangyu
+                TI  - Deep Residual Learning
+                T2  - CVPR
+                PY  - 2016/06/27
+                SP  - 770
+                EP  - 778
+                DO  - DOI:10.1109/CVPR.2016.90
+                ER  -\s
+                """;
+        try (RisReader reader = new RisReader(new StringReader(ris))) {
+            CitationEntry entry = reader.next();
+            assertEquals("JOUR", entry.getType());
+            assertEquals(List.of("Kaiming He", "Xiangyu Zhang"), entry.getAuthors());
+            assertEquals("Deep Residual Learning", entry.getTitle());
+            assertEquals("CVPR", entry.getJournal());
+            assertEquals(2016, entry.getYear());
+            assertEquals("770-778", entry.getPages());
+            assertEquals("10.1109/cvpr.2016.90", entry.getDoi());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void recordWithoutEndTagIsCountedAsMalformed() throws IOException {
+        String ris = """
+                TY  - JOUR
+                TI  - First
+                TY  - BOOK
+                TI  - Second
+                ER  -\s
+                TY  - JOUR
+                TI  - Trailing
+                """;
+        try (RisReader reader = new RisReader(new StringReader(ris))) {
+            assertEquals("Second", reader.next().getTitle());
+            assertEquals("Trailing", reader.next().getTitle());
+            assertNull(reader.next());
+            assertEquals(1, reader.getMalformedCount());
+        }
+    }
+}
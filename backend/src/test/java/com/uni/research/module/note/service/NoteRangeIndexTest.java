@@ -0,0 +1,109 @@
+package com.uni.research.module.note.service;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.uni.research.module.note.entity.Note;
+import com.uni.research.module.note.mapper.NoteMapper;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class NoteRangeIndexTest {
+
+    private static final long USER = 7L;
+    private static final long DOC = 42L;
+
+    private final List<Note> stored = new ArrayList<>();
+    private NoteRangeIndex index;
+
+    private static Note note(long id, Integer pageStart, Integer pageEnd, Integer offset) {
+        Note note = new Note();
+        note.setId(id);
+        note.setUserId(USER);
+        note.setDocId(DOC);
+        note.setPageStart(pageStart);
+        note.setPageEnd(pageEnd);
+        note.setOffsetStart(offset);
+        return note;
+    }
+
+    @BeforeEach
+    void setUp() {
+        // NoteRangeIndex 加载分区时使用 LambdaQueryWrapper<Note>，需要实体的表信息（Spring 容器外不会自动注册）
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), Note.class);
+        NoteMapper mapper = mock(NoteMapper.class);
+        when(mapper.selectList(any())).thenReturn(stored);
+        index = new NoteRangeIndex(mapper);
+        ReflectionTestUtils.setField(index, "maxCachedDocs", 16);
+        index.init();
+    }
+
+    @Test
+    void returnsOverlappingNotesInPageAndOffsetOrder() {
+        stored.add(note(1, 1, 1, 0));
+        stored.add(note(2, 3, 5, 10));
+        stored.add(note(3, 4, 4, 200));
+        stored.add(note(4, 4, 4, 50));
+        stored.add(note(5, 9, 12, 0));
+        stored.add(note(6, 2, 20, 0));
+
+        assertEquals(List.of(6L, 2L, 4L, 3L), index.overlapping(USER, DOC, 4, 4));
+        assertEquals(List.of(1L, 6L), index.overlapping(USER, DOC, 1, 2));
+        assertEquals(List.of(6L), index.overlapping(USER, DOC, 13, 30));
+        assertEquals(List.of(), index.overlapping(USER, DOC, 21, 30));
+    }
+
+    @Test
+    void missingEndPageMeansSinglePage() {
+        stored.add(note(1, 5, null, null));
+        assertEquals(List.of(1L), index.overlapping(USER, DOC, 5, 5));
+        assertEquals(List.of(), index.overlapping(USER, DOC, 6, 9));
+    }
+
+    @Test
+    void updatesAreVisibleAfterPartitionIsLoaded() {
+        stored.add(note(1, 2, 2, 0));
+        assertEquals(List.of(1L), index.overlapping(USER, DOC, 1, 3));
+
+        index.onSaved(note(2, 3, 3, 0));
+        index.onSaved(note(1, 8, 8, 0));
+        assertEquals(List.of(2L), index.overlapping(USER, DOC, 1, 3));
+
+        // 改为文档级笔记后不再按页命中
+        index.onSaved(note(2, null, null, null));
+        assertEquals(List.of(), index.overlapping(USER, DOC, 1, 3));
+
+        index.onDeleted(note(1, 8, 8, 0));
+        assertEquals(List.of(), index.overlapping(USER, DOC, 1, 10));
+    }
+
+    @Test
+    void largePartitionMatchesLinearScan() {
+        Random random = new Random(7);
+        for (long id = 1; id <= 2000; id++) {
+            int start = 1 + random.nextInt(500);
+            stored.add(note(id, start, start + random.nextInt(6), random.nextInt(1000)));
+        }
+        for (int from = 1; from <= 500; from += 37) {
+            int to = from + random.nextInt(10);
+            List<Long> hits = index.overlapping(USER, DOC, from, to);
+            long expected = 0;
+            for (Note note : stored) {
+                if (note.getPageStart() <= to && note.getPageEnd() >= from) {
+                    expected++;
+                }
+            }
+            assertEquals(expected, hits.size());
+        }
+    }
+}
@@ -2,7 +2,7 @@ import os
 import json
 import uvicorn
 import requests
-from fastapi import FastAPI, HTTPException, UploadFile, File
+from fastapi import FastAPI, HTTPException, UploadFile, File, Form
 from fastapi.middleware.cors import CORSMiddleware
 from pydantic import BaseModel
 from typing import List, Optional
@@ -18,7 +18,7 @@ load_dotenv()
 
 # Import RAG service
 try:
-    from rag_service import ingest_document, search_context, build_rag_prompt, delete_document_vectors, get_document_chunks
+    from rag_service import ingest_document, search_context, build_rag_prompt, delete_document_vectors, delete_documents_vectors, get_document_chunks
     RAG_ENABLED = True
     print("RAG service loaded successfully")
 except ImportError as e:
@@ -56,6 +56,8 @@ class ChatRequest(BaseModel):
 class IngestRequest(BaseModel):
     file_path: str
     doc_id: Optional[str] = None
+    callback_url: Optional[str] = None  # Java backend status callback
+    callback_token: Optional[str] = None
 
 class AnalysisRequest(BaseModel):
     doc_id: str
@@ -79,10 +81,12 @@ def read_root():
     }
 
 @app.post("/api/v1/ingest")
-async def ingest_endpoint(file: UploadFile = File(...), doc_id: Optional[str] = None):
+async def ingest_endpoint(file: UploadFile = File(...), doc_id: Optional[str] = None,
+                          callback_url: Optional[str] = Form(None), callback_token: Optional[str] = Form(None)):
     """
     Ingest a document into the vector database.
     Accepts file upload and processes it for RAG.
+    Used by the Java backend's streamed transport when the two services do not share a filesystem.
     """
     if not RAG_ENABLED:
         raise HTTPException(status_code=503, detail="RAG service is not available")
@@ -90,6 +94,7 @@ async def ingest_endpoint(file: UploadFile = File(...), doc_id: Optional[str] =
     print(f"=== Ingesting document: {file.filename} ===")
     
     # Save uploaded file to temp location
+    tmp_path = None
     try:
         suffix = os.path.splitext(file.filename)[1]
         with tempfile.NamedTemporaryFile(delete=False, suffix=suffix) as tmp:
@@ -97,15 +102,54 @@ async def ingest_endpoint(file: UploadFile = File(...), doc_id: Optional[str] =
             tmp_path = tmp.name
         
         # Process document
-        result = await run_in_threadpool(ingest_document, tmp_path, doc_id or file.filename)
-        
-        # Cleanup temp file
-        os.unlink(tmp_path)
-        
-        return result
+        request = IngestRequest(file_path=tmp_path, doc_id=doc_id or file.filename,
+                                callback_url=callback_url, callback_token=callback_token)
+        return await run_in_threadpool(ingest_with_callbacks, request)
     except Exception as e:
         print(f"Ingestion error: {e}")
         raise HTTPException(status_code=500, detail=str(e))
+    finally:
+        # Cleanup temp file
+        if tmp_path and os.path.exists(tmp_path):
+            os.unlink(tmp_path)
+
+def report_status(request: IngestRequest, status: str, progress: int, **extra):
+    """
+    Post ingestion status to the Java backend callback (best effort, never raises).
+    """
+    if not request.callback_url or not request.doc_id:
+        return
+    payload = {"docId": request.doc_id, "status": status, "progress": progress}
+    payload.update(extra)
+    try:
+        requests.post(
+            request.callback_url,
+            json=payload,
+            headers={"X-Callback-Token": request.callback_token or ""},
+            timeout=5
+        )
+    except Exception as e:
+        print(f"Status callback failed for {request.doc_id}: {e}")
+
+def ingest_with_callbacks(request: IngestRequest) -> dict:
+    """
+    Run ingestion for one document, reporting processing / progress / completed / failed.
+    Runs in the thread pool because both ingestion and callbacks are blocking.
+    """
+    report_status(request, "processing", 0, stage="started")
+    try:
+        if not os.path.exists(request.file_path):
+            raise FileNotFoundError(f"File not found: {request.file_path}")
+        result = ingest_document(
+            request.file_path,
+            request.doc_id,
+            progress=lambda stage, percent: report_status(request, "processing", percent, stage=stage)
+        )
+    except Exception as e:
+        report_status(request, "failed", 100, error=str(e))
+        raise
+    report_status(request, "completed", 100, chunks=result.get("chunks_created"))
+    return result
 
 @app.post("/api/v1/ingest/path")
 async def ingest_by_path(request: IngestRequest):
@@ -121,12 +165,42 @@ async def ingest_by_path(request: IngestRequest):
         raise HTTPException(status_code=404, detail=f"File not found: {request.file_path}")
     
     try:
-        result = await run_in_threadpool(ingest_document, request.file_path, request.doc_id)
+        result = await run_in_threadpool(ingest_with_callbacks, request)
         return result
     except Exception as e:
         print(f"Ingestion error: {e}")
         raise HTTPException(status_code=500, detail=str(e))
 
+class BatchIngestRequest(BaseModel):
+    items: List[IngestRequest]
+
+@app.post("/api/v1/ingest/batch")
+async def ingest_batch(request: BatchIngestRequest):
+    """
+    Ingest a batch of documents by file path (used by the Java bulk upload).
+    Items are processed one after another so a large import does not flood the embedding API;
+    a failing item is reported and does not abort the rest of the batch.
+    """
+    if not RAG_ENABLED:
+        raise HTTPException(status_code=503, detail="RAG service is not available")
+
+    print(f"=== Ingesting batch of {len(request.items)} documents ===")
+
+    results = []
+    for item in request.items:
+        if not os.path.exists(item.file_path):
+            # The Java backend falls back to streaming these (no shared filesystem)
+            results.append({"doc_id": item.doc_id, "status": "not_found", "detail": f"File not found: {item.file_path}"})
+            continue
+        try:
+            result = await run_in_threadpool(ingest_with_callbacks, item)
+            results.append({"doc_id": item.doc_id, "status": "success", "result": result})
+        except Exception as e:
+            print(f"Ingestion error for {item.doc_id}: {e}")
+            results.append({"doc_id": item.doc_id, "status": "error", "detail": str(e)})
+
+    return {"results": results}
+
 class DeleteRequest(BaseModel):
     doc_id: str
 
@@ -148,6 +222,26 @@ async def delete_vectors(doc_id: str):
         print(f"Delete error: {e}")
         raise HTTPException(status_code=500, detail=str(e))
 
+class BatchDeleteRequest(BaseModel):
+    doc_ids: List[str]
+
+@app.post("/api/v1/vectors/delete")
+async def delete_vectors_batch(request: BatchDeleteRequest):
+    """
+    Delete the vectors of several documents at once.
+    Called by the Java background purger; a failure returns 500 so the batch is retried.
+    """
+    if not RAG_ENABLED:
+        raise HTTPException(status_code=503, detail="RAG service is not available")
+
+    print(f"=== Deleting vectors for {len(request.doc_ids)} documents ===")
+
+    try:
+        return await run_in_threadpool(delete_documents_vectors, request.doc_ids)
+    except Exception as e:
+        print(f"Batch delete error: {e}")
+        raise HTTPException(status_code=500, detail=str(e))
+
 @app.post("/api/v1/chat/stream")
 async def stream_chat(request: ChatRequest):
     print(f"=== Received chat request ===")
@@ -57,13 +57,14 @@ def get_vector_store():
     )
 
 
-def ingest_document(file_path: str, doc_id: Optional[str] = None) -> dict:
+def ingest_document(file_path: str, doc_id: Optional[str] = None, progress=None) -> dict:
     """
     Ingest a document into the vector database.
     
     Args:
         file_path: Path to the document file (PDF, MD, TXT)
         doc_id: Optional document ID for metadata
+        progress: Optional callable(stage, percent) invoked after each ingestion stage
     
     Returns:
         dict with status and chunk count
@@ -86,6 +87,8 @@ def ingest_document(file_path: str, doc_id: Optional[str] = None) -> dict:
     
     documents = loader.load()
     print(f"Loaded {len(documents)} pages/sections")
+    if progress:
+        progress("loaded", 30)
     
     # 2. 智能分块 - 根据文档大小自适应
     total_chars = sum(len(doc.page_content) for doc in documents)
@@ -121,6 +124,8 @@ def ingest_document(file_path: str, doc_id: Optional[str] = None) -> dict:
     )
     chunks = text_splitter.split_documents(documents)
     print(f"Split into {len(chunks)} chunks (size={chunk_size}, overlap={chunk_overlap})")
+    if progress:
+        progress("split", 50)
     
     # 3. Add metadata with section info
     for i, chunk in enumerate(chunks):
@@ -439,6 +444,47 @@ def delete_document_vectors(doc_id: str) -> dict:
         }
 
 
+
+def delete_documents_vectors(doc_ids: List[str]) -> dict:
+    """
+    Delete the vectors of several documents in one statement (used by the background purger).
+    Unlike delete_document_vectors, errors are raised so the caller can retry the batch.
+
+    Args:
+        doc_ids: The document IDs to delete
+
+    Returns:
+        dict with status and deleted count
+    """
+    import psycopg2
+    from urllib.parse import urlparse
+
+    parsed = urlparse(CONNECTION_STRING)
+    conn = psycopg2.connect(
+        host=parsed.hostname,
+        port=parsed.port or 5432,
+        database=parsed.path[1:],
+        user=parsed.username,
+        password=parsed.password
+    )
+    try:
+        with conn.cursor() as cursor:
+            cursor.execute(
+                "DELETE FROM langchain_pg_embedding WHERE cmetadata->>'doc_id' = ANY(%s)",
+                ([str(doc_id) for doc_id in doc_ids],)
+            )
+            deleted_count = cursor.rowcount
+        conn.commit()
+    finally:
+        conn.close()
+
+    print(f"Deleted {deleted_count} vectors for {len(doc_ids)} documents")
+    return {
+        "status": "success",
+        "deleted_count": deleted_count,
+        "doc_count": len(doc_ids)
+    }
+
 def get_document_chunks(doc_id: str) -> List[str]:
     """
     Retrieve all text chunks for a specific document, ordered by their index.